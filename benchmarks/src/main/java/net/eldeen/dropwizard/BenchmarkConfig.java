@@ -0,0 +1,36 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.Configuration;
+
+/**
+ * An app config exposing {@link CfSignalResourceConfig} the way the README describes.
+ */
+public class BenchmarkConfig extends Configuration {
+
+  @Valid
+  @NotNull
+  private CfSignalResourceConfig cfSignalResource = new CfSignalResourceConfig();
+
+  @JsonProperty
+  public CfSignalResourceConfig getCfSignalResource() {
+    return cfSignalResource;
+  }
+
+  @JsonProperty
+  public void setCfSignalResource(final CfSignalResourceConfig cfSignalResource) {
+    this.cfSignalResource = cfSignalResource;
+  }
+
+  static CfSignalResourceConfig newCfSignalResourceConfig() {
+    final CfSignalResourceConfig config = new CfSignalResourceConfig();
+    config.setAsgResourceName("autoScalingGroup");
+    config.setStackName("benchmark");
+    config.setEc2InstanceId("i-0123456789abcdef0");
+    config.setAwsRegion("us-west-2");
+    return config;
+  }
+}
@@ -0,0 +1,115 @@
+package net.eldeen.dropwizard;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.services.cloudformation.AmazonCloudFormationClient;
+import io.dropwizard.Application;
+import io.dropwizard.configuration.ResourceConfigurationSourceProvider;
+import io.dropwizard.setup.Bootstrap;
+import io.dropwizard.setup.Environment;
+
+/**
+ * Starts a minimal Dropwizard app with the bundle against a {@link FakeCloudFormationServer} and reports the wall-clock
+ * time, and the bytes allocated, from {@code main} until the signal has been sent. Run it in a fresh JVM each time, e.g.
+ * <pre>
+ * java -cp target/benchmarks.jar net.eldeen.dropwizard.BootToSignal [--lightweight]
+ * </pre>
+ * With {@code --lightweight} the signal is sent by {@link LightweightCloudFormation} instead of the SDK's client. With
+ * {@code --cds archive.jsa} the bundle dumps a {@link CdsArchive} once signalled, so boot once with the options
+ * {@link CdsLauncher} prints for no archive, to dump it, then again with those it prints for the archive, to use it.
+ * Allocations are those of the threads still alive once the signal has been sent, which covers {@code main}, Jetty and
+ * the bundle's own threads.
+ */
+public final class BootToSignal {
+
+  private BootToSignal() {
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final long mainNanos = System.nanoTime();
+    final long allocatedAtMain = allocatedBytes();
+
+    try (FakeCloudFormationServer cloudFormation = new FakeCloudFormationServer()) {
+      final boolean lightweight = Arrays.asList(args).contains("--lightweight");
+      final int cds = Arrays.asList(args).indexOf("--cds");
+      if (cds >= 0) {
+        //overrides boot-to-signal.yml
+        System.setProperty("dw.cfSignalResource.cds.enabled", "true");
+        System.setProperty("dw.cfSignalResource.cds.archivePath", args[cds + 1]);
+      }
+      final App app = new App(cloudFormation.getEndpoint(), lightweight);
+      app.run("server", "boot-to-signal.yml");
+
+      final CfSignalResourceOutcome outcome = app.bundle.getSignalOutcome().get(1, TimeUnit.MINUTES);
+      final long mainToSignalNanos = System.nanoTime() - mainNanos;
+      final long allocated = allocatedBytes() - allocatedAtMain;
+
+      System.out.printf("client:               %s%n", lightweight ? "lightweight" : "AWS SDK");
+      System.out.printf("outcome:              %s%n", outcome);
+      System.out.printf("main to signal:       %d ms%n", TimeUnit.NANOSECONDS.toMillis(mainToSignalNanos));
+      System.out.printf("JVM start to signal:  %d ms%n",
+                        System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+      System.out.printf("allocated:            %d KiB%n", allocated / 1024);
+      System.out.printf("classes loaded:       %d%n", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+      if (cds >= 0) {
+        final boolean usingArchive = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                                                      .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile="));
+        System.out.printf("CDS archive:          %s%n", usingArchive ? "used"
+                          : app.bundle.getCdsArchived().get(1, TimeUnit.MINUTES) ? "dumped" : "none");
+      }
+    }
+    //the app's Jetty threads would otherwise keep the JVM running
+    System.exit(0);
+  }
+
+  private static long allocatedBytes() {
+    final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+      return 0;
+    }
+    long total = 0;
+    for (long allocated : ((com.sun.management.ThreadMXBean) threadMXBean)
+                            .getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+      //-1 for threads that have exited since their IDs were read
+      total += Math.max(0, allocated);
+    }
+    return total;
+  }
+
+  private static class App extends Application<BenchmarkConfig> {
+
+    private final CfSignalResourceBundle<BenchmarkConfig> bundle;
+
+    App(final String cloudFormationEndpoint, final boolean lightweight) {
+      bundle = new CfSignalResourceBundle<>(config -> {
+        if (lightweight) {
+          return new LightweightCloudFormation(URI.create(cloudFormationEndpoint + "/"),
+                                               config.getAwsRegion(),
+                                               new StaticCredentialsProvider(
+                                                 new BasicAWSCredentials("boot-to-signal", "boot-to-signal")),
+                                               Clock.systemUTC());
+        }
+        final AmazonCloudFormationClient client =
+          new AmazonCloudFormationClient(new BasicAWSCredentials("boot-to-signal", "boot-to-signal"));
+        client.setEndpoint(cloudFormationEndpoint);
+        return client;
+      }, Ec2MetadataResolver.getDefault());
+    }
+
+    @Override
+    public void initialize(final Bootstrap<BenchmarkConfig> bootstrap) {
+      bootstrap.setConfigurationSourceProvider(new ResourceConfigurationSourceProvider());
+      bootstrap.addBundle(bundle);
+    }
+
+    @Override
+    public void run(final BenchmarkConfig configuration, final Environment environment) {
+    }
+  }
+}
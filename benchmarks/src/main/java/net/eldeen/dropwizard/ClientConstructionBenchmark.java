@@ -0,0 +1,50 @@
+package net.eldeen.dropwizard;
+
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.cloudformation.AmazonCloudFormation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building, and shutting down, the bundle's own CloudFormation client. Run with {@code -bm ss} and many forks to see
+ * what the first client costs a freshly started JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientConstructionBenchmark {
+
+  private final CfSignalResourceConfig config = BenchmarkConfig.newCfSignalResourceConfig();
+  private final CfSignalResourceConfig lightweightConfig = BenchmarkConfig.newCfSignalResourceConfig();
+
+  public ClientConstructionBenchmark() {
+    lightweightConfig.setLightweightClient(true);
+  }
+
+  @Benchmark
+  public AmazonCloudFormation newCloudFormationClient() {
+    final AmazonCloudFormation client = CfSignalResourceBundle.newCloudFormationClient(config,
+                                                                                       Ec2MetadataResolver.getDefault());
+    client.shutdown();
+    return client;
+  }
+
+  @Benchmark
+  public AmazonCloudFormation newLightweightCloudFormationClient() {
+    final AmazonCloudFormation client = CfSignalResourceBundle.newCloudFormationClient(lightweightConfig,
+                                                                                       Ec2MetadataResolver.getDefault());
+    client.shutdown();
+    return client;
+  }
+}
@@ -0,0 +1,41 @@
+package net.eldeen.dropwizard;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the {@link CfSignalResourceConfig} in the app's config, which happens on every
+ * {@link CfSignalResourceBundle#run}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLookupBenchmark {
+
+  private CfSignalResourceBundle<BenchmarkConfig> bundle;
+  private BenchmarkConfig config;
+
+  @Setup
+  public void setup() {
+    bundle = new CfSignalResourceBundle<>(StubCloudFormation.newInstance());
+    config = new BenchmarkConfig();
+  }
+
+  @Benchmark
+  public CfSignalResourceConfig getCfResourceBundleConfig() {
+    return bundle.getCfResourceBundleConfig(config);
+  }
+}
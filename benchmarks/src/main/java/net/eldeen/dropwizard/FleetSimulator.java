@@ -0,0 +1,245 @@
+package net.eldeen.dropwizard;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.cloudformation.AmazonCloudFormation;
+import com.amazonaws.services.cloudformation.AmazonCloudFormationClient;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+
+/**
+ * Boots a fleet of instances at once, each running its own bundle with its own client and retry budget, the way the
+ * instances of a rolling update batch do, all signalling one {@link FakeCloudFormationServer}. Reports how many
+ * signalled, how long they took and how many calls they made, to see how retries and rate limiting cope with
+ * CloudFormation throttling. Run it like
+ * <pre>
+ * java -cp target/benchmarks.jar net.eldeen.dropwizard.FleetSimulator --instances 500 --throttling 0.1 --rate-limit 50
+ * </pre>
+ * Options, all optional:
+ * <ul>
+ *   <li>{@code --instances}: how many instances boot, {@code 500} by default</li>
+ *   <li>{@code --threads}: how many boot at a time, one per instance by default</li>
+ *   <li>{@code --ramp}: seconds over which the instances start booting, {@code 0} by default</li>
+ *   <li>{@code --latency}: milliseconds CloudFormation takes to answer, e.g. {@code 20-200}, {@code 0} by default</li>
+ *   <li>{@code --throttling}: fraction of calls throttled at random, {@code 0} by default</li>
+ *   <li>{@code --errors}: fraction of calls failing with {@code InternalFailure}, {@code 0} by default</li>
+ *   <li>{@code --rate-limit}: calls per second CloudFormation allows across the fleet, unlimited by default</li>
+ *   <li>{@code --client-rate}: the {@code retry.requestsPerSecond} of each instance, {@code 10} by default</li>
+ *   <li>{@code --lightweight}: signal through {@link LightweightCloudFormation} rather than the SDK's client</li>
+ * </ul>
+ */
+public final class FleetSimulator {
+
+  //shared by every instance, as building one is slow and has nothing to do with signalling
+  private static final ObjectMapper OBJECT_MAPPER = Jackson.newObjectMapper();
+
+  private FleetSimulator() {
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Map<String, String> options = parseOptions(args);
+    final int instances = Integer.parseInt(options.getOrDefault("instances", "500"));
+    final int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(instances)));
+    final long rampMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("ramp", "0")));
+    final String[] latency = options.getOrDefault("latency", "0").split("-");
+    final long minLatencyMillis = Long.parseLong(latency[0]);
+    final long maxLatencyMillis = Long.parseLong(latency[latency.length - 1]);
+    final double throttling = Double.parseDouble(options.getOrDefault("throttling", "0"));
+    final double errors = Double.parseDouble(options.getOrDefault("errors", "0"));
+    final double rateLimit = Double.parseDouble(options.getOrDefault("rate-limit", "0"));
+    final double clientRate = Double.parseDouble(options.getOrDefault("client-rate", "10"));
+    final boolean lightweight = options.containsKey("lightweight");
+
+    try (FakeCloudFormationServer cloudFormation = new FakeCloudFormationServer()) {
+      cloudFormation.setLatency(minLatencyMillis, maxLatencyMillis, TimeUnit.MILLISECONDS);
+      cloudFormation.setThrottlingRate(throttling);
+      cloudFormation.setErrorRate(errors);
+      cloudFormation.setRateLimit(rateLimit);
+      final Function<CfSignalResourceConfig, AmazonCloudFormation> clientFactory =
+        newClientFactory(cloudFormation.getEndpoint(), lightweight);
+
+      final ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+        final Thread thread = new Thread(runnable, "fleet-instance");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final long startNanos = System.nanoTime();
+      final List<Future<InstanceResult>> futures = new ArrayList<>(instances);
+      for (int i = 0; i < instances; i++) {
+        final int instance = i;
+        final long bootAtNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(rampMillis * i / instances);
+        futures.add(pool.submit(() -> {
+          TimeUnit.NANOSECONDS.sleep(bootAtNanos - System.nanoTime());
+          return bootInstance(instance, clientFactory, clientRate);
+        }));
+      }
+      final List<InstanceResult> results = new ArrayList<>(instances);
+      for (Future<InstanceResult> future : futures) {
+        results.add(future.get());
+      }
+      final long wallClockMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      pool.shutdown();
+
+      System.out.printf("instances:            %d (%d at a time, started over %d ms, %s client)%n",
+                        instances, threads, rampMillis, lightweight ? "lightweight" : "AWS SDK");
+      System.out.printf("fake CloudFormation:  latency %d-%d ms, throttling %.1f%%, errors %.1f%%, rate limit %s%n",
+                        minLatencyMillis, maxLatencyMillis, throttling * 100, errors * 100,
+                        rateLimit > 0 ? rateLimit + "/s" : "none");
+      report(results, cloudFormation, wallClockMillis);
+    }
+    //the instances' client threads would otherwise keep the JVM running
+    System.exit(0);
+  }
+
+  private static Map<String, String> parseOptions(final String[] args) {
+    final Map<String, String> options = new HashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      if (!args[i].startsWith("--")) {
+        throw new IllegalArgumentException("unexpected argument '" + args[i] + "'");
+      }
+      final String name = args[i].substring(2);
+      if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+        options.put(name, args[++i]);
+      }
+      else {
+        options.put(name, "true");
+      }
+    }
+    return options;
+  }
+
+  private static Function<CfSignalResourceConfig, AmazonCloudFormation> newClientFactory(final String endpoint,
+                                                                                         final boolean lightweight) {
+    return config -> {
+      if (lightweight) {
+        return new LightweightCloudFormation(URI.create(endpoint + "/"),
+                                             config.getAwsRegion(),
+                                             new StaticCredentialsProvider(
+                                               new BasicAWSCredentials("fleet-simulator", "fleet-simulator")),
+                                             Clock.systemUTC());
+      }
+      //like the bundle's own client, leave retrying to the CloudFormationRetrier
+      final AmazonCloudFormationClient client =
+        new AmazonCloudFormationClient(new BasicAWSCredentials("fleet-simulator", "fleet-simulator"),
+                                       new ClientConfiguration().withRetryPolicy(
+                                         PredefinedRetryPolicies.NO_RETRY_POLICY));
+      client.setEndpoint(endpoint);
+      return client;
+    };
+  }
+
+  private static InstanceResult bootInstance(final int instance,
+                                             final Function<CfSignalResourceConfig, AmazonCloudFormation> clientFactory,
+                                             final double clientRate) throws Exception {
+    final Environment environment = new Environment("fleet-instance-" + instance,
+                                                    OBJECT_MAPPER,
+                                                    null, //the bundle validates nothing
+                                                    new MetricRegistry(),
+                                                    FleetSimulator.class.getClassLoader());
+    final BenchmarkConfig config = new BenchmarkConfig();
+    config.setCfSignalResource(BenchmarkConfig.newCfSignalResourceConfig());
+    config.getCfSignalResource().setEc2InstanceId(String.format("i-%017x", instance));
+    config.getCfSignalResource().getRetry().setRequestsPerSecond(clientRate);
+
+    final long bootNanos = System.nanoTime();
+    final CfSignalResourceBundle<BenchmarkConfig> bundle =
+      new CfSignalResourceBundle<>(clientFactory, Ec2MetadataResolver.getDefault());
+    bundle.run(config, environment);
+    final ContainerLifeCycle server = new ContainerLifeCycle();
+    environment.lifecycle().attach(server);
+    server.start();
+
+    String outcome;
+    try {
+      outcome = bundle.getSignalOutcome().get(5, TimeUnit.MINUTES).toString();
+    }
+    catch (ExecutionException e) {
+      outcome = e.getCause().getClass().getSimpleName();
+    }
+    catch (TimeoutException e) {
+      outcome = "no outcome";
+    }
+    final long signalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bootNanos);
+    final MetricRegistry metrics = environment.metrics();
+    final InstanceResult result =
+      new InstanceResult(outcome,
+                         signalMillis,
+                         metrics.counter(MetricRegistry.name(SignalMetrics.PREFIX, "retries")).getCount(),
+                         metrics.counter(MetricRegistry.name(SignalMetrics.PREFIX, "throttles")).getCount());
+    server.stop();
+    return result;
+  }
+
+  private static void report(final List<InstanceResult> results,
+                             final FakeCloudFormationServer cloudFormation,
+                             final long wallClockMillis) {
+    final Map<String, Integer> outcomes = new TreeMap<>();
+    final List<Long> signalMillis = new ArrayList<>(results.size());
+    long retries = 0;
+    long throttles = 0;
+    for (InstanceResult result : results) {
+      outcomes.merge(result.outcome, 1, Integer::sum);
+      signalMillis.add(result.signalMillis);
+      retries += result.retries;
+      throttles += result.throttles;
+    }
+    Collections.sort(signalMillis);
+
+    final int signalled = outcomes.getOrDefault(CfSignalResourceOutcome.SIGNALLED_SUCCESS.toString(), 0);
+    System.out.printf("signalled:            %d of %d (%.1f%%)%n",
+                      signalled, results.size(), 100.0 * signalled / results.size());
+    System.out.printf("outcomes:             %s%n", outcomes);
+    System.out.printf("boot to signal:       p50 %d ms, p90 %d ms, p99 %d ms, max %d ms%n",
+                      percentile(signalMillis, 50), percentile(signalMillis, 90), percentile(signalMillis, 99),
+                      signalMillis.get(signalMillis.size() - 1));
+
+    final Map<String, Integer> calls = cloudFormation.getCallCounts();
+    final int totalCalls = calls.values().stream().mapToInt(Integer::intValue).sum();
+    System.out.printf("API calls:            %d (%.1f/s) %s%n",
+                      totalCalls, totalCalls * 1000.0 / Math.max(1, wallClockMillis), calls);
+    System.out.printf("throttled:            %d, errors: %d%n",
+                      cloudFormation.getThrottledCount(), cloudFormation.getErrorCount());
+    System.out.printf("client retries:       %d, of which throttled %d%n", retries, throttles);
+    System.out.printf("wall clock:           %d ms%n", wallClockMillis);
+  }
+
+  private static long percentile(final List<Long> sorted, final int percentile) {
+    return sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * percentile / 100.0) - 1));
+  }
+
+  private static final class InstanceResult {
+
+    private final String outcome;
+    private final long signalMillis;
+    private final long retries;
+    private final long throttles;
+
+    InstanceResult(final String outcome, final long signalMillis, final long retries, final long throttles) {
+      this.outcome = outcome;
+      this.signalMillis = signalMillis;
+      this.retries = retries;
+      this.throttles = throttles;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package net.eldeen.dropwizard;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jersey.validation.Validators;
+import io.dropwizard.setup.Environment;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * From Jetty reporting it has started to the signal having been sent, through the bundle's lifecycle listener, with an
+ * in-memory CloudFormation. The bundle only ever signals once, so each invocation gets a freshly run bundle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+
+  private ContainerLifeCycle server;
+
+  @Setup(Level.Invocation)
+  public void setup() {
+    final Environment environment = new Environment("benchmark",
+                                                    Jackson.newObjectMapper(),
+                                                    Validators.newValidator(),
+                                                    new MetricRegistry(),
+                                                    ListenerDispatchBenchmark.class.getClassLoader());
+    final BenchmarkConfig config = new BenchmarkConfig();
+    config.setCfSignalResource(BenchmarkConfig.newCfSignalResourceConfig());
+    new CfSignalResourceBundle<BenchmarkConfig>(StubCloudFormation.newInstance()).run(config, environment);
+
+    server = new ContainerLifeCycle();
+    environment.lifecycle().attach(server);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() throws Exception {
+    server.stop();
+  }
+
+  @Benchmark
+  public ContainerLifeCycle startAndSignal() throws Exception {
+    server.start();
+    return server;
+  }
+}
@@ -0,0 +1,33 @@
+package net.eldeen.dropwizard;
+
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.services.cloudformation.model.SignalResourceRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the {@code SignalResource} request sent by {@code sendSignal}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignalRequestBenchmark {
+
+  private final CfSignalResourceConfig config = BenchmarkConfig.newCfSignalResourceConfig();
+
+  @Benchmark
+  public SignalResourceRequest newSignalResourceRequest() {
+    return CfSignalResourceBundle.newSignalResourceRequest(config, config.getEc2InstanceId(), true);
+  }
+}
@@ -0,0 +1,37 @@
+package net.eldeen.dropwizard;
+
+import java.lang.reflect.Proxy;
+
+import com.amazonaws.services.cloudformation.AmazonCloudFormation;
+import com.amazonaws.services.cloudformation.model.DescribeStackResourceResult;
+import com.amazonaws.services.cloudformation.model.ResourceStatus;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+
+/**
+ * An in-memory {@link AmazonCloudFormation} that reports an update in progress and accepts every signal, so benchmarks
+ * measure the bundle rather than the network.
+ */
+final class StubCloudFormation {
+
+  private StubCloudFormation() {
+  }
+
+  static AmazonCloudFormation newInstance() {
+    final DescribeStackResourceResult updateInProgress = new DescribeStackResourceResult().withStackResourceDetail(
+      new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS));
+    return (AmazonCloudFormation) Proxy.newProxyInstance(
+      StubCloudFormation.class.getClassLoader(),
+      new Class<?>[] {AmazonCloudFormation.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "describeStackResource":
+            return updateInProgress;
+          case "signalResource":
+          case "shutdown":
+            return null;
+          default:
+            throw new UnsupportedOperationException(method.getName());
+        }
+      });
+  }
+}
@@ -0,0 +1,89 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+
+/**
+ * Token bucket limiting the rate of calls to CloudFormation. The rate is halved whenever a call is throttled and
+ * recovers additively, up to the configured maximum, as calls succeed.
+ */
+class AdaptiveRateLimiter {
+
+  //never slow down below this fraction of the max rate
+  private static final double MIN_RATE_FRACTION = 1.0 / 16;
+
+  private final double maxRate;
+  private final double minRate;
+  private final double burst;
+  private final Ticker ticker;
+
+  private double rate;
+  private double tokens;
+  private long lastRefillNanos;
+
+  AdaptiveRateLimiter(final double maxRatePerSecond) {
+    this(maxRatePerSecond, Ticker.systemTicker());
+  }
+
+  AdaptiveRateLimiter(final double maxRatePerSecond, final Ticker ticker) {
+    checkArgument(maxRatePerSecond > 0, "maxRatePerSecond must be positive");
+    this.maxRate = maxRatePerSecond;
+    this.minRate = maxRatePerSecond * MIN_RATE_FRACTION;
+    this.burst = Math.max(1, maxRatePerSecond);
+    this.ticker = checkNotNull(ticker);
+    this.rate = maxRatePerSecond;
+    this.tokens = burst;
+    this.lastRefillNanos = ticker.read();
+  }
+
+  /**
+   * Block until a call may be made.
+   */
+  void acquire() throws InterruptedException {
+    final long waitNanos = reserve();
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  /**
+   * Take a token, going into debt if none are available.
+   * @return how long the caller must wait before making its call
+   */
+  @VisibleForTesting
+  synchronized long reserve() {
+    refill();
+    tokens -= 1;
+    if (tokens >= 0) {
+      return 0;
+    }
+    return (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  synchronized void onThrottled() {
+    refill();
+    rate = Math.max(minRate, rate / 2);
+  }
+
+  synchronized void onSuccess() {
+    refill();
+    rate = Math.min(maxRate, rate + maxRate * MIN_RATE_FRACTION);
+  }
+
+  @VisibleForTesting
+  synchronized double getRate() {
+    return rate;
+  }
+
+  private void refill() {
+    final long now = ticker.read();
+    final double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+    lastRefillNanos = now;
+  }
+}
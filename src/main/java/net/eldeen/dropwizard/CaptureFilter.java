@@ -0,0 +1,211 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the app's requests into a {@link RequestRecording}. A sampled request's body is read up front and handed on
+ * to the app from memory. Only requests with one of the given methods, to a path none of the excluded patterns match,
+ * are sampled, as the recording is replayed against the live app. Requests replayed by {@link ReplayGate} are never
+ * sampled.
+ */
+class CaptureFilter implements Filter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CaptureFilter.class);
+
+  /**
+   * Marks the requests {@link ReplayGate} sends.
+   */
+  static final String REPLAY_HEADER = "X-Cf-Signal-Resource-Replay";
+
+  private final RequestRecording recording;
+  private final double sampleRate;
+  private final long maxBodySize;
+  private final List<String> headers;
+  private final Set<String> methods;
+  private final List<Pattern> excludedPaths;
+
+  /**
+   * @param methods the HTTP methods captured, e.g. {@code GET}
+   * @param excludedPaths regular expressions for the request paths not captured
+   */
+  CaptureFilter(final RequestRecording recording,
+                final double sampleRate,
+                final long maxBodySize,
+                final List<String> headers,
+                final Collection<String> methods,
+                final Collection<String> excludedPaths) {
+    this.recording = checkNotNull(recording);
+    this.sampleRate = sampleRate;
+    this.maxBodySize = maxBodySize;
+    this.headers = checkNotNull(headers);
+    this.methods = upperCase(methods);
+    this.excludedPaths = excludedPaths.stream().map(Pattern::compile).collect(Collectors.toList());
+  }
+
+  /**
+   * @return if a request with this method and path, without its query, may be captured, and so replayed
+   */
+  static boolean isRepeatable(final Collection<String> methods,
+                              final Collection<String> excludedPaths,
+                              final String method,
+                              final String path) {
+    return upperCase(methods).contains(method.toUpperCase(Locale.ENGLISH))
+           && excludedPaths.stream().noneMatch(path::matches);
+  }
+
+  private boolean isRepeatable(final HttpServletRequest request) {
+    return methods.contains(request.getMethod().toUpperCase(Locale.ENGLISH))
+           && excludedPaths.stream().noneMatch(pattern -> pattern.matcher(request.getRequestURI()).matches());
+  }
+
+  private static Set<String> upperCase(final Collection<String> methods) {
+    return methods.stream().map(method -> method.toUpperCase(Locale.ENGLISH)).collect(Collectors.toSet());
+  }
+
+  @Override
+  public void init(final FilterConfig filterConfig) {
+  }
+
+  @Override
+  public void doFilter(final ServletRequest request,
+                       final ServletResponse response,
+                       final FilterChain chain) throws IOException, ServletException {
+    if (recording.isFull()
+        || ThreadLocalRandom.current().nextDouble() >= sampleRate
+        || !(request instanceof HttpServletRequest)
+        || !isRepeatable((HttpServletRequest) request)) {
+      chain.doFilter(request, response);
+      return;
+    }
+    final HttpServletRequest httpRequest = (HttpServletRequest) request;
+    final long contentLength = httpRequest.getContentLengthLong();
+    final boolean hasBody = contentLength > 0 || httpRequest.getHeader("Transfer-Encoding") != null;
+    if (httpRequest.getHeader(REPLAY_HEADER) != null || hasBody && !isCapturable(httpRequest, contentLength)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    final byte[] body = hasBody ? ByteStreams.toByteArray(httpRequest.getInputStream()) : new byte[0];
+    capture(httpRequest, body);
+    chain.doFilter(hasBody ? new BufferedBodyRequest(httpRequest, body) : request, response);
+  }
+
+  private boolean isCapturable(final HttpServletRequest request, final long contentLength) {
+    final String contentType = request.getContentType();
+    //a body of unknown length, i.e. chunked, can't be bounded without reading it, and reading a form's body would hide
+    //its parameters from the app
+    return contentLength >= 0
+           && contentLength <= maxBodySize
+           && (contentType == null || !contentType.startsWith("application/x-www-form-urlencoded"));
+  }
+
+  private void capture(final HttpServletRequest request, final byte[] body) {
+    final Map<String, String> captured = new LinkedHashMap<>();
+    for (String header : headers) {
+      final String value = request.getHeader(header);
+      if (value != null) {
+        captured.put(header, value);
+      }
+    }
+    final String uri = request.getQueryString() == null
+                       ? request.getRequestURI()
+                       : request.getRequestURI() + "?" + request.getQueryString();
+    try {
+      recording.append(new RequestRecording.Request(request.getMethod(), uri, captured, body));
+    }
+    catch (RuntimeException e) {
+      //the request is served all the same
+      LOGGER.debug("Unable to capture {} {}", request.getMethod(), uri, e);
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  /**
+   * Hands the app the body the filter has already read.
+   */
+  private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private BufferedBodyRequest(final HttpServletRequest request, final byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      final ByteArrayInputStream in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+          throw new IllegalStateException("the body has already been read");
+        }
+
+        @Override
+        public int read() {
+          return in.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+          return in.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+          return in.available();
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      final String encoding = getCharacterEncoding();
+      final Charset charset = encoding == null ? StandardCharsets.ISO_8859_1 : Charset.forName(encoding);
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+  }
+}
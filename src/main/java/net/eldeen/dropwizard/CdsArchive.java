@@ -0,0 +1,177 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An AppCDS archive of the classes the app loaded on its way to signalling {@code SUCCESS}, so later instances of the
+ * same artifact map them in rather than load them again. The running JVM dumps the archive, through the
+ * {@code VM.cds dynamic_dump} diagnostic command, which needs Java 17 or later started with
+ * {@code -XX:+RecordDynamicDumpInfo}. It is then copied to a store shared by the instances, from which
+ * {@link CdsLauncher} fetches it before the next instance boots.
+ */
+class CdsArchive {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CdsArchive.class);
+
+  private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+
+  /**
+   * Writes an archive of the classes loaded so far to a file.
+   */
+  @VisibleForTesting
+  interface Dumper {
+    void dump(Path file) throws JMException;
+  }
+
+  private final Path archive;
+  private final Optional<Path> store;
+  private final Dumper dumper;
+
+  /**
+   * @param store the directory the archive is shared through, if any
+   */
+  CdsArchive(final Path archive, final Optional<Path> store) {
+    this(archive, store, CdsArchive::dynamicDump);
+  }
+
+  @VisibleForTesting
+  CdsArchive(final Path archive, final Optional<Path> store, final Dumper dumper) {
+    this.archive = checkNotNull(archive);
+    this.store = checkNotNull(store);
+    this.dumper = checkNotNull(dumper);
+  }
+
+  static CdsArchive of(final CfSignalResourceCdsConfig config) {
+    return new CdsArchive(Paths.get(config.getArchivePath()),
+                          Optional.ofNullable(Strings.emptyToNull(config.getStoreDirectory())).map(Paths::get));
+  }
+
+  private Path storedArchive() {
+    return store.get().resolve(archive.getFileName());
+  }
+
+  /**
+   * Dump the archive, unless there is one already, and copy it to the store unless the store has one.
+   * @return if there is an archive for later instances to use
+   */
+  boolean archive() {
+    try {
+      if (!Files.exists(archive) && !dump()) {
+        return false;
+      }
+      if (store.isPresent() && !Files.exists(storedArchive())) {
+        copyAtomically(archive, storedArchive());
+        LOGGER.info("Stored the CDS archive {} at {}", archive, storedArchive());
+      }
+      return true;
+    }
+    catch (IOException e) {
+      LOGGER.warn("Unable to archive the classes loaded to {}", archive, e);
+      return false;
+    }
+  }
+
+  private boolean dump() throws IOException {
+    if (archive.getParent() != null) {
+      Files.createDirectories(archive.getParent());
+    }
+    //the JVM writes the archive in place, so it only takes the real name once it is all there
+    final Path dumped = archive.resolveSibling(archive.getFileName() + ".dumping");
+    Files.deleteIfExists(dumped);
+    try {
+      dumper.dump(dumped);
+    }
+    catch (JMException e) {
+      LOGGER.info("Unable to dump a CDS archive, which needs Java 17 or later: {}", e.toString());
+      return false;
+    }
+    //the command reports, rather than fails, when the JVM wasn't started to dump an archive
+    if (!Files.exists(dumped)) {
+      LOGGER.warn("No CDS archive was dumped, start the JVM with -XX:+RecordDynamicDumpInfo to dump one");
+      return false;
+    }
+    Files.move(dumped, archive, StandardCopyOption.ATOMIC_MOVE);
+    LOGGER.info("Dumped a CDS archive of the classes loaded to {}", archive);
+    return true;
+  }
+
+  private static void dynamicDump(final Path file) throws JMException {
+    final Object result = ManagementFactory.getPlatformMBeanServer()
+                                           .invoke(new ObjectName(DIAGNOSTIC_COMMAND),
+                                                   "vmCds",
+                                                   new Object[] {new String[] {"dynamic_dump", file.toString()}},
+                                                   new String[] {String[].class.getName()});
+    LOGGER.debug("VM.cds dynamic_dump: {}", result);
+  }
+
+  /**
+   * Copy the archive from the store, unless there is one here already.
+   */
+  void fetch() throws IOException {
+    if (!Files.exists(archive) && store.isPresent() && Files.exists(storedArchive())) {
+      if (archive.getParent() != null) {
+        Files.createDirectories(archive.getParent());
+      }
+      copyAtomically(storedArchive(), archive);
+    }
+  }
+
+  /**
+   * @return the options to start this JVM's version of Java with, to use the archive if there is one, otherwise to be
+   * able to dump it
+   */
+  List<String> jvmOptions() {
+    return jvmOptions(javaVersion());
+  }
+
+  /**
+   * @return none before Java 17, which would refuse to start with options it doesn't know
+   */
+  @VisibleForTesting
+  List<String> jvmOptions(final int javaVersion) {
+    if (javaVersion < 17) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(Files.exists(archive)
+                                     ? "-XX:SharedArchiveFile=" + archive
+                                     : "-XX:+RecordDynamicDumpInfo");
+  }
+
+  private static int javaVersion() {
+    //1.8 before Java 9, 9, 10 and so on since
+    final String version = System.getProperty("java.specification.version", "1.8");
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+
+  /**
+   * Copy {@code from} alongside {@code to} then move it into place, so no instance ever reads a partial archive.
+   */
+  private static void copyAtomically(final Path from, final Path to) throws IOException {
+    final Path copying =
+      Files.createTempFile(to.toAbsolutePath().getParent(), to.getFileName().toString(), ".copying");
+    try {
+      Files.copy(from, copying, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(copying, to, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      Files.deleteIfExists(copying);
+    }
+  }
+}
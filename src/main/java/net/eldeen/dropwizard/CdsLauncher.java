@@ -0,0 +1,37 @@
+package net.eldeen.dropwizard;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+/**
+ * Fetches the {@link CdsArchive} from its store and prints the JVM options to boot the app with, to use the archive if
+ * there is one, otherwise to be able to dump it once the app has signalled. Run it with the app's own {@code java} and
+ * the {@code archivePath} and {@code storeDirectory} of {@link CfSignalResourceCdsConfig}, e.g.
+ * <pre>
+ * java $(java -cp app.jar net.eldeen.dropwizard.CdsLauncher /var/tmp/app-1.2.jsa /mnt/efs) -jar app.jar server app.yml
+ * </pre>
+ * Nothing is printed before Java 17, so the app boots as it would have done without an archive.
+ */
+public final class CdsLauncher {
+
+  private CdsLauncher() {
+  }
+
+  public static void main(final String[] args) {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("usage: CdsLauncher archivePath [storeDirectory]");
+      System.exit(2);
+    }
+    final CdsArchive archive =
+      new CdsArchive(Paths.get(args[0]), args.length > 1 ? Optional.of(Paths.get(args[1])) : Optional.empty());
+    try {
+      archive.fetch();
+    }
+    catch (IOException e) {
+      //boot without it
+      System.err.println("Unable to fetch the CDS archive " + args[0] + ": " + e);
+    }
+    System.out.println(String.join(" ", archive.jvmOptions()));
+  }
+}
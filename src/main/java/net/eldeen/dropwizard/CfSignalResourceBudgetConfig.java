@@ -0,0 +1,60 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+/**
+ * <p>
+ * config for planning signalling around how long CloudFormation waits for the signal, as set by the ASG's
+ * {@code CreationPolicy} or {@code UpdatePolicy} in the stack's template.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If the stack's template should be read, with {@code GetTemplate}, to find out how long CloudFormation waits
+ *     for the signal. The app's instance profile then needs {@code cloudformation:GetTemplate}.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code safetyMargin}</td>
+ *     <td>{@code 30 seconds}</td>
+ *     <td>If the app isn't ready this long before CloudFormation stops waiting, {@code FAILURE} is signalled.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceBudgetConfig {
+
+  private boolean enabled = false;
+
+  @NotNull
+  private Duration safetyMargin = Duration.seconds(30);
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public Duration getSafetyMargin() {
+    return safetyMargin;
+  }
+
+  @JsonProperty
+  public void setSafetyMargin(final Duration safetyMargin) {
+    this.safetyMargin = safetyMargin;
+  }
+}
@@ -5,30 +5,65 @@ import static com.amazonaws.services.cloudformation.model.ResourceStatus.UPDATE_
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import javax.inject.Inject;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Objects;
+import javax.servlet.DispatcherType;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.services.cloudformation.AmazonCloudFormation;
 import com.amazonaws.services.cloudformation.AmazonCloudFormationClient;
 import com.amazonaws.services.cloudformation.model.DescribeStackResourceRequest;
 import com.amazonaws.services.cloudformation.model.DescribeStackResourceResult;
+import com.amazonaws.services.cloudformation.model.GetTemplateRequest;
 import com.amazonaws.services.cloudformation.model.ResourceSignalStatus;
 import com.amazonaws.services.cloudformation.model.ResourceStatus;
 import com.amazonaws.services.cloudformation.model.SignalResourceRequest;
-import com.amazonaws.util.EC2MetadataUtils;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
-import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.dropwizard.Configuration;
 import io.dropwizard.ConfiguredBundle;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,11 +74,60 @@ import org.slf4j.LoggerFactory;
 public class CfSignalResourceBundle<T extends Configuration> implements ConfiguredBundle<T> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CfSignalResourceBundle.class);
+  private static final String TARGET_LIFECYCLE_STATE_PATH = "/latest/meta-data/autoscaling/target-lifecycle-state";
+  /**
+   * Where the {@link StartupTimeline} is served on the admin port.
+   */
+  static final String TIMELINE_PATH = "/cf-signal-resource/timeline";
+  /**
+   * Where the app's readiness is served on the admin port, for the load balancer.
+   */
+  static final String READINESS_PATH = "/cf-signal-resource/ready";
 
   private final Function<CfSignalResourceConfig, AmazonCloudFormation> cloudFormationSupplier;
   private final AtomicReference<AmazonCloudFormation> internalCloudFormation = new AtomicReference<>(null);
+  private final CompletableFuture<CfSignalResourceOutcome> signalOutcome = new CompletableFuture<>();
+  private final CompletableFuture<Optional<Instant>> signalDeadline = new CompletableFuture<>();
+  private volatile ScheduledExecutorService signalExecutor;
+  private final Ec2MetadataResolver ec2MetadataResolver;
+  private final List<ReadinessGate> readinessGates = new CopyOnWriteArrayList<>();
+  private volatile CloudFormationRetrier retrier;
+  private final ReadinessTaskGraph readinessTasks = new ReadinessTaskGraph();
+  private volatile SignalMetrics metrics = SignalMetrics.unregistered();
+  private final AtomicBoolean signalling = new AtomicBoolean();
+  private final ShutdownHook startupFailureHook =
+    new ShutdownHook("cf-signal-resource-startup-failure", this::exitedBeforeStarting);
+  private volatile CfSignalResourceConfig startingConfig;
+  private volatile List<SignalTarget> signalTargets;
+  private final Function<CfSignalResourceConfig, LifecycleHooks> lifecycleHooksFactory;
+  private volatile LifecycleHooks lifecycleHooks;
+  private volatile CompletableFuture<List<LifecycleAction>> pendingLifecycleActions;
+  private volatile DrainFilter drainFilter;
+  private volatile ScheduledFuture<?> terminationWatch;
+  private volatile Optional<SignalJournal> signalJournal;
+  private final StartupTimeline timeline = new StartupTimeline();
+  private final CompletableFuture<Boolean> cdsArchived = new CompletableFuture<>();
 
   public CfSignalResourceBundle() {
+    this(Ec2MetadataResolver.getDefault());
+  }
+
+  private CfSignalResourceBundle(final Ec2MetadataResolver ec2MetadataResolver) {
+    this(config -> newCloudFormationClient(config, ec2MetadataResolver), ec2MetadataResolver);
+  }
+
+  /**
+   * @param internalCloudFormationFactory creates the client owned by this bundle; it is created once, reused for every
+   *                                      call and shut down when the app stops
+   * @param ec2MetadataResolver looks up the EC2 instance ID and region when they aren't configured
+   */
+  @VisibleForTesting
+  /*package-private*/ CfSignalResourceBundle(
+    final Function<CfSignalResourceConfig, AmazonCloudFormation> internalCloudFormationFactory,
+    final Ec2MetadataResolver ec2MetadataResolver) {
+    checkNotNull(internalCloudFormationFactory);
+    this.ec2MetadataResolver = checkNotNull(ec2MetadataResolver);
+    this.lifecycleHooksFactory = config -> newLifecycleHooks(config, ec2MetadataResolver);
     cloudFormationSupplier = (cfSignalResourceConfig) -> {
       AmazonCloudFormation amazonCloudFormation = internalCloudFormation.get();
 
@@ -51,33 +135,104 @@ public class CfSignalResourceBundle<T extends Configuration> implements Configur
         return amazonCloudFormation;
       }
 
-      return internalCloudFormation.updateAndGet((unused) -> {
-
-        AmazonCloudFormationClient amazonCloudFormationClient = new AmazonCloudFormationClient();
-
-        String awsRegion = cfSignalResourceConfig.getAwsRegion();
-        Region region;
-        if (Strings.isNullOrEmpty(awsRegion)) {
-          region = Regions.getCurrentRegion();
-        }
-        else {
-          region = Region.getRegion(Regions.fromName(awsRegion));
+      synchronized (internalCloudFormation) {
+        if (internalCloudFormation.get() == null) {
+          final Timer.Context clientCreation = metrics.clientCreation().time();
+          try {
+            internalCloudFormation.set(internalCloudFormationFactory.apply(cfSignalResourceConfig));
+          }
+          finally {
+            clientCreation.stop();
+          }
         }
-        amazonCloudFormationClient.setRegion(region);
-
-        return amazonCloudFormationClient;
-      });
+        return internalCloudFormation.get();
+      }
     };
   }
 
   @Inject
   public CfSignalResourceBundle(AmazonCloudFormation amazonCloudFormation) {
+    this(amazonCloudFormation, config -> newLifecycleHooks(config, Ec2MetadataResolver.getDefault()));
+  }
+
+  /**
+   * @param lifecycleHooksFactory creates the Auto Scaling client used when
+   *                              {@link CfSignalResourceLifecycleHookConfig#isEnabled()}
+   */
+  @VisibleForTesting
+  /*package-private*/ CfSignalResourceBundle(
+    final AmazonCloudFormation amazonCloudFormation,
+    final Function<CfSignalResourceConfig, LifecycleHooks> lifecycleHooksFactory) {
     checkNotNull(amazonCloudFormation);
     cloudFormationSupplier = (config) -> amazonCloudFormation;
+    ec2MetadataResolver = Ec2MetadataResolver.getDefault();
+    this.lifecycleHooksFactory = checkNotNull(lifecycleHooksFactory);
   }
 
   @Override
   public void initialize(Bootstrap<?> bootstrap) {
+    timeline.mark("initialize");
+    signalFailureOnInvalidConfiguration(bootstrap);
+
+    if (getConfiguration().isPresent()) {
+      //a later bundle failing to initialize stops the app before any command runs
+      startupFailureHook.arm();
+      disarmOnceInitialized(bootstrap.getMetricRegistry());
+    }
+  }
+
+  /**
+   * The app's config is built before any bundle runs, so signal {@code FAILURE} as soon as it fails to load rather than
+   * waiting for CloudFormation to time out.
+   */
+  private <C extends Configuration> void signalFailureOnInvalidConfiguration(final Bootstrap<C> bootstrap) {
+    bootstrap.setConfigurationFactoryFactory(
+      new FailFastConfigurationFactoryFactory<>(bootstrap.getConfigurationFactoryFactory(),
+                                                this::configurationFailed,
+                                                () -> timeline.mark("configLoaded")));
+  }
+
+  private void disarmOnceInitialized(final MetricRegistry bootstrapMetrics) {
+    //Dropwizard registers the JVM's gauges as soon as the app's initialize() has returned
+    bootstrapMetrics.addListener(new MetricRegistryListener.Base() {
+      @Override
+      public void onGaugeAdded(final String name, final Gauge<?> gauge) {
+        if (name.startsWith("jvm.")) {
+          bootstrapMetrics.removeListener(this);
+          startupFailureHook.disarm();
+        }
+      }
+    });
+  }
+
+  private void configurationFailed(final Exception cause, final Optional<Object> unvalidatedConfig) {
+    try {
+      Optional<CfSignalResourceConfig> config = getConfiguration();
+      if (!config.isPresent() && unvalidatedConfig.isPresent()) {
+        config = CfSignalResourceConfigAccessor.get(unvalidatedConfig.get());
+      }
+      if (config.isPresent()) {
+        signalStartupFailure(config.get(), "the app's config failed to load: " + cause.getMessage());
+      }
+      else {
+        LOGGER.warn("Unable to signal failure because the app's config failed to load without a readable"
+                    + " 'CfSignalResourceConfig'");
+      }
+    }
+    catch (RuntimeException e) {
+      //the config failing to load is the error worth reporting
+      LOGGER.warn("Unable to signal failure after the app's config failed to load", e);
+    }
+    finally {
+      startupFailureHook.disarm();
+    }
+  }
+
+  private void exitedBeforeStarting() {
+    final CfSignalResourceConfig config = startingConfig != null ? startingConfig : getConfiguration().orElse(null);
+    if (config != null) {
+      signalStartupFailure(config, "the JVM is shutting down before the app finished starting");
+    }
   }
 
   /**
@@ -89,99 +244,892 @@ public class CfSignalResourceBundle<T extends Configuration> implements Configur
     return Optional.empty();
   }
 
+  /**
+   * The outcome of signalling CloudFormation. Completes once the signal has been sent, or it has been decided that no
+   * signal is needed. Completes exceptionally if signalling failed or did not finish within
+   * {@link CfSignalResourceConfig#getSignalTimeout()}.
+   * @return a future holding the {@link CfSignalResourceOutcome}
+   */
+  public CompletableFuture<CfSignalResourceOutcome> getSignalOutcome() {
+    return signalOutcome;
+  }
+
+  /**
+   * The outcome of signalling each of {@link CfSignalResourceConfig#getTargets()}, which {@link #getSignalOutcome()}
+   * combines. Empty until the bundle has run, and if signalling was skipped.
+   * @return a future holding the {@link CfSignalResourceOutcome} of each target, in the order they are configured
+   */
+  public Map<CfSignalResourceTarget, CompletableFuture<CfSignalResourceOutcome>> getTargetOutcomes() {
+    final List<SignalTarget> targets = signalTargets;
+    if (targets == null) {
+      return Collections.emptyMap();
+    }
+    final Map<CfSignalResourceTarget, CompletableFuture<CfSignalResourceOutcome>> targetOutcomes =
+      new LinkedHashMap<>();
+    for (SignalTarget target : targets) {
+      targetOutcomes.put(target.getResource(), target.getOutcome());
+    }
+    return Collections.unmodifiableMap(targetOutcomes);
+  }
+
+  /**
+   * If there is a {@link CdsArchive} for later instances, completing once it has been dumped and stored after
+   * signalling {@code SUCCESS}, straight away {@code false} otherwise.
+   */
+  @VisibleForTesting
+  /*package-private*/ CompletableFuture<Boolean> getCdsArchived() {
+    return cdsArchived;
+  }
+
+  /**
+   * When CloudFormation stops waiting for the signal, as read from the stack's template. Empty if CloudFormation isn't
+   * waiting for a signal, it couldn't be worked out, or {@link CfSignalResourceBudgetConfig#isEnabled()} is
+   * {@code false}.
+   * @return a future holding the deadline, completing shortly after the app starts
+   */
+  public CompletableFuture<Optional<Instant>> getSignalDeadline() {
+    return signalDeadline;
+  }
+
   @Override
   public void run(T config, Environment environment) {
+    timeline.mark("run");
+    environment.admin()
+               .addServlet("cf-signal-resource-timeline", new StartupTimelineServlet(timeline, this))
+               .addMapping(TIMELINE_PATH);
+    signalOutcome.whenComplete((outcome, throwable) -> {
+      timeline.mark(throwable == null ? "outcome." + outcome : "outcome.FAILED");
+      LOGGER.info("Startup timeline: {}", timeline.summary());
+    });
+
+    final SignalMetrics signalMetrics = new SignalMetrics(environment.metrics());
+    metrics = signalMetrics;
+    signalOutcome.whenComplete((outcome, throwable) -> {
+      if (throwable != null) {
+        signalMetrics.failures().inc();
+      }
+      else if (outcome == CfSignalResourceOutcome.SKIPPED || outcome == CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS) {
+        signalMetrics.skipped().inc();
+      }
+    });
 
     final CfSignalResourceConfig cfSignalResourceConfig =
       getConfiguration().orElseGet(() -> getCfResourceBundleConfig(config));
+    signalOutcome.whenComplete((outcome, throwable) -> archiveClasses(cfSignalResourceConfig.getCds(), outcome));
+    if (cfSignalResourceConfig.getMonitor().isEnabled()) {
+      monitorReadiness(cfSignalResourceConfig.getMonitor(), environment);
+    }
 
     if (cfSignalResourceConfig.isSkip()) {
       LOGGER.info("Skipping signalling because CfSignalResourceConfig configuration value 'skip == true'");
+      signalOutcome.complete(CfSignalResourceOutcome.SKIPPED);
+      signalDeadline.complete(Optional.empty());
       return;
     }
 
     final Optional<String> instanceId = getInstanceId(cfSignalResourceConfig);
     if (!instanceId.isPresent()) {
       LOGGER.warn("Unable to fetch EC2 Instance ID, assuming not running on AWS and thus not signalling");
+      signalOutcome.complete(CfSignalResourceOutcome.SKIPPED);
+      signalDeadline.complete(Optional.empty());
       return;
     }
 
+    prepareToSignal(cfSignalResourceConfig);
+    environment.lifecycle().manage(new SignalResourcesManager());
+
+    //another bundle, or the app itself, failing in run() stops the app before Jetty has even started
+    startingConfig = cfSignalResourceConfig;
+    startupFailureHook.arm();
+    signalOutcome.whenComplete((outcome, throwable) -> startupFailureHook.disarm());
+
+    //build the client, and warm its connection, by looking up each target's status while the rest of the app starts
+    final List<SignalTarget> targets = signalTargets(cfSignalResourceConfig);
+    final Optional<SignalJournal> journal = signalJournal(cfSignalResourceConfig);
+    for (SignalTarget target : targets) {
+      final Optional<ResourceSignalStatus> acknowledged =
+        journal.flatMap(j -> j.acknowledged(target.getResource(), instanceId.get()));
+      if (acknowledged.isPresent()) {
+        //the app was restarted after signalling, CloudFormation would reject the signal if it were sent again
+        LOGGER.info("{} was already signalled {} before the app restarted, not signalling it again",
+                    target, acknowledged.get());
+        target.getOutcome().complete(outcomeOf(acknowledged.get()));
+      }
+      else {
+        target.getStatusCache().prefetch(signalExecutor);
+      }
+    }
+    pendingLifecycleActions(cfSignalResourceConfig, instanceId.get());
+    //only the ASG's status, prefetched above unless it was already signalled, says how long there is to signal it
+    if (cfSignalResourceConfig.getBudget().isEnabled() && !targets.get(0).getOutcome().isDone()) {
+      //the ASG's policy sets the deadline
+      targets.get(0).getStatusCache().whenPrefetched().whenCompleteAsync((detail, throwable) -> {
+        final Optional<Instant> deadline = throwable == null
+                                           ? lookUpSignalDeadline(cfSignalResourceConfig, detail)
+                                           : Optional.empty();
+        signalDeadline.complete(deadline);
+        deadline.ifPresent(d -> failIfNotSignalledBefore(d, cfSignalResourceConfig, instanceId.get(), targets));
+      }, signalExecutor);
+    }
+    else {
+      signalDeadline.complete(Optional.empty());
+    }
+
+    //the app decided to fail before it restarted, there's no reason to make CloudFormation wait any longer to hear it
+    final boolean failurePending = journal.map(j -> targets.stream().anyMatch(
+      target -> j.pending(target.getResource(), instanceId.get()).equals(Optional.of(ResourceSignalStatus.FAILURE))))
+                                          .orElse(false);
+    if (failurePending) {
+      LOGGER.warn("Signalling FAILURE again as it may not have been sent before the app restarted");
+      signal(cfSignalResourceConfig, instanceId.get(), targets, false);
+    }
+
+    if (cfSignalResourceConfig.getHealthChecks().isEnabled()) {
+      addReadinessGate(new HealthCheckGate(environment.healthChecks(), cfSignalResourceConfig.getHealthChecks()));
+    }
+    if (cfSignalResourceConfig.getWarmup().isEnabled()) {
+      addReadinessGate(new WarmupGate(cfSignalResourceConfig.getWarmup()));
+    }
+
+    if (cfSignalResourceConfig.getReplay().isEnabled()) {
+      addReadinessGate(new ReplayGate(cfSignalResourceConfig.getReplay()));
+    }
+
+    if (cfSignalResourceConfig.getDrain().isEnabled()) {
+      drainFilter = new DrainFilter();
+      environment.servlets()
+                 .addFilter("cf-signal-resource-drain", drainFilter)
+                 .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
+    }
+    if (cfSignalResourceConfig.getReplay().isCapture()) {
+      captureRequests(cfSignalResourceConfig.getReplay(), instanceId.get(), environment);
+    }
+
     environment.lifecycle()
                .addLifeCycleListener(
                  new CfSignalResourceLifcycleListener(cfSignalResourceConfig,
-                                                      instanceId.get()));
+                                                      instanceId.get(),
+                                                      targets));
   }
 
-  private void sendSignal(CfSignalResourceConfig config, final String instanceId, boolean success) {
-    try {
-      AmazonCloudFormation client = cloudFormationSupplier.apply(config);
+  /**
+   * Add a task that must complete before {@code SUCCESS} is signalled, e.g. loading a cache or priming a connection
+   * pool. Each task runs on a fork-join pool as soon as it is added and the tasks it depends on have completed, so
+   * independent tasks run in parallel with each other and with the rest of startup. If any task fails, {@code FAILURE}
+   * is signalled as soon as the Jetty Server has started. Tasks run even when signalling is skipped.
+   * @param name unique name of the task, used in logs and {@link #getReadinessTaskTimings()}
+   * @param task the work to do
+   * @param dependsOn names of the tasks, which must already have been added, that have to complete before this one
+   *                  starts
+   * @throws IllegalArgumentException if the name has already been used or a dependency hasn't been added yet
+   */
+  public void addReadinessTask(final String name,
+                               final CfSignalResourceReadinessTask task,
+                               final String... dependsOn) {
+    readinessTasks.add(name, task, dependsOn);
+  }
 
-      DescribeStackResourceResult asgResource = client.describeStackResource(
-          new DescribeStackResourceRequest()
-              .withStackName(config.getStackName())
-              .withLogicalResourceId(config.getAsgResourceName()));
-      ResourceStatus status = ResourceStatus.fromValue(asgResource.getStackResourceDetail().getResourceStatus());
+  /**
+   * @return how long each readiness task that has run took, in the order they finished
+   */
+  public Map<String, Duration> getReadinessTaskTimings() {
+    return readinessTasks.getTimings();
+  }
 
-      if (status == CREATE_IN_PROGRESS || status == UPDATE_IN_PROGRESS) {
-        LOGGER.info("Signalling ready status to ASG '{}'",
-                    config.getAsgResourceName());
-        SignalResourceRequest request = new SignalResourceRequest();
-        request.setUniqueId(instanceId);
-        request.setLogicalResourceId(config.getAsgResourceName());
-        request.setStackName(config.getStackName());
-        request.setStatus(success? ResourceSignalStatus.SUCCESS : ResourceSignalStatus.FAILURE);
-        client.signalResource(request);
+  /**
+   * @param readinessGate must be ready before {@code SUCCESS} is signalled
+   */
+  @VisibleForTesting
+  /*package-private*/ void addReadinessGate(final ReadinessGate readinessGate) {
+    readinessGates.add(checkNotNull(readinessGate));
+  }
+
+  private CompletableFuture<Readiness> awaitReadiness(final LifeCycle event) {
+    final List<CompletableFuture<Readiness>> readiness = new ArrayList<>(readinessGates.size() + 1);
+    if (!readinessTasks.isEmpty()) {
+      readiness.add(marked("readinessTasks", readinessTasks.await()));
+    }
+    if (!readinessGates.isEmpty()) {
+      if (!(event instanceof Server)) {
+        return CompletableFuture.completedFuture(
+          Readiness.notReady("readiness can only be checked once the Jetty Server has started, not " + event));
+      }
+      for (ReadinessGate readinessGate : readinessGates) {
+        readiness.add(marked("readinessGate." + readinessGate.getClass().getSimpleName(),
+                             readinessGate.await((Server) event)));
+      }
+    }
+    return marked("readiness", Readiness.all(readiness));
+  }
+
+  /**
+   * @return {@code future}, marking {@code name} on the {@link #timeline} once it completes
+   */
+  private <R> CompletableFuture<R> marked(final String name, final CompletableFuture<R> future) {
+    future.whenComplete((result, throwable) -> timeline.mark(name));
+    return future;
+  }
+
+  private Optional<Instant> lookUpSignalDeadline(final CfSignalResourceConfig config,
+                                                 final StackResourceDetail detail) {
+    try {
+      final ResourceStatus status = ResourceStatus.fromValue(detail.getResourceStatus());
+      if (status != CREATE_IN_PROGRESS && status != UPDATE_IN_PROGRESS || detail.getLastUpdatedTimestamp() == null) {
+        return Optional.empty();
+      }
+
+      final String templateBody = retrier.call("GetTemplate", () ->
+        cloudFormationSupplier.apply(config)
+                              .getTemplate(new GetTemplateRequest().withStackName(config.getStackName()))
+                              .getTemplateBody());
+      final Optional<Instant> deadline =
+        SignalDeadline.of(templateBody, config.getAsgResourceName(), detail,
+                          Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()));
+      if (deadline.isPresent()) {
+        LOGGER.info("CloudFormation waits for ASG '{}' to be signalled until {}", config.getAsgResourceName(),
+                    deadline.get());
       }
       else {
-        LOGGER.info("No CloudFormation update in progress on ASG '{}'. Assuming an auto-scaling event is in progress, and thus not signalling.",
-                     config.getAsgResourceName());
+        LOGGER.info("Unable to tell from the template how long CloudFormation waits for ASG '{}' to be signalled",
+                    config.getAsgResourceName());
       }
+      return deadline;
     }
     catch (Exception e) {
-      LOGGER.error("There was a problem signaling ASG `" + config.getAsgResourceName()
-                   + " in CloudFormation Stack '" + config.getStackName() + "'", e);
+      LOGGER.warn("Unable to look up how long CloudFormation waits for the signal, check 'cloudformation:GetTemplate'"
+                  + " is allowed: {}", e.toString());
+      return Optional.empty();
     }
-    finally {
-      AmazonCloudFormation internalClient = internalCloudFormation.get();
-      if (internalClient != null) {
+  }
+
+  /**
+   * Signal {@code FAILURE} if no signal has been sent by {@link CfSignalResourceBudgetConfig#getSafetyMargin()} before
+   * the deadline, as {@code SUCCESS} would most likely arrive too late and CloudFormation can start rolling back
+   * sooner.
+   */
+  private void failIfNotSignalledBefore(final Instant deadline,
+                                        final CfSignalResourceConfig config,
+                                        final String instanceId,
+                                        final List<SignalTarget> targets) {
+    final Duration safetyMargin = config.getBudget().getSafetyMargin();
+    final long delayMillis = ChronoUnit.MILLIS.between(Instant.now(), deadline) - safetyMargin.toMilliseconds();
+    final ScheduledFuture<?> giveUp = signalExecutor.schedule(() -> {
+      if (!signalOutcome.isDone()) {
+        LOGGER.error("Not ready {} before CloudFormation stops waiting at {}, so signalling failure",
+                     safetyMargin, deadline);
+        signal(config, instanceId, targets, false);
+      }
+    }, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+    signalOutcome.whenComplete((outcome, throwable) -> giveUp.cancel(false));
+  }
+
+  private synchronized void prepareToSignal(final CfSignalResourceConfig config) {
+    if (retrier == null) {
+      retrier = new CloudFormationRetrier(config.getRetry(), metrics);
+    }
+    if (signalExecutor == null || signalExecutor.isShutdown()) {
+      //looking up the pending lifecycle actions, then completing them, gets a thread of its own
+      signalExecutor = newSignalExecutor(config.getTargets().size() + (config.getLifecycleHook().isEnabled() ? 1 : 0));
+    }
+  }
+
+  private synchronized List<SignalTarget> signalTargets(final CfSignalResourceConfig config) {
+    if (signalTargets == null) {
+      final CfSignalResourceStatusSnapshotConfig snapshotConfig = config.getStatusSnapshot();
+      final StatusSnapshot snapshot =
+        snapshotConfig.isEnabled() ? StatusSnapshot.read(Paths.get(snapshotConfig.getPath()), snapshotConfig.getMaxAge())
+                                   : StatusSnapshot.empty();
+      final List<SignalTarget> targets = new ArrayList<>();
+      for (CfSignalResourceTarget resource : config.getTargets()) {
+        targets.add(new SignalTarget(resource,
+                                     new StackResourceStatusCache(() -> describeResource(config, resource),
+                                                                  config.getResourceStatusMaxAge(),
+                                                                  () -> snapshot.lookUp(resource))));
+      }
+      signalTargets = Collections.unmodifiableList(targets);
+    }
+    return signalTargets;
+  }
+
+  private void captureRequests(final CfSignalResourceReplayConfig config,
+                               final String instanceId,
+                               final Environment environment) {
+    final Path path = RequestRecording.instancePath(Paths.get(config.getPath()), instanceId);
+    final RequestRecording recording;
+    try {
+      recording = RequestRecording.openForAppend(path, config.getMaxSize().toBytes());
+    }
+    catch (IOException | IllegalArgumentException e) {
+      LOGGER.warn("Unable to open the request recording at " + path + ", not capturing requests", e);
+      return;
+    }
+    environment.servlets()
+               .addFilter("cf-signal-resource-capture",
+                          new CaptureFilter(recording,
+                                            config.getSampleRate(),
+                                            config.getMaxBodySize().toBytes(),
+                                            config.getHeaders(),
+                                            config.getMethods(),
+                                            config.getExcludedPaths()))
+               .addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, "/*");
+  }
+
+  /**
+   * Serve whether the app is ready to take traffic: not until it has signalled, or found it needn't, and from then on
+   * for as long as the {@link ReadinessMonitor} finds it fit.
+   */
+  private void monitorReadiness(final CfSignalResourceMonitorConfig config, final Environment environment) {
+    final ReadinessMonitor monitor = new ReadinessMonitor(environment.metrics(), config, signalOutcome);
+    environment.lifecycle().manage(monitor);
+    environment.admin()
+               .addServlet("cf-signal-resource-readiness", new ReadinessServlet(() -> {
+                 if (!signalOutcome.isDone()) {
+                   return Readiness.notReady("starting");
+                 }
+                 if (signalOutcome.isCompletedExceptionally()) {
+                   //whether CloudFormation got the signal isn't known, so the instance may well be about to be replaced
+                   return Readiness.notReady("signalling failed, "
+                                             + signalOutcome.handle((result, throwable) -> throwable.getMessage())
+                                                            .join());
+                 }
+                 final CfSignalResourceOutcome outcome = signalOutcome.join();
+                 if (outcome == CfSignalResourceOutcome.SIGNALLED_FAILURE
+                     || outcome == CfSignalResourceOutcome.LIFECYCLE_ACTION_ABANDONED) {
+                   return Readiness.notReady("startup failed, " + outcome);
+                 }
+                 return monitor.getReadiness();
+               }))
+               .addMapping(READINESS_PATH);
+  }
+
+  /**
+   * Dump, and store, a {@link CdsArchive} of the classes loaded on the way to signalling {@code SUCCESS}. Dumping
+   * pauses the app for a moment, which is only worth it once the signal has gone.
+   */
+  private void archiveClasses(final CfSignalResourceCdsConfig config, final CfSignalResourceOutcome outcome) {
+    if (!config.isEnabled() || outcome != CfSignalResourceOutcome.SIGNALLED_SUCCESS) {
+      cdsArchived.complete(false);
+      return;
+    }
+    try {
+      signalExecutor.execute(() -> {
+        final boolean archived = CdsArchive.of(config).archive();
+        if (archived) {
+          timeline.mark("cds.archived");
+        }
+        cdsArchived.complete(archived);
+      });
+    }
+    catch (RejectedExecutionException e) {
+      //the app is already stopping
+      cdsArchived.complete(false);
+    }
+  }
+
+  /**
+   * Read back, once, the {@link SignalJournal} if {@link CfSignalResourceJournalConfig#isEnabled()}.
+   */
+  private synchronized Optional<SignalJournal> signalJournal(final CfSignalResourceConfig config) {
+    if (signalJournal == null) {
+      signalJournal = config.getJournal().isEnabled()
+                      ? Optional.of(SignalJournal.open(Paths.get(config.getJournal().getPath())))
+                      : Optional.empty();
+    }
+    return signalJournal;
+  }
+
+  /**
+   * Look up, once, the launch lifecycle actions holding this instance back from traffic, and record heartbeats for them
+   * until the outcome is known, so a long startup doesn't run into the hook's heartbeat timeout.
+   * @return the pending actions, empty if there are none, they couldn't be looked up, or
+   * {@link CfSignalResourceLifecycleHookConfig#isEnabled()} is {@code false}
+   */
+  private synchronized CompletableFuture<List<LifecycleAction>> pendingLifecycleActions(
+    final CfSignalResourceConfig config,
+    final String instanceId) {
+    if (pendingLifecycleActions == null) {
+      if (config.getLifecycleHook().isEnabled()) {
+        final LifecycleHooks hooks = lifecycleHooks(config);
+        pendingLifecycleActions = CompletableFuture.supplyAsync(() -> {
+          try {
+            final List<LifecycleAction> actions =
+              ownLifecycleActions(config, retrier.call("DescribeLifecycleHooks",
+                                                       () -> hooks.findPendingActions(instanceId,
+                                                                                      LifecycleHooks.LAUNCHING)));
+            for (LifecycleAction action : actions) {
+              LOGGER.info("Instance '{}' is waiting on {}", instanceId, action);
+            }
+            return actions;
+          }
+          catch (Exception e) {
+            LOGGER.warn("Unable to look up the pending lifecycle actions, check 'autoscaling:DescribeAutoScalingInstances'"
+                        + " and 'autoscaling:DescribeLifecycleHooks' are allowed: {}", e.toString());
+            return Collections.<LifecycleAction>emptyList();
+          }
+        }, signalExecutor);
+        pendingLifecycleActions.thenAccept(actions -> recordHeartbeats(config, hooks, actions, signalOutcome));
+      }
+      else {
+        pendingLifecycleActions = CompletableFuture.completedFuture(Collections.emptyList());
+      }
+    }
+    return pendingLifecycleActions;
+  }
+
+  /**
+   * @return the actions of the hooks listed in {@link CfSignalResourceLifecycleHookConfig#getLifecycleHookNames()},
+   * those of other hooks, e.g. of other agents gating the instance, are left alone
+   */
+  private static List<LifecycleAction> ownLifecycleActions(final CfSignalResourceConfig config,
+                                                           final List<LifecycleAction> actions) {
+    final List<String> names = config.getLifecycleHook().getLifecycleHookNames();
+    final List<LifecycleAction> own = new ArrayList<>();
+    for (LifecycleAction action : actions) {
+      if (names.contains(action.getLifecycleHookName())) {
+        own.add(action);
+      }
+      else {
+        LOGGER.info("Leaving {} alone as its hook isn't listed in 'lifecycleHookNames'", action);
+      }
+    }
+    return own;
+  }
+
+  private synchronized LifecycleHooks lifecycleHooks(final CfSignalResourceConfig config) {
+    if (lifecycleHooks == null) {
+      lifecycleHooks = lifecycleHooksFactory.apply(config);
+    }
+    return lifecycleHooks;
+  }
+
+  /**
+   * Record heartbeats for the lifecycle actions, every {@link CfSignalResourceLifecycleHookConfig#getHeartbeatInterval()}
+   * but at least twice per heartbeat timeout, until {@code until} completes.
+   */
+  private void recordHeartbeats(final CfSignalResourceConfig config,
+                                final LifecycleHooks hooks,
+                                final List<LifecycleAction> actions,
+                                final CompletableFuture<?> until) {
+    for (LifecycleAction action : actions) {
+      final long intervalMillis = Math.max(1, Math.min(config.getLifecycleHook().getHeartbeatInterval().toMilliseconds(),
+                                                       action.getHeartbeatTimeout().toMilliseconds() / 2));
+      final ScheduledFuture<?> heartbeats = signalExecutor.scheduleWithFixedDelay(() -> {
         try {
-          internalClient.shutdown();
+          retrier.call("RecordLifecycleActionHeartbeat", () -> {
+            hooks.recordHeartbeat(action);
+            return null;
+          });
+          LOGGER.debug("Recorded a heartbeat for {}", action);
         }
         catch (Exception e) {
-          //an internal client shouldn't affect anyone else
-          LOGGER.debug("problem closing the internal AmazonCloudFormation client", e);
+          //the next heartbeat may still be in time
+          LOGGER.warn("Unable to record a heartbeat for {}: {}", action, e.toString());
+        }
+      }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+      until.whenComplete((outcome, throwable) -> heartbeats.cancel(false));
+    }
+  }
+
+  /**
+   * Ask the EC2 instance metadata service, every {@link CfSignalResourceDrainConfig#getPollInterval()}, whether the ASG
+   * is terminating the instance, and drain the app's requests once it is.
+   */
+  private void watchForTermination(final CfSignalResourceConfig config, final String instanceId) {
+    final long pollMillis = config.getDrain().getPollInterval().toMilliseconds();
+    terminationWatch = signalExecutor.scheduleWithFixedDelay(() -> {
+      final Optional<String> targetLifecycleState;
+      try {
+        targetLifecycleState = ec2MetadataResolver.get(TARGET_LIFECYCLE_STATE_PATH);
+      }
+      catch (IOException e) {
+        LOGGER.debug("Unable to look up the instance's target lifecycle state", e);
+        return;
+      }
+      if (targetLifecycleState.filter("Terminated"::equals).isPresent()) {
+        stopWatchingForTermination();
+        drainForTermination(config, instanceId);
+      }
+    }, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void stopWatchingForTermination() {
+    final ScheduledFuture<?> watch = terminationWatch;
+    if (watch != null) {
+      watch.cancel(false);
+    }
+  }
+
+  /**
+   * Drain the app's in-flight requests, for up to {@link CfSignalResourceDrainConfig#getTimeout()}, recording heartbeats
+   * for the terminate lifecycle actions meanwhile, then complete them so the ASG carries on terminating the instance.
+   */
+  @VisibleForTesting
+  /*package-private*/ void drainForTermination(final CfSignalResourceConfig config, final String instanceId) {
+    LOGGER.info("The ASG is terminating instance '{}', draining its requests", instanceId);
+    drainFilter.startDraining();
+
+    final LifecycleHooks hooks = lifecycleHooks(config);
+    List<LifecycleAction> actions;
+    try {
+      actions = ownLifecycleActions(config, retrier.call("DescribeLifecycleHooks",
+                                                         () -> hooks.findPendingActions(instanceId,
+                                                                                        LifecycleHooks.TERMINATING)));
+    }
+    catch (Exception e) {
+      LOGGER.warn("Unable to look up the pending lifecycle actions, check 'autoscaling:DescribeAutoScalingInstances'"
+                  + " and 'autoscaling:DescribeLifecycleHooks' are allowed: {}", e.toString());
+      actions = Collections.emptyList();
+    }
+
+    final CompletableFuture<Void> drained = new CompletableFuture<>();
+    recordHeartbeats(config, hooks, actions, drained);
+    final Duration timeout = config.getDrain().getTimeout();
+    try {
+      if (drainFilter.awaitDrained(timeout.toMilliseconds(), TimeUnit.MILLISECONDS)) {
+        LOGGER.info("Drained the app's requests");
+      }
+      else {
+        LOGGER.warn("{} requests still in flight after {}, letting the instance terminate anyway",
+                    drainFilter.getInFlight(), timeout);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      drained.complete(null);
+    }
+
+    for (LifecycleAction action : actions) {
+      try {
+        retrier.call("CompleteLifecycleAction", () -> {
+          hooks.complete(action, true);
+          return null;
+        });
+        LOGGER.info("Completed {} with CONTINUE", action);
+      }
+      catch (Exception e) {
+        LOGGER.error("There was a problem completing " + action, e);
+      }
+    }
+  }
+
+  /**
+   * Complete the pending launch lifecycle actions, letting the instance into service if {@code success}, otherwise
+   * having the ASG terminate it.
+   * @return the outcome, empty if no action was pending
+   */
+  private CompletableFuture<Optional<CfSignalResourceOutcome>> completeLifecycleActions(
+    final CfSignalResourceConfig config,
+    final String instanceId,
+    final boolean success) {
+    final CompletableFuture<Optional<CfSignalResourceOutcome>> outcome = new CompletableFuture<>();
+    pendingLifecycleActions(config, instanceId).thenAcceptAsync(actions -> {
+      try {
+        for (LifecycleAction action : actions) {
+          LOGGER.info("Completing {} with {}", action, success ? "CONTINUE" : "ABANDON");
+          retrier.call("CompleteLifecycleAction", () -> {
+            lifecycleHooks.complete(action, success);
+            return null;
+          });
+        }
+        outcome.complete(actions.isEmpty() ? Optional.empty()
+                                           : Optional.of(success ? CfSignalResourceOutcome.LIFECYCLE_ACTION_CONTINUED
+                                                                 : CfSignalResourceOutcome.LIFECYCLE_ACTION_ABANDONED));
+      }
+      catch (Exception e) {
+        //a timed out completion has already been reported
+        if (outcome.completeExceptionally(e)) {
+          LOGGER.error("There was a problem completing the lifecycle action of instance '" + instanceId + "'", e);
         }
       }
+    }, signalExecutor);
+    return outcome;
+  }
+
+  /**
+   * Signal {@code FAILURE} because the app failed before its Jetty Server could start, waiting up to
+   * {@link CfSignalResourceConfig#getSignalTimeout()} for the signal to be sent. Does nothing if a signal has already
+   * been sent or is being sent.
+   */
+  private void signalStartupFailure(final CfSignalResourceConfig config, final String reason) {
+    if (signalOutcome.isDone() || config.isSkip()) {
+      return;
+    }
+    final Optional<String> instanceId = getInstanceId(config);
+    if (!instanceId.isPresent()) {
+      return;
+    }
+
+    LOGGER.error("Signalling failure straight away because {}", reason);
+    prepareToSignal(config);
+    try {
+      signal(config, instanceId.get(), signalTargets(config), false)
+        .get(config.getSignalTimeout().toMilliseconds(), TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException | TimeoutException e) {
+      //already logged when signalling failed
     }
   }
 
-  private CfSignalResourceConfig getCfResourceBundleConfig(final T config) {
-    for (Method method : config.getClass().getMethods()) {
-      if (CfSignalResourceConfig.class.equals(method.getReturnType())
-        && method.getParameterCount() == 0) {
+  /**
+   * Signal every target, and complete any pending launch lifecycle action, at once on the {@link #signalExecutor},
+   * bounded by {@link CfSignalResourceConfig#getSignalTimeout()} and the {@link #getSignalDeadline()}, so signalling
+   * takes as long as the slowest target rather than all of them added up.
+   * Only the first call actually signals, so CloudFormation never sees two signals from one instance; the outcome of
+   * that signal is returned to every caller.
+   */
+  private CompletableFuture<CfSignalResourceOutcome> signal(final CfSignalResourceConfig config,
+                                                             final String instanceId,
+                                                             final List<SignalTarget> targets,
+                                                             final boolean success) {
+    if (!signalling.compareAndSet(false, true)) {
+      return signalOutcome;
+    }
+    timeline.mark(success ? "signal.SUCCESS" : "signal.FAILURE");
+
+    final List<Future<?>> tasks = new ArrayList<>(targets.size());
+    for (SignalTarget target : targets) {
+      if (target.getOutcome().isDone()) {
+        //signalled before the app restarted
+        tasks.add(CompletableFuture.completedFuture(null));
+        continue;
+      }
+      tasks.add(signalExecutor.submit(() -> {
         try {
-          final Object cfResourceBundleConfig = method.invoke(config);
-          if (Objects.isNull(cfResourceBundleConfig)) {
-            throw new IllegalStateException("when called, the method exposing 'CfSignalResourceConfig' in config returned a null value");
+          final CfSignalResourceOutcome outcome = sendSignal(config, target, instanceId, success);
+          //completing the outcome may log the timeline's summary, so mark it first
+          if (outcome == CfSignalResourceOutcome.SIGNALLED_SUCCESS
+              || outcome == CfSignalResourceOutcome.SIGNALLED_FAILURE) {
+            timeline.mark("signalled." + target.getResource().getLogicalResourceId());
           }
-          return (CfSignalResourceConfig) cfResourceBundleConfig;
+          target.getOutcome().complete(outcome);
         }
-        catch (IllegalAccessException e) {
-          throw new RuntimeException("method exposing 'CfSignalResourceConfig' must be accessible", e);
+        catch (Exception e) {
+          //a timed out signal has already been reported
+          if (target.getOutcome().completeExceptionally(e)) {
+            LOGGER.error("There was a problem signaling " + target, e);
+          }
         }
-        catch (InvocationTargetException e) {
-          Throwables.propagate(e);
+      }));
+    }
+    final CompletableFuture<Optional<CfSignalResourceOutcome>> lifecycleOutcome =
+      completeLifecycleActions(config, instanceId, success);
+    //a scale-out is reported by its lifecycle action, as CloudFormation isn't waiting on it
+    SignalTarget.combinedOutcome(targets).thenCombine(lifecycleOutcome, (outcome, lifecycle) ->
+      outcome == CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS ? lifecycle.orElse(outcome) : outcome
+    ).whenComplete((outcome, throwable) -> {
+      if (throwable == null) {
+        signalOutcome.complete(outcome);
+      }
+      else {
+        signalOutcome.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+                                            ? throwable.getCause()
+                                            : throwable);
+      }
+    });
+
+    //a signal arriving after CloudFormation has stopped waiting is no use
+    final long timeoutMillis = signalDeadline.getNow(Optional.empty())
+      .map(deadline -> Math.max(0, ChronoUnit.MILLIS.between(Instant.now(), deadline)))
+      .filter(untilDeadline -> untilDeadline < config.getSignalTimeout().toMilliseconds())
+      .orElse(config.getSignalTimeout().toMilliseconds());
+    final ScheduledFuture<?> timeout = signalExecutor.schedule(() -> {
+      final TimeoutException timedOut =
+        new TimeoutException("signalling did not complete within " + timeoutMillis + " milliseconds");
+      for (int i = 0; i < targets.size(); i++) {
+        if (targets.get(i).getOutcome().completeExceptionally(timedOut)) {
+          LOGGER.error("Gave up signalling {} after {} milliseconds", targets.get(i), timeoutMillis);
+          tasks.get(i).cancel(true);
+        }
+      }
+      if (lifecycleOutcome.completeExceptionally(timedOut)) {
+        LOGGER.error("Gave up completing the lifecycle action after {} milliseconds", timeoutMillis);
+      }
+    }, timeoutMillis, TimeUnit.MILLISECONDS);
+    signalOutcome.whenComplete((outcome, throwable) -> timeout.cancel(false));
+
+    return signalOutcome;
+  }
+
+  private CfSignalResourceOutcome sendSignal(CfSignalResourceConfig config,
+                                             final SignalTarget target,
+                                             final String instanceId,
+                                             boolean success) throws Exception {
+    ResourceStatus status = ResourceStatus.fromValue(target.getStatusCache().get().getResourceStatus());
+
+    if (status == CREATE_IN_PROGRESS || status == UPDATE_IN_PROGRESS) {
+      LOGGER.info("Signalling ready status to {}", target);
+      SignalResourceRequest request = newSignalResourceRequest(target.getResource(), instanceId, success);
+      final ResourceSignalStatus signalStatus = ResourceSignalStatus.fromValue(request.getStatus());
+      final Optional<SignalJournal> journal = signalJournal(config);
+      final boolean resumed = journal.flatMap(j -> j.pending(target.getResource(), instanceId)).isPresent();
+      journal.ifPresent(j -> j.intend(target.getResource(), instanceId, signalStatus));
+      final AtomicInteger attempts = new AtomicInteger();
+      try {
+        metrics.signalResource().time(() -> retrier.call("SignalResource", () -> {
+          attempts.incrementAndGet();
+          cloudFormationSupplier.apply(config).signalResource(request);
+          return null;
+        }));
+      }
+      catch (AmazonServiceException e) {
+        if (!isAlreadySignalled(e) && "ValidationError".equals(e.getErrorCode())
+            && target.getStatusCache().distrustSnapshot()) {
+          //the snapshot said the resource was waiting for signals, CloudFormation says otherwise, so ask it
+          LOGGER.warn("{} rejected the signal sent on the status snapshot's word, checking its status instead",
+                      target, e);
+          return sendSignal(config, target, instanceId, success);
+        }
+        //the signal sent by an earlier attempt, or before the app restarted, did get through, only its acknowledgement
+        //was lost
+        if (!isAlreadySignalled(e) || !resumed && attempts.get() <= 1) {
+          throw e;
         }
+        LOGGER.info("{} already had the signal sent by {}", target,
+                    attempts.get() > 1 ? "an earlier attempt" : "the app before it restarted");
       }
+      journal.ifPresent(j -> j.acknowledge(target.getResource(), instanceId, signalStatus));
+      metrics.signalSent();
+      return outcomeOf(signalStatus);
+    }
+    else {
+      LOGGER.info("No CloudFormation update in progress on {}. Assuming an auto-scaling event is in progress, and thus not signalling.",
+                  target);
+      return CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS;
+    }
+  }
+
+  private static CfSignalResourceOutcome outcomeOf(final ResourceSignalStatus signalStatus) {
+    return signalStatus == ResourceSignalStatus.SUCCESS ? CfSignalResourceOutcome.SIGNALLED_SUCCESS
+                                                        : CfSignalResourceOutcome.SIGNALLED_FAILURE;
+  }
+
+  /**
+   * CloudFormation rejects a second signal from the same instance with a {@code ValidationError}, e.g. "Signal with ID
+   * i-0123 for resource autoScalingGroup already exists."
+   */
+  private static boolean isAlreadySignalled(final AmazonServiceException e) {
+    return "ValidationError".equals(e.getErrorCode())
+           && e.getErrorMessage() != null
+           && e.getErrorMessage().contains("already exists");
+  }
+
+  @VisibleForTesting
+  /*package-private*/ static SignalResourceRequest newSignalResourceRequest(final CfSignalResourceConfig config,
+                                                                         final String instanceId,
+                                                                         final boolean success) {
+    return newSignalResourceRequest(new CfSignalResourceTarget(config.getStackName(), config.getAsgResourceName()),
+                                    instanceId,
+                                    success);
+  }
+
+  private static SignalResourceRequest newSignalResourceRequest(final CfSignalResourceTarget target,
+                                                                final String instanceId,
+                                                                final boolean success) {
+    SignalResourceRequest request = new SignalResourceRequest();
+    request.setUniqueId(instanceId);
+    request.setLogicalResourceId(target.getLogicalResourceId());
+    request.setStackName(target.getStackName());
+    request.setStatus(success? ResourceSignalStatus.SUCCESS : ResourceSignalStatus.FAILURE);
+    return request;
+  }
+
+  @VisibleForTesting
+  /*package-private*/ static AmazonCloudFormation newCloudFormationClient(
+    final CfSignalResourceConfig cfSignalResourceConfig,
+    final Ec2MetadataResolver ec2MetadataResolver) {
+    final String awsRegion = getAwsRegion(cfSignalResourceConfig, ec2MetadataResolver);
+
+    if (cfSignalResourceConfig.isLightweightClient()) {
+      return new LightweightCloudFormation(awsRegion, new LightweightCredentialsProvider(ec2MetadataResolver));
     }
-    throw new IllegalStateException("config 'CfSignalResourceConfig' must either be provided by overriding 'getConfiguration()' or via"
-                                      + " the Application Configuration '" + config.getClass() + "'");
+
+    //keep the connection warmed up by the status prefetch alive for as long as the prefetched status is used, and
+    //leave retrying to the CloudFormationRetrier so every attempt is rate limited and counted
+    ClientConfiguration clientConfiguration = new ClientConfiguration()
+      .withConnectionMaxIdleMillis(Math.max(ClientConfiguration.DEFAULT_CONNECTION_MAX_IDLE_MILLIS,
+                                            cfSignalResourceConfig.getResourceStatusMaxAge().toMilliseconds()))
+      .withRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY);
+    AmazonCloudFormationClient amazonCloudFormationClient = new AmazonCloudFormationClient(clientConfiguration);
+    amazonCloudFormationClient.setRegion(Region.getRegion(Regions.fromName(awsRegion)));
+
+    return amazonCloudFormationClient;
+  }
+
+  private static LifecycleHooks newLifecycleHooks(final CfSignalResourceConfig cfSignalResourceConfig,
+                                                  final Ec2MetadataResolver ec2MetadataResolver) {
+    return new LightweightAutoScaling(getAwsRegion(cfSignalResourceConfig, ec2MetadataResolver),
+                                      cfSignalResourceConfig.isLightweightClient()
+                                      ? new LightweightCredentialsProvider(ec2MetadataResolver)
+                                      : new DefaultAWSCredentialsProviderChain());
+  }
+
+  private static String getAwsRegion(final CfSignalResourceConfig cfSignalResourceConfig,
+                                     final Ec2MetadataResolver ec2MetadataResolver) {
+    if (!Strings.isNullOrEmpty(cfSignalResourceConfig.getAwsRegion())) {
+      return cfSignalResourceConfig.getAwsRegion();
+    }
+    return ec2MetadataResolver.resolve()
+                              .flatMap(Ec2MetadataResolver.Ec2Identity::getRegion)
+                              .orElseThrow(() -> new IllegalStateException(
+                                "unable to look up the EC2 Instance Region, set 'awsRegion' in CfSignalResourceConfig"));
+  }
+
+  private StackResourceDetail describeResource(final CfSignalResourceConfig config,
+                                               final CfSignalResourceTarget resource) throws Exception {
+    DescribeStackResourceResult result = metrics.describeStackResource().time(() ->
+      retrier.call("DescribeStackResource", () ->
+        cloudFormationSupplier.apply(config).describeStackResource(
+          new DescribeStackResourceRequest()
+              .withStackName(resource.getStackName())
+              .withLogicalResourceId(resource.getLogicalResourceId()))));
+    return result.getStackResourceDetail();
+  }
+
+  private static ScheduledExecutorService newSignalExecutor(final int targets) {
+    //prefetching each target's status, then looking up the signal deadline, signalling each target, and enforcing
+    //the signal timeout each get their own thread
+    ScheduledThreadPoolExecutor executor =
+      new ScheduledThreadPoolExecutor(targets + 2, new ThreadFactoryBuilder().setDaemon(true)
+                                                                   .setNameFormat("cf-signal-resource-%d")
+                                                                   .build());
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
+  @VisibleForTesting
+  /*package-private*/ CfSignalResourceConfig getCfResourceBundleConfig(final T config) {
+    return CfSignalResourceConfigAccessor.get(config).orElseThrow(() -> new IllegalStateException(
+      "config 'CfSignalResourceConfig' must either be provided by overriding 'getConfiguration()' or via"
+      + " the Application Configuration '" + config.getClass() + "'"));
   }
 
   private Optional<String> getInstanceId(CfSignalResourceConfig cfSignalResourceConfig) {
-    return Optional.ofNullable(
-      Strings.isNullOrEmpty(cfSignalResourceConfig.getEc2InstanceId()) ?
-      EC2MetadataUtils.getInstanceId() : cfSignalResourceConfig.getEc2InstanceId());
+    if (!Strings.isNullOrEmpty(cfSignalResourceConfig.getEc2InstanceId())) {
+      return Optional.of(cfSignalResourceConfig.getEc2InstanceId());
+    }
+    //looks up the region at the same time, ready for when the client is built
+    final Timer.Context metadataLookup = metrics.metadataLookup().time();
+    try {
+      return ec2MetadataResolver.resolve().map(Ec2MetadataResolver.Ec2Identity::getInstanceId);
+    }
+    finally {
+      metadataLookup.stop();
+    }
+  }
+
+  @VisibleForTesting
+  /*package-private*/ ShutdownHook getStartupFailureHook() {
+    return startupFailureHook;
+  }
+
+  @VisibleForTesting
+  /*package-private*/ SignalMetrics getMetrics() {
+    return metrics;
   }
 
   @VisibleForTesting
@@ -194,34 +1142,66 @@ public class CfSignalResourceBundle<T extends Configuration> implements Configur
     return cloudFormationSupplier.apply(config);
   }
 
+  @VisibleForTesting
+  class SignalResourcesManager implements Managed {
+
+    @Override
+    public void start() {
+      //started in run()
+    }
+
+    @Override
+    public void stop() {
+      signalExecutor.shutdownNow();
+
+      AmazonCloudFormation internalClient = internalCloudFormation.get();
+      if (internalClient != null) {
+        try {
+          internalClient.shutdown();
+        }
+        catch (Exception e) {
+          //an internal client shouldn't affect anyone else
+          LOGGER.debug("problem closing the internal AmazonCloudFormation client", e);
+        }
+      }
+    }
+  }
+
   @VisibleForTesting
   class CfSignalResourceLifcycleListener implements LifeCycle.Listener {
 
     private final CfSignalResourceConfig cfSignalResourceConfig;
     private final String instanceId;
+    private final List<SignalTarget> targets;
 
-    CfSignalResourceLifcycleListener(final CfSignalResourceConfig cfSignalResourceConfig, final String instanceId) {
+    CfSignalResourceLifcycleListener(final CfSignalResourceConfig cfSignalResourceConfig,
+                                     final String instanceId,
+                                     final List<SignalTarget> targets) {
       this.cfSignalResourceConfig = cfSignalResourceConfig;
       this.instanceId = instanceId;
+      this.targets = targets;
     }
 
     @Override
     public void lifeCycleStarting(final LifeCycle event) {
-      //dont care
+      timeline.mark("jetty.starting");
     }
 
     @Override
     public void lifeCycleFailure(final LifeCycle event, final Throwable cause) {
+      timeline.mark("jetty.failure");
       //because this method can be called if there is a failure on shutdown
       //only attempt to signal failure if the failure is on startup
       if (!(event.isStopping() || event.isStopped())) {
-        sendSignal(cfSignalResourceConfig, instanceId, false);
+        awaitIfSynchronous(signal(cfSignalResourceConfig, instanceId, targets, false));
       }
     }
 
     @Override
     public void lifeCycleStopping(final LifeCycle event) {
-      //dont care
+      timeline.mark("jetty.stopping");
+      //the app is already on its way down
+      stopWatchingForTermination();
     }
 
     @Override
@@ -231,7 +1211,30 @@ public class CfSignalResourceBundle<T extends Configuration> implements Configur
 
     @Override
     public void lifeCycleStarted(final LifeCycle event) {
-      sendSignal(cfSignalResourceConfig, instanceId, true);
+      timeline.mark("jetty.started");
+      if (drainFilter != null) {
+        watchForTermination(cfSignalResourceConfig, instanceId);
+      }
+      awaitIfSynchronous(awaitReadiness(event).thenCompose(readiness -> {
+        readiness.getReason()
+                 .ifPresent(reason -> LOGGER.error("Not ready to take traffic, so signalling failure: {}", reason));
+        return signal(cfSignalResourceConfig, instanceId, targets, readiness.isReady());
+      }));
+    }
+
+    private void awaitIfSynchronous(final CompletableFuture<CfSignalResourceOutcome> outcome) {
+      if (cfSignalResourceConfig.isAsyncSignal()) {
+        return;
+      }
+      try {
+        outcome.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      catch (ExecutionException e) {
+        //already logged when signalling failed
+      }
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package net.eldeen.dropwizard;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.validator.constraints.NotEmpty;
+
+/**
+ * <p>
+ * config for dumping an AppCDS archive of the classes the app loaded once it has signalled {@code SUCCESS}, so later
+ * instances of the same artifact, started with the options {@link CdsLauncher} prints, boot without loading them again.
+ * Dumping needs Java 17 or later, started with {@code -XX:+RecordDynamicDumpInfo}.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If an archive should be dumped, and stored, once the app has signalled {@code SUCCESS} and there isn't one
+ *     already.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code archivePath}</td>
+ *     <td>{@code /var/tmp/cf-signal-resource.jsa}</td>
+ *     <td>Where the JVM reads the archive from. An archive only suits the artifact and JDK that dumped it, so name it
+ *     after the app's version.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code storeDirectory}</td>
+ *     <td>none</td>
+ *     <td>A directory shared by the instances, e.g. an EFS mount or one synced with S3, the archive is copied to once
+ *     dumped and fetched from by {@link CdsLauncher}. Without it the archive only serves the instance that dumped
+ *     it.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceCdsConfig {
+
+  private boolean enabled = false;
+
+  @NotEmpty
+  private String archivePath = "/var/tmp/cf-signal-resource.jsa";
+
+  private String storeDirectory;
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public String getArchivePath() {
+    return archivePath;
+  }
+
+  @JsonProperty
+  public void setArchivePath(final String archivePath) {
+    this.archivePath = archivePath;
+  }
+
+  @JsonProperty
+  public String getStoreDirectory() {
+    return storeDirectory;
+  }
+
+  @JsonProperty
+  public void setStoreDirectory(final String storeDirectory) {
+    this.storeDirectory = storeDirectory;
+  }
+}
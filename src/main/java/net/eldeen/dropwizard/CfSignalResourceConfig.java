@@ -2,11 +2,15 @@ package net.eldeen.dropwizard;
 
 import javax.validation.Valid;
 import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
 
-import com.amazonaws.util.EC2MetadataUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
 import io.dropwizard.Configuration;
+import io.dropwizard.util.Duration;
 
 /**
  * <p>
@@ -32,14 +36,14 @@ import io.dropwizard.Configuration;
  *   </tr>
  *   <tr>
  *     <td>{@code ec2InstanceId}</td>
- *     <td>The current EC2 Instance ID via {@link EC2MetadataUtils#getInstanceId()}. Only works when
- *     running on an EC2 Instance.</td>
+ *     <td>The current EC2 Instance ID from the EC2 instance metadata service. Only works when running on an EC2
+ *     Instance.</td>
  *     <td>Specify the EC2 Instance ID if you don't want it automatically looked up.</td>
  *   </tr>
  *   <tr>
  *     <td>{@code awsRegion}</td>
- *     <td>The current region of the EC2 Instance via {@link EC2MetadataUtils#getEC2InstanceRegion()}. Only works when
- *     running on an EC2 Instance.</td>
+ *     <td>The current region of the EC2 Instance from the EC2 instance metadata service. Only works when running on an
+ *     EC2 Instance.</td>
  *     <td>Specify the EC2 Instance Region if you don't want it automatically looked up.</td>
  *   </tr>
  *   <tr>
@@ -49,10 +53,96 @@ import io.dropwizard.Configuration;
  *     and non-AWS environments. When {@code true}, the bundle then ignores all other normally required properties thus
  *     they are optional.</td>
  *   </tr>
+ *   <tr>
+ *     <td>{@code asyncSignal}</td>
+ *     <td>{@code false}</td>
+ *     <td>If {@code true} the signal is sent in the background and Jetty startup does not wait on CloudFormation. Use
+ *     {@link CfSignalResourceBundle#getSignalOutcome()} to observe the result.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code signalTimeout}</td>
+ *     <td>{@code 1 minute}</td>
+ *     <td>The overall deadline for signalling, after which signalling is abandoned.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code resourceStatusMaxAge}</td>
+ *     <td>{@code 2 minutes}</td>
+ *     <td>The ASG's resource status is fetched while the app starts. When signalling, it is reused if younger than this,
+ *     otherwise it is fetched again.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code lightweightClient}</td>
+ *     <td>{@code false}</td>
+ *     <td>If {@code true} the bundle's own client is a minimal one, built on the JDK's HTTP client, that only makes the
+ *     CloudFormation calls the bundle needs. It avoids initializing the AWS SDK client, but only finds credentials in
+ *     the {@code AWS_ACCESS_KEY_ID}/{@code AWS_SECRET_ACCESS_KEY} environment variables or the EC2 instance profile.
+ *     Ignored when the bundle is given an {@code AmazonCloudFormation}.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code additionalTargets}</td>
+ *     <td>none</td>
+ *     <td>Other resources to signal along with the ASG, each a {@link CfSignalResourceTarget}, e.g. an ASG in a nested
+ *     stack or a WaitCondition in a sibling stack. All are signalled at the same time.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code retry}</td>
+ *     <td>see {@link CfSignalResourceRetryConfig}</td>
+ *     <td>How throttled or transiently failing CloudFormation calls are retried.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code healthChecks}</td>
+ *     <td>see {@link CfSignalResourceHealthCheckConfig}</td>
+ *     <td>Health checks that must pass before signalling {@code SUCCESS}, none by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code warmup}</td>
+ *     <td>see {@link CfSignalResourceWarmupConfig}</td>
+ *     <td>Warming up the app before signalling {@code SUCCESS}, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code budget}</td>
+ *     <td>see {@link CfSignalResourceBudgetConfig}</td>
+ *     <td>Planning signalling around how long CloudFormation waits for the signal, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code lifecycleHook}</td>
+ *     <td>see {@link CfSignalResourceLifecycleHookConfig}</td>
+ *     <td>Completing the ASG's launch lifecycle hook once ready, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code drain}</td>
+ *     <td>see {@link CfSignalResourceDrainConfig}</td>
+ *     <td>Draining requests before completing the ASG's terminate lifecycle hook, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code journal}</td>
+ *     <td>see {@link CfSignalResourceJournalConfig}</td>
+ *     <td>Journalling signals to disk so a restarted app neither repeats nor loses one, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code replay}</td>
+ *     <td>see {@link CfSignalResourceReplayConfig}</td>
+ *     <td>Capturing live requests, and replaying them to warm up the app before signalling, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code cds}</td>
+ *     <td>see {@link CfSignalResourceCdsConfig}</td>
+ *     <td>Dumping an AppCDS archive for later instances once signalled, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code monitor}</td>
+ *     <td>see {@link CfSignalResourceMonitorConfig}</td>
+ *     <td>Monitoring, once signalled, whether the app is still fit to take traffic, disabled by default.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code statusSnapshot}</td>
+ *     <td>see {@link CfSignalResourceStatusSnapshotConfig}</td>
+ *     <td>Taking the resources' status from a snapshot written at launch, disabled by default.</td>
+ *   </tr>
  * </table>
  *
  * The {@code asgResourcename} and {@code stackName} are required. The {@code awsRegion} and {@code ec2InstanceId} are
- * optional as the defaults are {@link EC2MetadataUtils#getInstanceId()} {@link EC2MetadataUtils#getEC2InstanceRegion()}
+ * optional as the defaults are looked up from the EC2 instance metadata service, using IMDSv2 when available.
  */
 public class CfSignalResourceConfig extends Configuration {
 
@@ -67,11 +157,75 @@ public class CfSignalResourceConfig extends Configuration {
 
   private String awsRegion;
 
+  private boolean asyncSignal = false;
+
+  @NotNull
+  private Duration signalTimeout = Duration.minutes(1);
+
+  @NotNull
+  private Duration resourceStatusMaxAge = Duration.minutes(2);
+
+  private boolean lightweightClient = false;
+
+  @Valid
+  @NotNull
+  private List<CfSignalResourceTarget> additionalTargets = new ArrayList<>();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceRetryConfig retry = new CfSignalResourceRetryConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceHealthCheckConfig healthChecks = new CfSignalResourceHealthCheckConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceWarmupConfig warmup = new CfSignalResourceWarmupConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceBudgetConfig budget = new CfSignalResourceBudgetConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceLifecycleHookConfig lifecycleHook = new CfSignalResourceLifecycleHookConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceDrainConfig drain = new CfSignalResourceDrainConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceJournalConfig journal = new CfSignalResourceJournalConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceReplayConfig replay = new CfSignalResourceReplayConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceCdsConfig cds = new CfSignalResourceCdsConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceMonitorConfig monitor = new CfSignalResourceMonitorConfig();
+
+  @Valid
+  @NotNull
+  private CfSignalResourceStatusSnapshotConfig statusSnapshot = new CfSignalResourceStatusSnapshotConfig();
+
   @AssertTrue(message = "both 'asgResourceName' and 'stackName' must not be blank when 'skip == false'")
   private boolean isValid() {
     return skip || !Strings.isNullOrEmpty(asgResourceName) && !Strings.isNullOrEmpty(stackName);
   }
 
+  @AssertTrue(message = "'lifecycleHook.lifecycleHookNames' must list the hooks to complete when 'lifecycleHook.enabled'"
+                        + " or 'drain.enabled'")
+  private boolean isLifecycleHookNamed() {
+    return !lifecycleHook.isEnabled() && !drain.isEnabled() || !lifecycleHook.getLifecycleHookNames().isEmpty();
+  }
+
   @JsonProperty
   public boolean isSkip() {
     return skip;
@@ -121,4 +275,175 @@ public class CfSignalResourceConfig extends Configuration {
   public void setAwsRegion(final String awsRegion) {
     this.awsRegion = awsRegion;
   }
+
+  @JsonProperty
+  public boolean isAsyncSignal() {
+    return asyncSignal;
+  }
+
+  @JsonProperty
+  public void setAsyncSignal(final boolean asyncSignal) {
+    this.asyncSignal = asyncSignal;
+  }
+
+  @JsonProperty
+  public Duration getSignalTimeout() {
+    return signalTimeout;
+  }
+
+  @JsonProperty
+  public void setSignalTimeout(final Duration signalTimeout) {
+    this.signalTimeout = signalTimeout;
+  }
+
+  @JsonProperty
+  public Duration getResourceStatusMaxAge() {
+    return resourceStatusMaxAge;
+  }
+
+  @JsonProperty
+  public void setResourceStatusMaxAge(final Duration resourceStatusMaxAge) {
+    this.resourceStatusMaxAge = resourceStatusMaxAge;
+  }
+
+  @JsonProperty
+  public boolean isLightweightClient() {
+    return lightweightClient;
+  }
+
+  @JsonProperty
+  public void setLightweightClient(final boolean lightweightClient) {
+    this.lightweightClient = lightweightClient;
+  }
+
+  @JsonProperty
+  public List<CfSignalResourceTarget> getAdditionalTargets() {
+    return additionalTargets;
+  }
+
+  @JsonProperty
+  public void setAdditionalTargets(final List<CfSignalResourceTarget> additionalTargets) {
+    this.additionalTargets = additionalTargets;
+  }
+
+  /**
+   * @return the ASG followed by the {@link #getAdditionalTargets()}
+   */
+  @JsonIgnore
+  public List<CfSignalResourceTarget> getTargets() {
+    final List<CfSignalResourceTarget> targets = new ArrayList<>(additionalTargets.size() + 1);
+    targets.add(new CfSignalResourceTarget(stackName, asgResourceName));
+    targets.addAll(additionalTargets);
+    return targets;
+  }
+
+  @JsonProperty
+  public CfSignalResourceRetryConfig getRetry() {
+    return retry;
+  }
+
+  @JsonProperty
+  public void setRetry(final CfSignalResourceRetryConfig retry) {
+    this.retry = retry;
+  }
+
+  @JsonProperty
+  public CfSignalResourceHealthCheckConfig getHealthChecks() {
+    return healthChecks;
+  }
+
+  @JsonProperty
+  public void setHealthChecks(final CfSignalResourceHealthCheckConfig healthChecks) {
+    this.healthChecks = healthChecks;
+  }
+
+  @JsonProperty
+  public CfSignalResourceWarmupConfig getWarmup() {
+    return warmup;
+  }
+
+  @JsonProperty
+  public void setWarmup(final CfSignalResourceWarmupConfig warmup) {
+    this.warmup = warmup;
+  }
+
+  @JsonProperty
+  public CfSignalResourceBudgetConfig getBudget() {
+    return budget;
+  }
+
+  @JsonProperty
+  public void setBudget(final CfSignalResourceBudgetConfig budget) {
+    this.budget = budget;
+  }
+
+  @JsonProperty
+  public CfSignalResourceLifecycleHookConfig getLifecycleHook() {
+    return lifecycleHook;
+  }
+
+  @JsonProperty
+  public void setLifecycleHook(final CfSignalResourceLifecycleHookConfig lifecycleHook) {
+    this.lifecycleHook = lifecycleHook;
+  }
+
+  @JsonProperty
+  public CfSignalResourceDrainConfig getDrain() {
+    return drain;
+  }
+
+  @JsonProperty
+  public void setDrain(final CfSignalResourceDrainConfig drain) {
+    this.drain = drain;
+  }
+
+  @JsonProperty
+  public CfSignalResourceJournalConfig getJournal() {
+    return journal;
+  }
+
+  @JsonProperty
+  public void setJournal(final CfSignalResourceJournalConfig journal) {
+    this.journal = journal;
+  }
+
+  @JsonProperty
+  public CfSignalResourceReplayConfig getReplay() {
+    return replay;
+  }
+
+  @JsonProperty
+  public void setReplay(final CfSignalResourceReplayConfig replay) {
+    this.replay = replay;
+  }
+
+  @JsonProperty
+  public CfSignalResourceCdsConfig getCds() {
+    return cds;
+  }
+
+  @JsonProperty
+  public void setCds(final CfSignalResourceCdsConfig cds) {
+    this.cds = cds;
+  }
+
+  @JsonProperty
+  public CfSignalResourceMonitorConfig getMonitor() {
+    return monitor;
+  }
+
+  @JsonProperty
+  public void setMonitor(final CfSignalResourceMonitorConfig monitor) {
+    this.monitor = monitor;
+  }
+
+  @JsonProperty
+  public CfSignalResourceStatusSnapshotConfig getStatusSnapshot() {
+    return statusSnapshot;
+  }
+
+  @JsonProperty
+  public void setStatusSnapshot(final CfSignalResourceStatusSnapshotConfig statusSnapshot) {
+    this.statusSnapshot = statusSnapshot;
+  }
 }
@@ -0,0 +1,83 @@
+package net.eldeen.dropwizard;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Finds the method exposing {@link CfSignalResourceConfig} on an app's config class. The methods of each config class
+ * are scanned once, and the accessor found is cached as a {@link MethodHandle} for the life of the class, so only the
+ * first lookup costs more the more getters the config class has.
+ */
+final class CfSignalResourceConfigAccessor {
+
+  private static final MethodType ACCESSOR_TYPE = MethodType.methodType(CfSignalResourceConfig.class, Object.class);
+
+  private static final ClassValue<Optional<MethodHandle>> ACCESSORS = new ClassValue<Optional<MethodHandle>>() {
+    @Override
+    protected Optional<MethodHandle> computeValue(final Class<?> type) {
+      return findAccessor(type);
+    }
+  };
+
+  private CfSignalResourceConfigAccessor() {
+  }
+
+  /**
+   * @return the config exposed by {@code config}, or {@link Optional#empty()} if its class has no method exposing one
+   * @throws IllegalStateException if more than one method exposes the config, or the method returns {@code null}
+   */
+  static Optional<CfSignalResourceConfig> get(final Object config) {
+    final Optional<MethodHandle> accessor = ACCESSORS.get(config.getClass());
+    if (!accessor.isPresent()) {
+      return Optional.empty();
+    }
+
+    final CfSignalResourceConfig cfSignalResourceConfig;
+    try {
+      cfSignalResourceConfig = (CfSignalResourceConfig) accessor.get().invokeExact(config);
+    }
+    catch (Throwable throwable) {
+      throw Throwables.propagate(throwable);
+    }
+    if (Objects.isNull(cfSignalResourceConfig)) {
+      throw new IllegalStateException("when called, the method exposing 'CfSignalResourceConfig' in config returned a null value");
+    }
+    return Optional.of(cfSignalResourceConfig);
+  }
+
+  private static Optional<MethodHandle> findAccessor(final Class<?> type) {
+    final List<Method> candidates = new ArrayList<>(1);
+    for (Method method : type.getMethods()) {
+      if (CfSignalResourceConfig.class.equals(method.getReturnType())
+          && method.getParameterCount() == 0
+          && !method.isBridge()) {
+        candidates.add(method);
+      }
+    }
+
+    if (candidates.isEmpty()) {
+      return Optional.empty();
+    }
+    if (candidates.size() > 1) {
+      throw new IllegalStateException("config '" + type + "' has more than one method exposing 'CfSignalResourceConfig' ("
+                                      + candidates.stream().map(Method::getName).sorted().collect(Collectors.joining(", "))
+                                      + "), override 'getConfiguration()' to choose one");
+    }
+
+    try {
+      return Optional.of(MethodHandles.lookup().unreflect(candidates.get(0)).asType(ACCESSOR_TYPE));
+    }
+    catch (IllegalAccessException e) {
+      throw new RuntimeException("method exposing 'CfSignalResourceConfig' must be accessible", e);
+    }
+  }
+}
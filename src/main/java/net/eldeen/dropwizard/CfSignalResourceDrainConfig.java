@@ -0,0 +1,77 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+/**
+ * <p>
+ * config for draining the app's in-flight requests when the ASG scales in, before completing its
+ * {@code autoscaling:EC2_INSTANCE_TERMINATING} lifecycle hook.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If the app should watch for the ASG terminating the instance, and drain its requests when it does.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code pollInterval}</td>
+ *     <td>{@code 5 seconds}</td>
+ *     <td>How often the EC2 instance metadata service is asked whether the ASG is terminating the instance.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code timeout}</td>
+ *     <td>{@code 30 seconds}</td>
+ *     <td>How long to wait for in-flight requests to finish before completing the lifecycle action anyway.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceDrainConfig {
+
+  private boolean enabled = false;
+
+  @NotNull
+  private Duration pollInterval = Duration.seconds(5);
+
+  @NotNull
+  private Duration timeout = Duration.seconds(30);
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public Duration getPollInterval() {
+    return pollInterval;
+  }
+
+  @JsonProperty
+  public void setPollInterval(final Duration pollInterval) {
+    this.pollInterval = pollInterval;
+  }
+
+  @JsonProperty
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  @JsonProperty
+  public void setTimeout(final Duration timeout) {
+    this.timeout = timeout;
+  }
+}
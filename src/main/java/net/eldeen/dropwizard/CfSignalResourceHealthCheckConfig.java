@@ -0,0 +1,141 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+/**
+ * <p>
+ * config for running the app's health checks before {@link CfSignalResourceBundle} signals {@code SUCCESS}.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code all}</td>
+ *     <td>{@code false}</td>
+ *     <td>If every registered health check must pass.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code names}</td>
+ *     <td>none</td>
+ *     <td>Names of the health checks that must pass, when not {@code all} of them.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code checkTimeout}</td>
+ *     <td>{@code 5 seconds}</td>
+ *     <td>A health check that takes longer than this counts as failing.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code initialBackoff}</td>
+ *     <td>{@code 500 milliseconds}</td>
+ *     <td>How long to wait before running failing health checks again. Doubles after each attempt...</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxBackoff}</td>
+ *     <td>{@code 10 seconds}</td>
+ *     <td>...up to this.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code deadline}</td>
+ *     <td>{@code 2 minutes}</td>
+ *     <td>If any health check is still failing after this long {@code FAILURE} is signalled.</td>
+ *   </tr>
+ * </table>
+ *
+ * No health checks are run unless {@code all} is {@code true} or some {@code names} are given.
+ */
+public class CfSignalResourceHealthCheckConfig {
+
+  private boolean all = false;
+
+  @NotNull
+  private List<String> names = new ArrayList<>();
+
+  @NotNull
+  private Duration checkTimeout = Duration.seconds(5);
+
+  @NotNull
+  private Duration initialBackoff = Duration.milliseconds(500);
+
+  @NotNull
+  private Duration maxBackoff = Duration.seconds(10);
+
+  @NotNull
+  private Duration deadline = Duration.minutes(2);
+
+  /**
+   * @return if any health checks are to be run
+   */
+  public boolean isEnabled() {
+    return all || !names.isEmpty();
+  }
+
+  @JsonProperty
+  public boolean isAll() {
+    return all;
+  }
+
+  @JsonProperty
+  public void setAll(final boolean all) {
+    this.all = all;
+  }
+
+  @JsonProperty
+  public List<String> getNames() {
+    return names;
+  }
+
+  @JsonProperty
+  public void setNames(final List<String> names) {
+    this.names = names;
+  }
+
+  @JsonProperty
+  public Duration getCheckTimeout() {
+    return checkTimeout;
+  }
+
+  @JsonProperty
+  public void setCheckTimeout(final Duration checkTimeout) {
+    this.checkTimeout = checkTimeout;
+  }
+
+  @JsonProperty
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  @JsonProperty
+  public void setInitialBackoff(final Duration initialBackoff) {
+    this.initialBackoff = initialBackoff;
+  }
+
+  @JsonProperty
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  @JsonProperty
+  public void setMaxBackoff(final Duration maxBackoff) {
+    this.maxBackoff = maxBackoff;
+  }
+
+  @JsonProperty
+  public Duration getDeadline() {
+    return deadline;
+  }
+
+  @JsonProperty
+  public void setDeadline(final Duration deadline) {
+    this.deadline = deadline;
+  }
+}
@@ -0,0 +1,59 @@
+package net.eldeen.dropwizard;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.validator.constraints.NotEmpty;
+
+/**
+ * <p>
+ * config for journalling each signal to disk, so an app restarted during an update, e.g. by systemd after a crash,
+ * neither signals a resource twice nor loses a signal it was about to send.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If each signal should be recorded before it is sent and once CloudFormation has acknowledged it. On startup a
+ *     resource whose signal was acknowledged isn't signalled again, and a {@code FAILURE} signal that wasn't
+ *     acknowledged is sent again straight away.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code path}</td>
+ *     <td>{@code /var/tmp/cf-signal-resource.journal}</td>
+ *     <td>The journal file, somewhere that survives the app, and ideally the instance, restarting.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceJournalConfig {
+
+  private boolean enabled = false;
+
+  @NotEmpty
+  private String path = "/var/tmp/cf-signal-resource.journal";
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public String getPath() {
+    return path;
+  }
+
+  @JsonProperty
+  public void setPath(final String path) {
+    this.path = path;
+  }
+}
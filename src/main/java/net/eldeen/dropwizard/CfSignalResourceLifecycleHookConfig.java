@@ -0,0 +1,83 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+/**
+ * <p>
+ * config for holding a launching instance back from traffic with the ASG's {@code autoscaling:EC2_INSTANCE_LAUNCHING}
+ * lifecycle hook, completing the lifecycle action once the app is ready.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If a pending launch lifecycle action should be completed with {@code CONTINUE} once the app is ready, or
+ *     {@code ABANDON} if it isn't.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code lifecycleHookNames}</td>
+ *     <td>none</td>
+ *     <td>The names of the ASG's lifecycle hooks the bundle completes, both launch hooks and, when {@code drain} is
+ *     enabled, terminate hooks. Hooks with other names, e.g. those of other agents on the instance, are left alone.
+ *     Required when {@code enabled} or {@code drain} is.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code heartbeatInterval}</td>
+ *     <td>{@code 1 minute}</td>
+ *     <td>How often to record a heartbeat while the app starts, or drains when {@code drain} is enabled, at most half
+ *     the hook's heartbeat timeout.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceLifecycleHookConfig {
+
+  private boolean enabled = false;
+
+  @NotNull
+  private List<String> lifecycleHookNames = new ArrayList<>();
+
+  @NotNull
+  private Duration heartbeatInterval = Duration.minutes(1);
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public List<String> getLifecycleHookNames() {
+    return lifecycleHookNames;
+  }
+
+  @JsonProperty
+  public void setLifecycleHookNames(final List<String> lifecycleHookNames) {
+    this.lifecycleHookNames = lifecycleHookNames;
+  }
+
+  @JsonProperty
+  public Duration getHeartbeatInterval() {
+    return heartbeatInterval;
+  }
+
+  @JsonProperty
+  public void setHeartbeatInterval(final Duration heartbeatInterval) {
+    this.heartbeatInterval = heartbeatInterval;
+  }
+}
@@ -0,0 +1,175 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+/**
+ * <p>
+ * config for monitoring, once signalled, whether the app is still fit to take traffic, and serving that for the load
+ * balancer's health check. A threshold crossed for {@code unreadySamples} samples in a row makes the app unready, and it
+ * is only ready again once every threshold has been met for {@code readySamples} samples in a row, so an app near a
+ * threshold doesn't flap in and out of the load balancer.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If the app's readiness should be monitored and served on the admin port.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code interval}</td>
+ *     <td>{@code 2 seconds}</td>
+ *     <td>How often the app's metrics are sampled.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxThreadPoolUtilization}</td>
+ *     <td>{@code 0.95}</td>
+ *     <td>The share of Jetty's threads that may be busy.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxQueuedRequests}</td>
+ *     <td>{@code 100}</td>
+ *     <td>How many requests may be waiting for a Jetty thread.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxGcPauseRatio}</td>
+ *     <td>{@code 0.25}</td>
+ *     <td>The share of each interval that may be spent collecting garbage.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxRequestLatency}</td>
+ *     <td>{@code 2 seconds}</td>
+ *     <td>The 99th percentile of the app's request times, which favours the last few minutes' requests. Only checked
+ *     when requests have arrived since the last sample.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code unreadySamples}</td>
+ *     <td>{@code 2}</td>
+ *     <td>How many samples in a row must cross a threshold for the app to become unready.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code readySamples}</td>
+ *     <td>{@code 5}</td>
+ *     <td>How many samples in a row must meet every threshold for the app to become ready again.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceMonitorConfig {
+
+  private boolean enabled = false;
+
+  @NotNull
+  private Duration interval = Duration.seconds(2);
+
+  @DecimalMin("0")
+  @DecimalMax("1")
+  private double maxThreadPoolUtilization = 0.95;
+
+  @Min(0)
+  private int maxQueuedRequests = 100;
+
+  @DecimalMin("0")
+  @DecimalMax("1")
+  private double maxGcPauseRatio = 0.25;
+
+  @NotNull
+  private Duration maxRequestLatency = Duration.seconds(2);
+
+  @Min(1)
+  private int unreadySamples = 2;
+
+  @Min(1)
+  private int readySamples = 5;
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public Duration getInterval() {
+    return interval;
+  }
+
+  @JsonProperty
+  public void setInterval(final Duration interval) {
+    this.interval = interval;
+  }
+
+  @JsonProperty
+  public double getMaxThreadPoolUtilization() {
+    return maxThreadPoolUtilization;
+  }
+
+  @JsonProperty
+  public void setMaxThreadPoolUtilization(final double maxThreadPoolUtilization) {
+    this.maxThreadPoolUtilization = maxThreadPoolUtilization;
+  }
+
+  @JsonProperty
+  public int getMaxQueuedRequests() {
+    return maxQueuedRequests;
+  }
+
+  @JsonProperty
+  public void setMaxQueuedRequests(final int maxQueuedRequests) {
+    this.maxQueuedRequests = maxQueuedRequests;
+  }
+
+  @JsonProperty
+  public double getMaxGcPauseRatio() {
+    return maxGcPauseRatio;
+  }
+
+  @JsonProperty
+  public void setMaxGcPauseRatio(final double maxGcPauseRatio) {
+    this.maxGcPauseRatio = maxGcPauseRatio;
+  }
+
+  @JsonProperty
+  public Duration getMaxRequestLatency() {
+    return maxRequestLatency;
+  }
+
+  @JsonProperty
+  public void setMaxRequestLatency(final Duration maxRequestLatency) {
+    this.maxRequestLatency = maxRequestLatency;
+  }
+
+  @JsonProperty
+  public int getUnreadySamples() {
+    return unreadySamples;
+  }
+
+  @JsonProperty
+  public void setUnreadySamples(final int unreadySamples) {
+    this.unreadySamples = unreadySamples;
+  }
+
+  @JsonProperty
+  public int getReadySamples() {
+    return readySamples;
+  }
+
+  @JsonProperty
+  public void setReadySamples(final int readySamples) {
+    this.readySamples = readySamples;
+  }
+}
@@ -0,0 +1,39 @@
+package net.eldeen.dropwizard;
+
+/**
+ * The outcome of {@link CfSignalResourceBundle} signalling CloudFormation.
+ */
+public enum CfSignalResourceOutcome {
+
+  /**
+   * Signalling was skipped, either via {@link CfSignalResourceConfig#isSkip()} or because not running on AWS.
+   */
+  SKIPPED,
+
+  /**
+   * No CloudFormation create or update was in progress on the ASG, so no signal was sent.
+   */
+  NO_UPDATE_IN_PROGRESS,
+
+  /**
+   * A {@code SUCCESS} signal was sent.
+   */
+  SIGNALLED_SUCCESS,
+
+  /**
+   * A {@code FAILURE} signal was sent.
+   */
+  SIGNALLED_FAILURE,
+
+  /**
+   * No CloudFormation create or update was in progress, and the ASG's launch lifecycle action was completed with
+   * {@code CONTINUE}.
+   */
+  LIFECYCLE_ACTION_CONTINUED,
+
+  /**
+   * No CloudFormation create or update was in progress, and the ASG's launch lifecycle action was completed with
+   * {@code ABANDON}.
+   */
+  LIFECYCLE_ACTION_ABANDONED
+}
@@ -0,0 +1,14 @@
+package net.eldeen.dropwizard;
+
+/**
+ * A step that must complete before the app is ready to take traffic, e.g. loading reference data into a cache. Added via
+ * {@link CfSignalResourceBundle#addReadinessTask(String, CfSignalResourceReadinessTask, String...)}.
+ */
+@FunctionalInterface
+public interface CfSignalResourceReadinessTask {
+
+  /**
+   * @throws Exception if the app can't be made ready, in which case {@code FAILURE} is signalled
+   */
+  void run() throws Exception;
+}
@@ -0,0 +1,288 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import io.dropwizard.util.Size;
+import org.hibernate.validator.constraints.NotEmpty;
+
+/**
+ * <p>
+ * config for sampling the app's live requests into a recording, and replaying that recording to warm up the app before
+ * {@link CfSignalResourceBundle} signals {@code SUCCESS}.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code path}</td>
+ *     <td>{@code /var/tmp/cf-signal-resource.recording}</td>
+ *     <td>The recording file. Each instance captures to a file of its own, {@code path} suffixed with a
+ *     {@code .} and its instance ID, and the recordings at {@code path} and of every instance are replayed.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code capture}</td>
+ *     <td>{@code false}</td>
+ *     <td>If live requests should be sampled into the recording.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code sampleRate}</td>
+ *     <td>{@code 0.01}</td>
+ *     <td>The fraction of requests captured.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxSize}</td>
+ *     <td>{@code 16 megabytes}</td>
+ *     <td>The size of each instance's recording; once it is full nothing more is captured. At most about this much
+ *     of the most recent recordings is replayed.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxBodySize}</td>
+ *     <td>{@code 64 kilobytes}</td>
+ *     <td>Requests with larger bodies, or bodies of unknown length, aren't captured.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code headers}</td>
+ *     <td>{@code Accept}, {@code Content-Type}</td>
+ *     <td>The request headers captured, all others are left out. Think twice before adding credentials, e.g.
+ *     {@code Authorization} or {@code Cookie}, as the recording is a plain file.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code methods}</td>
+ *     <td>{@code GET}, {@code HEAD}</td>
+ *     <td>The HTTP methods of the requests captured and replayed. Replayed requests are handled by the live app, so only
+ *     add methods whose requests are safe to repeat.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code excludedPaths}</td>
+ *     <td>none</td>
+ *     <td>Regular expressions for request paths, without the query, that are neither captured nor replayed.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If the recording should be replayed before signalling. Replaying is best effort: with no recording, or
+ *     requests failing, {@code SUCCESS} is still signalled.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code connectorName}</td>
+ *     <td>{@code application}</td>
+ *     <td>Name of the Jetty connector the recording is replayed to.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code concurrency}</td>
+ *     <td>{@code 4}</td>
+ *     <td>How many requests are in flight at once.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code requestsPerSecond}</td>
+ *     <td>{@code 100}</td>
+ *     <td>The most requests replayed each second, {@code 0} for as many as the app can take.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code duration}</td>
+ *     <td>{@code 30 seconds}</td>
+ *     <td>How long the recording is replayed for, over and over if need be.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code requestTimeout}</td>
+ *     <td>{@code 5 seconds}</td>
+ *     <td>Connect and read timeout of each request.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceReplayConfig {
+
+  @NotEmpty
+  private String path = "/var/tmp/cf-signal-resource.recording";
+
+  private boolean capture = false;
+
+  @DecimalMin("0")
+  @DecimalMax("1")
+  private double sampleRate = 0.01;
+
+  @NotNull
+  private Size maxSize = Size.megabytes(16);
+
+  @NotNull
+  private Size maxBodySize = Size.kilobytes(64);
+
+  @NotNull
+  private List<String> headers = new ArrayList<>(Arrays.asList("Accept", "Content-Type"));
+
+  @NotNull
+  private List<String> methods = new ArrayList<>(Arrays.asList("GET", "HEAD"));
+
+  @NotNull
+  private List<String> excludedPaths = new ArrayList<>();
+
+  private boolean enabled = false;
+
+  @NotEmpty
+  private String connectorName = "application";
+
+  @Min(1)
+  private int concurrency = 4;
+
+  @DecimalMin("0")
+  private double requestsPerSecond = 100;
+
+  @NotNull
+  private Duration duration = Duration.seconds(30);
+
+  @NotNull
+  private Duration requestTimeout = Duration.seconds(5);
+
+  @JsonProperty
+  public String getPath() {
+    return path;
+  }
+
+  @JsonProperty
+  public void setPath(final String path) {
+    this.path = path;
+  }
+
+  @JsonProperty
+  public boolean isCapture() {
+    return capture;
+  }
+
+  @JsonProperty
+  public void setCapture(final boolean capture) {
+    this.capture = capture;
+  }
+
+  @JsonProperty
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  @JsonProperty
+  public void setSampleRate(final double sampleRate) {
+    this.sampleRate = sampleRate;
+  }
+
+  @JsonProperty
+  public Size getMaxSize() {
+    return maxSize;
+  }
+
+  @JsonProperty
+  public void setMaxSize(final Size maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @JsonProperty
+  public Size getMaxBodySize() {
+    return maxBodySize;
+  }
+
+  @JsonProperty
+  public void setMaxBodySize(final Size maxBodySize) {
+    this.maxBodySize = maxBodySize;
+  }
+
+  @JsonProperty
+  public List<String> getHeaders() {
+    return headers;
+  }
+
+  @JsonProperty
+  public void setHeaders(final List<String> headers) {
+    this.headers = headers;
+  }
+
+  @JsonProperty
+  public List<String> getMethods() {
+    return methods;
+  }
+
+  @JsonProperty
+  public void setMethods(final List<String> methods) {
+    this.methods = methods;
+  }
+
+  @JsonProperty
+  public List<String> getExcludedPaths() {
+    return excludedPaths;
+  }
+
+  @JsonProperty
+  public void setExcludedPaths(final List<String> excludedPaths) {
+    this.excludedPaths = excludedPaths;
+  }
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public String getConnectorName() {
+    return connectorName;
+  }
+
+  @JsonProperty
+  public void setConnectorName(final String connectorName) {
+    this.connectorName = connectorName;
+  }
+
+  @JsonProperty
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  @JsonProperty
+  public void setConcurrency(final int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  @JsonProperty
+  public double getRequestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  @JsonProperty
+  public void setRequestsPerSecond(final double requestsPerSecond) {
+    this.requestsPerSecond = requestsPerSecond;
+  }
+
+  @JsonProperty
+  public Duration getDuration() {
+    return duration;
+  }
+
+  @JsonProperty
+  public void setDuration(final Duration duration) {
+    this.duration = duration;
+  }
+
+  @JsonProperty
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  @JsonProperty
+  public void setRequestTimeout(final Duration requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+}
@@ -0,0 +1,119 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+
+/**
+ * <p>
+ * config for retrying the CloudFormation calls made by {@link CfSignalResourceBundle}.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxRetries}</td>
+ *     <td>{@code 8}</td>
+ *     <td>How many times a throttled or transiently failing call is retried before giving up.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code baseDelay}</td>
+ *     <td>{@code 100 milliseconds}</td>
+ *     <td>The smallest delay between retries.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxDelay}</td>
+ *     <td>{@code 10 seconds}</td>
+ *     <td>The largest delay between retries.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code deadline}</td>
+ *     <td>{@code 45 seconds}</td>
+ *     <td>No retry is attempted if it would start after this much time has passed since the first attempt.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code requestsPerSecond}</td>
+ *     <td>{@code 10}</td>
+ *     <td>The most calls per second made to CloudFormation. The rate is lowered whenever CloudFormation throttles a call
+ *     and recovers as calls succeed.</td>
+ *   </tr>
+ * </table>
+ *
+ * Delays between retries use exponential backoff with decorrelated jitter so a fleet of instances signalling at once
+ * spread their retries out.
+ */
+public class CfSignalResourceRetryConfig {
+
+  @Min(0)
+  private int maxRetries = 8;
+
+  @NotNull
+  private Duration baseDelay = Duration.milliseconds(100);
+
+  @NotNull
+  private Duration maxDelay = Duration.seconds(10);
+
+  @NotNull
+  private Duration deadline = Duration.seconds(45);
+
+  @DecimalMin("0.1")
+  private double requestsPerSecond = 10;
+
+  @JsonProperty
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  @JsonProperty
+  public void setMaxRetries(final int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  @JsonProperty
+  public Duration getBaseDelay() {
+    return baseDelay;
+  }
+
+  @JsonProperty
+  public void setBaseDelay(final Duration baseDelay) {
+    this.baseDelay = baseDelay;
+  }
+
+  @JsonProperty
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  @JsonProperty
+  public void setMaxDelay(final Duration maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  @JsonProperty
+  public Duration getDeadline() {
+    return deadline;
+  }
+
+  @JsonProperty
+  public void setDeadline(final Duration deadline) {
+    this.deadline = deadline;
+  }
+
+  @JsonProperty
+  public double getRequestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  @JsonProperty
+  public void setRequestsPerSecond(final double requestsPerSecond) {
+    this.requestsPerSecond = requestsPerSecond;
+  }
+}
@@ -0,0 +1,81 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import org.hibernate.validator.constraints.NotEmpty;
+
+/**
+ * <p>
+ * config for reading the status of the resources to signal from a snapshot written at launch, e.g. by the bootstrap
+ * script from cfn-init metadata or user data, rather than each instance asking CloudFormation. See
+ * {@link StatusSnapshot} for the format.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If the snapshot should be trusted over asking CloudFormation, while it is fresh. CloudFormation is still
+ *     asked for a resource the snapshot doesn't hold, or if it rejects a signal sent on the snapshot's word.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code path}</td>
+ *     <td>{@code /var/tmp/cf-signal-resource-status.json}</td>
+ *     <td>The snapshot file.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code maxAge}</td>
+ *     <td>{@code 30 minutes}</td>
+ *     <td>How old the snapshot may be, by its {@code timestamp}, and still be trusted. A rolling update can outlast
+ *     this, so allow for the time between the snapshot being taken and the last batch signalling.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceStatusSnapshotConfig {
+
+  private boolean enabled = false;
+
+  @NotEmpty
+  private String path = "/var/tmp/cf-signal-resource-status.json";
+
+  @NotNull
+  private Duration maxAge = Duration.minutes(30);
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public String getPath() {
+    return path;
+  }
+
+  @JsonProperty
+  public void setPath(final String path) {
+    this.path = path;
+  }
+
+  @JsonProperty
+  public Duration getMaxAge() {
+    return maxAge;
+  }
+
+  @JsonProperty
+  public void setMaxAge(final Duration maxAge) {
+    this.maxAge = maxAge;
+  }
+}
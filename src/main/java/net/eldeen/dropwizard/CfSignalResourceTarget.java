@@ -0,0 +1,90 @@
+package net.eldeen.dropwizard;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.validator.constraints.NotEmpty;
+
+/**
+ * <p>
+ * config for a CloudFormation resource signalled by {@link CfSignalResourceBundle}, e.g. an ASG in a nested stack or a
+ * {@code AWS::CloudFormation::WaitCondition} with a {@code CreationPolicy} in a sibling stack.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code stackName}</td>
+ *     <td>none</td>
+ *     <td>Name, or ID, of the stack the resource is in.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code logicalResourceId}</td>
+ *     <td>none</td>
+ *     <td>Logical ID of the resource in the stack's template.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceTarget {
+
+  @NotEmpty
+  private String stackName;
+
+  @NotEmpty
+  private String logicalResourceId;
+
+  public CfSignalResourceTarget() {
+  }
+
+  public CfSignalResourceTarget(final String stackName, final String logicalResourceId) {
+    this.stackName = stackName;
+    this.logicalResourceId = logicalResourceId;
+  }
+
+  @JsonProperty
+  public String getStackName() {
+    return stackName;
+  }
+
+  @JsonProperty
+  public void setStackName(final String stackName) {
+    this.stackName = stackName;
+  }
+
+  @JsonProperty
+  public String getLogicalResourceId() {
+    return logicalResourceId;
+  }
+
+  @JsonProperty
+  public void setLogicalResourceId(final String logicalResourceId) {
+    this.logicalResourceId = logicalResourceId;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final CfSignalResourceTarget that = (CfSignalResourceTarget) o;
+    return Objects.equals(stackName, that.stackName) && Objects.equals(logicalResourceId, that.logicalResourceId);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(stackName, logicalResourceId);
+  }
+
+  @Override
+  public String toString() {
+    return "'" + logicalResourceId + "' in CloudFormation Stack '" + stackName + "'";
+  }
+}
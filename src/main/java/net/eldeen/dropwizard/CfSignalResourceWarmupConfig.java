@@ -0,0 +1,274 @@
+package net.eldeen.dropwizard;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import org.hibernate.validator.constraints.NotEmpty;
+
+/**
+ * <p>
+ * config for warming up the app, by sending it requests, before {@link CfSignalResourceBundle} signals {@code SUCCESS}.
+ * </p>
+ * <b>Configuration Parameters:</b>
+ * <table>
+ *   <caption>Configuration Parameters</caption>
+ *   <tr>
+ *     <td>Name</td>
+ *     <td>Default</td>
+ *     <td>Description</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code enabled}</td>
+ *     <td>{@code false}</td>
+ *     <td>If the app should be warmed up before signalling.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code connectorName}</td>
+ *     <td>{@code application}</td>
+ *     <td>Name of the Jetty connector the requests are sent to.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code requests}</td>
+ *     <td>{@code GET /}</td>
+ *     <td>The requests to send, each with a {@code method}, {@code path} and optional {@code body} and
+ *     {@code contentType}. They are sent round robin.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code concurrency}</td>
+ *     <td>{@code 4}</td>
+ *     <td>How many requests are in flight at once.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code requestTimeout}</td>
+ *     <td>{@code 5 seconds}</td>
+ *     <td>Connect and read timeout of each request.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code window}</td>
+ *     <td>{@code 5 seconds}</td>
+ *     <td>Latency percentiles are measured over windows of this length.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code minRequestsPerWindow}</td>
+ *     <td>{@code 100}</td>
+ *     <td>Windows with fewer requests than this don't count towards being warm.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code p99Target}</td>
+ *     <td>{@code 100 milliseconds}</td>
+ *     <td>The app is warm once the 99th percentile latency of a window is at or below this...</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code requiredWindows}</td>
+ *     <td>{@code 3}</td>
+ *     <td>...for this many windows in a row.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@code deadline}</td>
+ *     <td>{@code 2 minutes}</td>
+ *     <td>If the app isn't warm after this long {@code FAILURE} is signalled.</td>
+ *   </tr>
+ * </table>
+ */
+public class CfSignalResourceWarmupConfig {
+
+  private boolean enabled = false;
+
+  @NotEmpty
+  private String connectorName = "application";
+
+  @Valid
+  @NotEmpty
+  private List<Request> requests = new ArrayList<>(Collections.singletonList(new Request()));
+
+  @Min(1)
+  private int concurrency = 4;
+
+  @NotNull
+  private Duration requestTimeout = Duration.seconds(5);
+
+  @NotNull
+  private Duration window = Duration.seconds(5);
+
+  @Min(1)
+  private int minRequestsPerWindow = 100;
+
+  @NotNull
+  private Duration p99Target = Duration.milliseconds(100);
+
+  @Min(1)
+  private int requiredWindows = 3;
+
+  @NotNull
+  private Duration deadline = Duration.minutes(2);
+
+  @JsonProperty
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @JsonProperty
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @JsonProperty
+  public String getConnectorName() {
+    return connectorName;
+  }
+
+  @JsonProperty
+  public void setConnectorName(final String connectorName) {
+    this.connectorName = connectorName;
+  }
+
+  @JsonProperty
+  public List<Request> getRequests() {
+    return requests;
+  }
+
+  @JsonProperty
+  public void setRequests(final List<Request> requests) {
+    this.requests = requests;
+  }
+
+  @JsonProperty
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  @JsonProperty
+  public void setConcurrency(final int concurrency) {
+    this.concurrency = concurrency;
+  }
+
+  @JsonProperty
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  @JsonProperty
+  public void setRequestTimeout(final Duration requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+
+  @JsonProperty
+  public Duration getWindow() {
+    return window;
+  }
+
+  @JsonProperty
+  public void setWindow(final Duration window) {
+    this.window = window;
+  }
+
+  @JsonProperty
+  public int getMinRequestsPerWindow() {
+    return minRequestsPerWindow;
+  }
+
+  @JsonProperty
+  public void setMinRequestsPerWindow(final int minRequestsPerWindow) {
+    this.minRequestsPerWindow = minRequestsPerWindow;
+  }
+
+  @JsonProperty
+  public Duration getP99Target() {
+    return p99Target;
+  }
+
+  @JsonProperty
+  public void setP99Target(final Duration p99Target) {
+    this.p99Target = p99Target;
+  }
+
+  @JsonProperty
+  public int getRequiredWindows() {
+    return requiredWindows;
+  }
+
+  @JsonProperty
+  public void setRequiredWindows(final int requiredWindows) {
+    this.requiredWindows = requiredWindows;
+  }
+
+  @JsonProperty
+  public Duration getDeadline() {
+    return deadline;
+  }
+
+  @JsonProperty
+  public void setDeadline(final Duration deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * A request sent to warm up the app.
+   */
+  public static class Request {
+
+    @NotEmpty
+    private String method = "GET";
+
+    @NotEmpty
+    private String path = "/";
+
+    private String body;
+
+    private String contentType = "application/json";
+
+    public Request() {
+    }
+
+    public Request(final String method, final String path) {
+      this.method = method;
+      this.path = path;
+    }
+
+    @JsonProperty
+    public String getMethod() {
+      return method;
+    }
+
+    @JsonProperty
+    public void setMethod(final String method) {
+      this.method = method;
+    }
+
+    @JsonProperty
+    public String getPath() {
+      return path;
+    }
+
+    @JsonProperty
+    public void setPath(final String path) {
+      this.path = path;
+    }
+
+    @JsonProperty
+    public String getBody() {
+      return body;
+    }
+
+    @JsonProperty
+    public void setBody(final String body) {
+      this.body = body;
+    }
+
+    @JsonProperty
+    public String getContentType() {
+      return contentType;
+    }
+
+    @JsonProperty
+    public void setContentType(final String contentType) {
+      this.contentType = contentType;
+    }
+  }
+}
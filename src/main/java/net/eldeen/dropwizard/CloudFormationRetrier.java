@@ -0,0 +1,130 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Retries CloudFormation calls that were throttled or failed transiently, using exponential backoff with decorrelated
+ * jitter, within the budget and deadline of a {@link CfSignalResourceRetryConfig}. All calls go through a shared
+ * {@link AdaptiveRateLimiter}.
+ */
+class CloudFormationRetrier {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CloudFormationRetrier.class);
+
+  enum ErrorKind {
+    THROTTLING,
+    TRANSIENT,
+    FATAL
+  }
+
+  private final int maxRetries;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final long deadlineNanos;
+  private final AdaptiveRateLimiter rateLimiter;
+  private final Ticker ticker;
+  private final SignalMetrics metrics;
+
+  CloudFormationRetrier(final CfSignalResourceRetryConfig config, final SignalMetrics metrics) {
+    this(config, new AdaptiveRateLimiter(config.getRequestsPerSecond()), Ticker.systemTicker(), metrics);
+  }
+
+  @VisibleForTesting
+  CloudFormationRetrier(final CfSignalResourceRetryConfig config,
+                        final AdaptiveRateLimiter rateLimiter,
+                        final Ticker ticker,
+                        final SignalMetrics metrics) {
+    this.maxRetries = config.getMaxRetries();
+    this.baseDelayMillis = Math.max(1, config.getBaseDelay().toMilliseconds());
+    this.maxDelayMillis = Math.max(baseDelayMillis, config.getMaxDelay().toMilliseconds());
+    this.deadlineNanos = config.getDeadline().toNanoseconds();
+    this.rateLimiter = checkNotNull(rateLimiter);
+    this.ticker = checkNotNull(ticker);
+    this.metrics = checkNotNull(metrics);
+  }
+
+  /**
+   * Make the call, retrying it while it's throttled or fails transiently.
+   * @param operation name of the call, for logging
+   * @return the result of the first successful attempt
+   * @throws Exception the failure of the last attempt, when it was fatal or the retry budget or deadline ran out
+   */
+  <R> R call(final String operation, final Callable<R> call) throws Exception {
+    final long deadline = ticker.read() + deadlineNanos;
+    long delayMillis = baseDelayMillis;
+    for (int retries = 0; ; retries++) {
+      rateLimiter.acquire();
+      try {
+        final R result = call.call();
+        rateLimiter.onSuccess();
+        return result;
+      }
+      catch (Exception e) {
+        final ErrorKind errorKind = classify(e);
+        if (errorKind == ErrorKind.THROTTLING) {
+          rateLimiter.onThrottled();
+          metrics.throttles().inc();
+        }
+        if (errorKind == ErrorKind.FATAL) {
+          throw e;
+        }
+        if (retries >= maxRetries) {
+          LOGGER.warn("Giving up on {} after {} retries", operation, retries);
+          throw e;
+        }
+        delayMillis = nextDelayMillis(delayMillis);
+        if (ticker.read() + TimeUnit.MILLISECONDS.toNanos(delayMillis) > deadline) {
+          LOGGER.warn("Giving up on {} after {} retries, the retry deadline has passed", operation, retries);
+          throw e;
+        }
+        LOGGER.info("{} failed ({}), retrying in {}ms", operation, errorKind, delayMillis);
+        metrics.retries().inc();
+        TimeUnit.MILLISECONDS.sleep(delayMillis);
+      }
+    }
+  }
+
+  /**
+   * Decorrelated jitter: a random delay between the base delay and three times the previous delay, capped at the max
+   * delay.
+   */
+  @VisibleForTesting
+  long nextDelayMillis(final long previousDelayMillis) {
+    final long upperBound = Math.max(baseDelayMillis, previousDelayMillis * 3);
+    return Math.min(maxDelayMillis, ThreadLocalRandom.current().nextLong(baseDelayMillis, upperBound + 1));
+  }
+
+  static ErrorKind classify(final Throwable throwable) {
+    if (throwable instanceof AmazonServiceException) {
+      final AmazonServiceException ase = (AmazonServiceException) throwable;
+      if (RetryUtils.isThrottlingException(ase) || ase.getStatusCode() == 429) {
+        return ErrorKind.THROTTLING;
+      }
+      if (ase.getStatusCode() >= 500) {
+        return ErrorKind.TRANSIENT;
+      }
+      return ErrorKind.FATAL;
+    }
+    if (throwable instanceof AmazonClientException) {
+      final AmazonClientException ace = (AmazonClientException) throwable;
+      return ace.isRetryable() || ace.getCause() instanceof IOException ? ErrorKind.TRANSIENT : ErrorKind.FATAL;
+    }
+    if (throwable instanceof IOException) {
+      return ErrorKind.TRANSIENT;
+    }
+    return ErrorKind.FATAL;
+  }
+}
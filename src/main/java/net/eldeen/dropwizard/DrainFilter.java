@@ -0,0 +1,180 @@
+package net.eldeen.dropwizard;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Counts the app's in-flight requests, including asynchronous ones, so they can be drained before the instance is
+ * terminated. Once draining, every response asks the client to close its connection, so clients and load balancers
+ * reconnect to another instance rather than reusing a connection to this one.
+ */
+class DrainFilter implements Filter {
+
+  private final Object lock = new Object();
+  private int inFlight;
+  private volatile boolean draining;
+
+  @Override
+  public void init(final FilterConfig filterConfig) {
+  }
+
+  @Override
+  public void doFilter(final ServletRequest request,
+                       final ServletResponse response,
+                       final FilterChain chain) throws IOException, ServletException {
+    started();
+    final AtomicBoolean async = new AtomicBoolean();
+    try {
+      if (draining && response instanceof HttpServletResponse) {
+        ((HttpServletResponse) response).setHeader("Connection", "close");
+      }
+      chain.doFilter(request instanceof HttpServletRequest
+                     ? new AsyncTrackingHttpRequest((HttpServletRequest) request, async)
+                     : new AsyncTrackingRequest(request, async),
+                     response);
+    }
+    finally {
+      if (!async.get()) {
+        finished();
+      }
+    }
+  }
+
+  /**
+   * Listen for the request completing as soon as it goes async, as it may complete on another thread before the
+   * filter chain has even returned.
+   */
+  private AsyncContext listenForCompletion(final AsyncContext asyncContext, final AtomicBoolean async) {
+    if (async.compareAndSet(false, true)) {
+      asyncContext.addListener(new AsyncListener() {
+        @Override
+        public void onComplete(final AsyncEvent event) {
+          finished();
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+          //completes once the timeout has been handled
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+          //completes once the error has been handled
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+          event.getAsyncContext().addListener(this);
+        }
+      });
+    }
+    return asyncContext;
+  }
+
+  private final class AsyncTrackingRequest extends ServletRequestWrapper {
+
+    private final AtomicBoolean async;
+
+    private AsyncTrackingRequest(final ServletRequest request, final AtomicBoolean async) {
+      super(request);
+      this.async = async;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+      return listenForCompletion(super.startAsync(), async);
+    }
+
+    @Override
+    public AsyncContext startAsync(final ServletRequest servletRequest, final ServletResponse servletResponse) {
+      return listenForCompletion(super.startAsync(servletRequest, servletResponse), async);
+    }
+  }
+
+  private final class AsyncTrackingHttpRequest extends HttpServletRequestWrapper {
+
+    private final AtomicBoolean async;
+
+    private AsyncTrackingHttpRequest(final HttpServletRequest request, final AtomicBoolean async) {
+      super(request);
+      this.async = async;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+      return listenForCompletion(super.startAsync(), async);
+    }
+
+    @Override
+    public AsyncContext startAsync(final ServletRequest servletRequest, final ServletResponse servletResponse) {
+      return listenForCompletion(super.startAsync(servletRequest, servletResponse), async);
+    }
+  }
+
+  @Override
+  public void destroy() {
+  }
+
+  /**
+   * Ask clients to close their connection after each response from now on.
+   */
+  void startDraining() {
+    draining = true;
+  }
+
+  boolean isDraining() {
+    return draining;
+  }
+
+  int getInFlight() {
+    synchronized (lock) {
+      return inFlight;
+    }
+  }
+
+  /**
+   * @return {@code true} if no request was in flight before the timeout, {@code false} otherwise
+   */
+  boolean awaitDrained(final long timeout, final TimeUnit unit) throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (lock) {
+      while (inFlight > 0) {
+        final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+          return false;
+        }
+        lock.wait(remainingMillis);
+      }
+      return true;
+    }
+  }
+
+  private void started() {
+    synchronized (lock) {
+      inFlight++;
+    }
+  }
+
+  private void finished() {
+    synchronized (lock) {
+      inFlight--;
+      if (inFlight == 0) {
+        lock.notifyAll();
+      }
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Looks up the EC2 instance ID and region from the instance metadata service using IMDSv2, falling back to IMDSv1 when
+ * no session token can be had. Connect and read timeouts are kept tight so that not running on EC2 is detected quickly
+ * instead of after the AWS SDK's retries. The session token and the identity are cached for the life of the process.
+ */
+class Ec2MetadataResolver {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Ec2MetadataResolver.class);
+
+  static final String DEFAULT_ENDPOINT = "http://169.254.169.254";
+  static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 250;
+  static final int DEFAULT_READ_TIMEOUT_MILLIS = 1000;
+
+  private static final String TOKEN_PATH = "/latest/api/token";
+  private static final String TOKEN_HEADER = "X-aws-ec2-metadata-token";
+  private static final String TOKEN_TTL_HEADER = "X-aws-ec2-metadata-token-ttl-seconds";
+  private static final long TOKEN_TTL_SECONDS = TimeUnit.HOURS.toSeconds(6);
+  //refresh the token well before it expires
+  private static final long TOKEN_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(TOKEN_TTL_SECONDS) * 9 / 10;
+
+  private static final Ec2MetadataResolver DEFAULT = new Ec2MetadataResolver(DEFAULT_ENDPOINT,
+                                                                             DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                                                                             DEFAULT_READ_TIMEOUT_MILLIS);
+
+  private final String endpoint;
+  private final int connectTimeoutMillis;
+  private final int readTimeoutMillis;
+
+  private volatile Optional<Ec2Identity> identity;
+  private volatile Token token;
+
+  @VisibleForTesting
+  Ec2MetadataResolver(final String endpoint, final int connectTimeoutMillis, final int readTimeoutMillis) {
+    this.endpoint = checkNotNull(endpoint);
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    this.readTimeoutMillis = readTimeoutMillis;
+  }
+
+  /**
+   * @return the resolver for the real instance metadata service, shared by the whole process
+   */
+  static Ec2MetadataResolver getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @return the instance ID and region, or {@link Optional#empty()} when not running on EC2
+   */
+  Optional<Ec2Identity> resolve() {
+    Optional<Ec2Identity> resolved = identity;
+    if (resolved != null) {
+      return resolved;
+    }
+    synchronized (this) {
+      if (identity == null) {
+        identity = lookupIdentity();
+      }
+      return identity;
+    }
+  }
+
+  /**
+   * @return a current IMDSv2 session token, or {@link Optional#empty()} if IMDSv2 is unavailable
+   * @throws IOException if the metadata service could not be reached at all
+   */
+  synchronized Optional<String> getToken() throws IOException {
+    final Token current = token;
+    if (current != null && System.nanoTime() - current.fetchedAtNanos < TOKEN_REFRESH_NANOS) {
+      return Optional.ofNullable(current.value);
+    }
+    final Token fetched = new Token(fetchToken(), System.nanoTime());
+    token = fetched;
+    return Optional.ofNullable(fetched.value);
+  }
+
+  /**
+   * @param path path under the endpoint, e.g. {@code /latest/meta-data/instance-id}
+   * @return the body of the response, or {@link Optional#empty()} if there is nothing at that path
+   * @throws IOException if the metadata service could not be reached
+   */
+  Optional<String> get(final String path) throws IOException {
+    return get(path, getToken());
+  }
+
+  private Optional<Ec2Identity> lookupIdentity() {
+    final Optional<String> sessionToken;
+    try {
+      sessionToken = getToken();
+    }
+    catch (IOException e) {
+      LOGGER.debug("EC2 instance metadata service at '{}' is unreachable", endpoint, e);
+      return Optional.empty();
+    }
+
+    //the instance ID and region don't depend on each other so look them up at the same time
+    final CompletableFuture<Optional<String>> region = CompletableFuture.supplyAsync(() -> {
+      try {
+        final Optional<String> placementRegion = get("/latest/meta-data/placement/region", sessionToken);
+        if (placementRegion.isPresent()) {
+          return placementRegion;
+        }
+        return get("/latest/meta-data/placement/availability-zone", sessionToken)
+          .map(az -> az.substring(0, az.length() - 1));
+      }
+      catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    });
+    final Optional<String> instanceId;
+    try {
+      instanceId = get("/latest/meta-data/instance-id", sessionToken);
+    }
+    catch (IOException e) {
+      LOGGER.debug("Unable to look up the EC2 instance ID from '{}'", endpoint, e);
+      return Optional.empty();
+    }
+    if (!instanceId.isPresent()) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(new Ec2Identity(instanceId.get(), region.get().orElse(null)));
+    }
+    catch (ExecutionException e) {
+      LOGGER.debug("Unable to look up the EC2 region from '{}'", endpoint, e.getCause());
+      return Optional.of(new Ec2Identity(instanceId.get(), null));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.of(new Ec2Identity(instanceId.get(), null));
+    }
+  }
+
+  /**
+   * @return the token, or {@code null} if IMDSv2 isn't available but IMDSv1 may be
+   */
+  private String fetchToken() throws IOException {
+    final HttpURLConnection connection = open(TOKEN_PATH);
+    connection.setRequestMethod("PUT");
+    connection.setRequestProperty(TOKEN_TTL_HEADER, Long.toString(TOKEN_TTL_SECONDS));
+    //failing to connect means there is no metadata service, i.e. not on EC2
+    connection.connect();
+    try {
+      final int responseCode = connection.getResponseCode();
+      if (responseCode == HttpURLConnection.HTTP_OK) {
+        return read(connection.getInputStream());
+      }
+      LOGGER.debug("IMDSv2 token request returned {}, falling back to IMDSv1", responseCode);
+      return null;
+    }
+    catch (SocketTimeoutException e) {
+      //the PUT response can be dropped when the hop limit is too low for a container, IMDSv1 may still work
+      LOGGER.debug("IMDSv2 token request timed out, falling back to IMDSv1");
+      return null;
+    }
+    finally {
+      connection.disconnect();
+    }
+  }
+
+  private Optional<String> get(final String path, final Optional<String> sessionToken) throws IOException {
+    final HttpURLConnection connection = open(path);
+    sessionToken.ifPresent(value -> connection.setRequestProperty(TOKEN_HEADER, value));
+    try {
+      if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(Strings.emptyToNull(read(connection.getInputStream()).trim()));
+    }
+    finally {
+      connection.disconnect();
+    }
+  }
+
+  private HttpURLConnection open(final String path) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(endpoint + path).openConnection(Proxy.NO_PROXY);
+    connection.setConnectTimeout(connectTimeoutMillis);
+    connection.setReadTimeout(readTimeoutMillis);
+    connection.setUseCaches(false);
+    return connection;
+  }
+
+  private static String read(final InputStream inputStream) throws IOException {
+    try (InputStream in = inputStream) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static final class Token {
+
+    private final String value;
+    private final long fetchedAtNanos;
+
+    private Token(final String value, final long fetchedAtNanos) {
+      this.value = value;
+      this.fetchedAtNanos = fetchedAtNanos;
+    }
+  }
+
+  /**
+   * The identity of the EC2 instance this process is running on.
+   */
+  static final class Ec2Identity {
+
+    private final String instanceId;
+    private final String region;
+
+    Ec2Identity(final String instanceId, final String region) {
+      this.instanceId = checkNotNull(instanceId);
+      this.region = region;
+    }
+
+    String getInstanceId() {
+      return instanceId;
+    }
+
+    /**
+     * @return the region, if it could be looked up
+     */
+    Optional<String> getRegion() {
+      return Optional.ofNullable(region);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Ec2Identity that = (Ec2Identity) o;
+      return Objects.equals(instanceId, that.instanceId) && Objects.equals(region, that.region);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(instanceId, region);
+    }
+
+    @Override
+    public String toString() {
+      return "Ec2Identity{instanceId='" + instanceId + "', region='" + region + "'}";
+    }
+  }
+}
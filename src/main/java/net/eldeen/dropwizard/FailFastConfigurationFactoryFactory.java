@@ -0,0 +1,95 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.validation.Validator;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.configuration.ConfigurationException;
+import io.dropwizard.configuration.ConfigurationFactory;
+import io.dropwizard.configuration.ConfigurationFactoryFactory;
+import io.dropwizard.configuration.ConfigurationSourceProvider;
+
+/**
+ * Wraps an app's {@link ConfigurationFactoryFactory} to report, as soon as the app's config fails to load and before
+ * any bundle has run, the failure along with whatever of the config could be read without validating it. Also reports
+ * when it has loaded.
+ */
+class FailFastConfigurationFactoryFactory<T> implements ConfigurationFactoryFactory<T> {
+
+  interface FailureListener {
+
+    /**
+     * @param cause why the config failed to load
+     * @param unvalidatedConfig the config read without validating it, if it could be read at all
+     */
+    void configurationFailed(Exception cause, Optional<Object> unvalidatedConfig);
+  }
+
+  private final ConfigurationFactoryFactory<T> delegate;
+  private final FailureListener failureListener;
+  private final Runnable loadedListener;
+
+  FailFastConfigurationFactoryFactory(final ConfigurationFactoryFactory<T> delegate,
+                                      final FailureListener failureListener,
+                                      final Runnable loadedListener) {
+    this.delegate = checkNotNull(delegate);
+    this.failureListener = checkNotNull(failureListener);
+    this.loadedListener = checkNotNull(loadedListener);
+  }
+
+  @Override
+  public ConfigurationFactory<T> create(final Class<T> klass,
+                                        final Validator validator,
+                                        final ObjectMapper objectMapper,
+                                        final String propertyPrefix) {
+    final ConfigurationFactory<T> factory = delegate.create(klass, validator, objectMapper, propertyPrefix);
+    //a null validator skips validation
+    final ConfigurationFactory<T> unvalidatedFactory = delegate.create(klass, null, objectMapper, propertyPrefix);
+
+    return new ConfigurationFactory<T>(klass, validator, objectMapper, propertyPrefix) {
+      @Override
+      public T build(final ConfigurationSourceProvider provider, final String path)
+        throws IOException, ConfigurationException {
+        return failFast(() -> factory.build(provider, path), () -> unvalidatedFactory.build(provider, path));
+      }
+
+      @Override
+      public T build(final File file) throws IOException, ConfigurationException {
+        return failFast(() -> factory.build(file), () -> unvalidatedFactory.build(file));
+      }
+
+      @Override
+      public T build() throws IOException, ConfigurationException {
+        return failFast(factory::build, unvalidatedFactory::build);
+      }
+    };
+  }
+
+  private T failFast(final Build<T> build, final Build<T> buildUnvalidated) throws IOException, ConfigurationException {
+    try {
+      final T config = build.build();
+      loadedListener.run();
+      return config;
+    }
+    catch (IOException | ConfigurationException e) {
+      Optional<Object> unvalidatedConfig;
+      try {
+        unvalidatedConfig = Optional.ofNullable(buildUnvalidated.build());
+      }
+      catch (IOException | ConfigurationException | RuntimeException unreadable) {
+        unvalidatedConfig = Optional.empty();
+      }
+      failureListener.configurationFailed(e, unvalidatedConfig);
+      throw e;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Build<T> {
+    T build() throws IOException, ConfigurationException;
+  }
+}
@@ -0,0 +1,167 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.jetty.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the configured health checks in parallel, each with its own timeout, running the failing ones again with
+ * exponential backoff until they all pass or the deadline passes. A check that times out is interrupted, and isn't run
+ * again while it is still running, so a hung check ties up one thread rather than one per round.
+ */
+class HealthCheckGate implements ReadinessGate {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HealthCheckGate.class);
+
+  private final HealthCheckRegistry healthCheckRegistry;
+  private final CfSignalResourceHealthCheckConfig config;
+
+  HealthCheckGate(final HealthCheckRegistry healthCheckRegistry, final CfSignalResourceHealthCheckConfig config) {
+    this.healthCheckRegistry = checkNotNull(healthCheckRegistry);
+    this.config = checkNotNull(config);
+  }
+
+  @Override
+  public CompletableFuture<Readiness> await(final Server server) {
+    return check();
+  }
+
+  CompletableFuture<Readiness> check() {
+    final CompletableFuture<Readiness> readiness = new CompletableFuture<>();
+    //health checks can block, each one gets its own thread so a slow one doesn't hold up the rest
+    final ExecutorService checks = Executors.newCachedThreadPool(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-health-check-%d").build());
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-health-check-scheduler-%d").build());
+    readiness.whenComplete((result, throwable) -> {
+      checks.shutdownNow();
+      scheduler.shutdownNow();
+    });
+
+    //names are resolved now as health checks are usually registered after the bundle runs
+    final Collection<String> names = config.isAll() ? healthCheckRegistry.getNames() : config.getNames();
+    final long deadline = System.nanoTime() + config.getDeadline().toNanoseconds();
+    final Map<String, CompletableFuture<HealthCheck.Result>> running = new ConcurrentHashMap<>();
+    runRound(new ArrayList<>(names), config.getInitialBackoff().toMilliseconds(), deadline, checks, scheduler, running,
+             readiness);
+    return readiness;
+  }
+
+  private void runRound(final List<String> names,
+                        final long backoffMillis,
+                        final long deadline,
+                        final ExecutorService checks,
+                        final ScheduledExecutorService scheduler,
+                        final Map<String, CompletableFuture<HealthCheck.Result>> running,
+                        final CompletableFuture<Readiness> readiness) {
+    final Map<String, CompletableFuture<HealthCheck.Result>> results = new TreeMap<>();
+    for (String name : names) {
+      results.put(name, runHealthCheck(name, checks, scheduler, running));
+    }
+
+    CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[results.size()]))
+                     .whenComplete((unused, throwable) -> {
+      final SortedMap<String, HealthCheck.Result> failing = new TreeMap<>();
+      results.forEach((name, result) -> {
+        final HealthCheck.Result healthCheckResult = result.join();
+        if (!healthCheckResult.isHealthy()) {
+          failing.put(name, healthCheckResult);
+        }
+      });
+
+      if (failing.isEmpty()) {
+        readiness.complete(Readiness.ready());
+        return;
+      }
+
+      if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis) > deadline) {
+        readiness.complete(Readiness.notReady("health checks still failing after " + config.getDeadline() + ": "
+                                              + describe(failing)));
+        return;
+      }
+
+      LOGGER.info("Health checks failing, checking again in {}ms: {}", backoffMillis, describe(failing));
+      try {
+        scheduler.schedule(() -> runRound(new ArrayList<>(failing.keySet()),
+                                          Math.min(backoffMillis * 2, config.getMaxBackoff().toMilliseconds()),
+                                          deadline, checks, scheduler, running, readiness),
+                           backoffMillis, TimeUnit.MILLISECONDS);
+      }
+      catch (RuntimeException e) {
+        //shut down because readiness already completed
+        LOGGER.debug("Not checking health again", e);
+      }
+    });
+  }
+
+  /**
+   * @param running each check's latest run, which completes once the check returns, however long after timing out
+   */
+  private CompletableFuture<HealthCheck.Result> runHealthCheck(
+    final String name,
+    final ExecutorService checks,
+    final ScheduledExecutorService scheduler,
+    final Map<String, CompletableFuture<HealthCheck.Result>> running) {
+    CompletableFuture<HealthCheck.Result> run = running.get(name);
+    Future<?> task = null;
+    if (run == null || run.isDone()) {
+      final CompletableFuture<HealthCheck.Result> started = new CompletableFuture<>();
+      task = checks.submit(() -> {
+        try {
+          started.complete(healthCheckRegistry.runHealthCheck(name));
+        }
+        catch (NoSuchElementException e) {
+          started.complete(HealthCheck.Result.unhealthy("no health check named '" + name + "' is registered"));
+        }
+        catch (RuntimeException e) {
+          started.complete(HealthCheck.Result.unhealthy(e));
+        }
+      });
+      running.put(name, started);
+      run = started;
+    }
+    else {
+      LOGGER.debug("Health check '{}' is still running since it timed out, waiting on that run", name);
+    }
+
+    final CompletableFuture<HealthCheck.Result> result = new CompletableFuture<>();
+    run.thenAccept(result::complete);
+    final Future<?> started = task;
+    scheduler.schedule(() -> {
+      if (result.complete(HealthCheck.Result.unhealthy("timed out after " + config.getCheckTimeout()))
+          && started != null) {
+        //a check that ignores the interrupt keeps its thread, but isn't run again until it returns
+        started.cancel(true);
+      }
+    }, config.getCheckTimeout().toMilliseconds(), TimeUnit.MILLISECONDS);
+    return result;
+  }
+
+  private static String describe(final SortedMap<String, HealthCheck.Result> failing) {
+    return failing.entrySet()
+                  .stream()
+                  .map(entry -> entry.getKey() + " (" + entry.getValue().getMessage() + ")")
+                  .collect(Collectors.joining(", "));
+  }
+}
@@ -0,0 +1,70 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Objects;
+
+import io.dropwizard.util.Duration;
+
+/**
+ * A lifecycle action of an ASG lifecycle hook, holding this instance in {@code Pending:Wait} until it is completed or
+ * the hook's heartbeat timeout passes.
+ */
+final class LifecycleAction {
+
+  private final String autoScalingGroupName;
+  private final String lifecycleHookName;
+  private final String instanceId;
+  private final Duration heartbeatTimeout;
+
+  LifecycleAction(final String autoScalingGroupName,
+                  final String lifecycleHookName,
+                  final String instanceId,
+                  final Duration heartbeatTimeout) {
+    this.autoScalingGroupName = checkNotNull(autoScalingGroupName);
+    this.lifecycleHookName = checkNotNull(lifecycleHookName);
+    this.instanceId = checkNotNull(instanceId);
+    this.heartbeatTimeout = checkNotNull(heartbeatTimeout);
+  }
+
+  String getAutoScalingGroupName() {
+    return autoScalingGroupName;
+  }
+
+  String getLifecycleHookName() {
+    return lifecycleHookName;
+  }
+
+  String getInstanceId() {
+    return instanceId;
+  }
+
+  Duration getHeartbeatTimeout() {
+    return heartbeatTimeout;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final LifecycleAction that = (LifecycleAction) o;
+    return autoScalingGroupName.equals(that.autoScalingGroupName)
+           && lifecycleHookName.equals(that.lifecycleHookName)
+           && instanceId.equals(that.instanceId)
+           && heartbeatTimeout.equals(that.heartbeatTimeout);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(autoScalingGroupName, lifecycleHookName, instanceId, heartbeatTimeout);
+  }
+
+  @Override
+  public String toString() {
+    return "lifecycle hook '" + lifecycleHookName + "' of ASG '" + autoScalingGroupName + "'";
+  }
+}
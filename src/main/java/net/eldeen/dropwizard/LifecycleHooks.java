@@ -0,0 +1,30 @@
+package net.eldeen.dropwizard;
+
+import java.util.List;
+
+/**
+ * The Auto Scaling calls needed to hold an instance back with lifecycle hooks: from traffic until it is ready when
+ * launching, and from terminating until its requests have drained.
+ */
+interface LifecycleHooks {
+
+  String LAUNCHING = "autoscaling:EC2_INSTANCE_LAUNCHING";
+  String TERMINATING = "autoscaling:EC2_INSTANCE_TERMINATING";
+
+  /**
+   * @param transition {@value #LAUNCHING} or {@value #TERMINATING}
+   * @return the actions of the hooks on {@code transition} holding the instance in {@code Pending:Wait} or
+   * {@code Terminating:Wait}, empty if it isn't waiting on any
+   */
+  List<LifecycleAction> findPendingActions(String instanceId, String transition);
+
+  /**
+   * Restart the action's heartbeat timeout.
+   */
+  void recordHeartbeat(LifecycleAction action);
+
+  /**
+   * @param proceed {@code CONTINUE} if {@code true}, otherwise {@code ABANDON}, which terminates a launching instance
+   */
+  void complete(LifecycleAction action, boolean proceed);
+}
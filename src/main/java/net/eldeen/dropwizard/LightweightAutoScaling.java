@@ -0,0 +1,93 @@
+package net.eldeen.dropwizard;
+
+import static net.eldeen.dropwizard.QueryApiClient.members;
+import static net.eldeen.dropwizard.QueryApiClient.text;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import io.dropwizard.util.Duration;
+import org.w3c.dom.Element;
+
+/**
+ * {@link LifecycleHooks} on the Auto Scaling query API, built on {@link QueryApiClient} rather than the SDK's Auto
+ * Scaling module, which the bundle otherwise has no need of.
+ */
+class LightweightAutoScaling implements LifecycleHooks {
+
+  private static final String SIGNING_NAME = "autoscaling";
+  //Auto Scaling's own default
+  private static final long DEFAULT_HEARTBEAT_TIMEOUT_SECONDS = 3600;
+
+  private final QueryApiClient client;
+
+  LightweightAutoScaling(final String region, final AWSCredentialsProvider credentialsProvider) {
+    this(QueryApiClient.endpointFor(SIGNING_NAME, region), region, credentialsProvider, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  LightweightAutoScaling(final URI endpoint,
+                         final String region,
+                         final AWSCredentialsProvider credentialsProvider,
+                         final Clock clock) {
+    this.client = new QueryApiClient(endpoint, region, SIGNING_NAME, "AmazonAutoScaling", "2011-01-01",
+                                     credentialsProvider, clock);
+  }
+
+  @Override
+  public List<LifecycleAction> findPendingActions(final String instanceId, final String transition) {
+    final Map<String, String> instanceParameters = new LinkedHashMap<>();
+    instanceParameters.put("InstanceIds.member.1", instanceId);
+    final List<Element> instances =
+      members(client.call("DescribeAutoScalingInstances", instanceParameters), "AutoScalingInstances");
+    final String waitingState = TERMINATING.equals(transition) ? "Terminating:Wait" : "Pending:Wait";
+    if (instances.isEmpty() || !waitingState.equals(text(instances.get(0), "LifecycleState"))) {
+      return Collections.emptyList();
+    }
+
+    final String autoScalingGroupName = text(instances.get(0), "AutoScalingGroupName");
+    final Map<String, String> hookParameters = new LinkedHashMap<>();
+    hookParameters.put("AutoScalingGroupName", autoScalingGroupName);
+    final List<LifecycleAction> actions = new ArrayList<>();
+    for (Element hook : members(client.call("DescribeLifecycleHooks", hookParameters), "LifecycleHooks")) {
+      if (transition.equals(text(hook, "LifecycleTransition"))) {
+        final String heartbeatTimeout = text(hook, "HeartbeatTimeout");
+        actions.add(new LifecycleAction(autoScalingGroupName,
+                                        text(hook, "LifecycleHookName"),
+                                        instanceId,
+                                        Duration.seconds(Strings.isNullOrEmpty(heartbeatTimeout)
+                                                         ? DEFAULT_HEARTBEAT_TIMEOUT_SECONDS
+                                                         : Long.parseLong(heartbeatTimeout))));
+      }
+    }
+    return actions;
+  }
+
+  @Override
+  public void recordHeartbeat(final LifecycleAction action) {
+    client.call("RecordLifecycleActionHeartbeat", parameters(action));
+  }
+
+  @Override
+  public void complete(final LifecycleAction action, final boolean proceed) {
+    final Map<String, String> parameters = parameters(action);
+    parameters.put("LifecycleActionResult", proceed ? "CONTINUE" : "ABANDON");
+    client.call("CompleteLifecycleAction", parameters);
+  }
+
+  private static Map<String, String> parameters(final LifecycleAction action) {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("AutoScalingGroupName", action.getAutoScalingGroupName());
+    parameters.put("LifecycleHookName", action.getLifecycleHookName());
+    parameters.put("InstanceId", action.getInstanceId());
+    return parameters;
+  }
+}
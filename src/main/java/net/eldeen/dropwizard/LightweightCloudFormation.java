@@ -0,0 +1,98 @@
+package net.eldeen.dropwizard;
+
+import static net.eldeen.dropwizard.QueryApiClient.text;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.services.cloudformation.AbstractAmazonCloudFormation;
+import com.amazonaws.services.cloudformation.model.DescribeStackResourceRequest;
+import com.amazonaws.services.cloudformation.model.DescribeStackResourceResult;
+import com.amazonaws.services.cloudformation.model.GetTemplateRequest;
+import com.amazonaws.services.cloudformation.model.GetTemplateResult;
+import com.amazonaws.services.cloudformation.model.SignalResourceRequest;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import org.w3c.dom.Element;
+
+/**
+ * A minimal CloudFormation client, built on {@link QueryApiClient}, for the calls the bundle makes:
+ * {@code DescribeStackResource}, {@code GetTemplate} and {@code SignalResource}. Every other call throws
+ * {@link UnsupportedOperationException}. Failures are reported as {@link AmazonServiceException}s and
+ * {@link AmazonClientException}s, like the SDK client, so {@link CloudFormationRetrier} treats them the same way.
+ */
+class LightweightCloudFormation extends AbstractAmazonCloudFormation {
+
+  private static final String SIGNING_NAME = "cloudformation";
+
+  private final QueryApiClient client;
+
+  LightweightCloudFormation(final String region, final AWSCredentialsProvider credentialsProvider) {
+    this(endpointFor(region), region, credentialsProvider, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  LightweightCloudFormation(final URI endpoint,
+                            final String region,
+                            final AWSCredentialsProvider credentialsProvider,
+                            final Clock clock) {
+    this.client = new QueryApiClient(endpoint, region, SIGNING_NAME, "AmazonCloudFormation", "2010-05-15",
+                                     credentialsProvider, clock);
+  }
+
+  static URI endpointFor(final String region) {
+    return QueryApiClient.endpointFor(SIGNING_NAME, region);
+  }
+
+  @Override
+  public DescribeStackResourceResult describeStackResource(final DescribeStackResourceRequest request) {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("StackName", request.getStackName());
+    parameters.put("LogicalResourceId", request.getLogicalResourceId());
+    final Element result = client.call("DescribeStackResource", parameters);
+
+    final StackResourceDetail detail = new StackResourceDetail()
+      .withStackName(text(result, "StackName"))
+      .withStackId(text(result, "StackId"))
+      .withLogicalResourceId(text(result, "LogicalResourceId"))
+      .withPhysicalResourceId(text(result, "PhysicalResourceId"))
+      .withResourceType(text(result, "ResourceType"))
+      .withResourceStatus(text(result, "ResourceStatus"))
+      .withResourceStatusReason(text(result, "ResourceStatusReason"));
+    final String lastUpdated = text(result, "LastUpdatedTimestamp");
+    if (!Strings.isNullOrEmpty(lastUpdated)) {
+      detail.setLastUpdatedTimestamp(Date.from(Instant.parse(lastUpdated)));
+    }
+    return new DescribeStackResourceResult().withStackResourceDetail(detail);
+  }
+
+  @Override
+  public GetTemplateResult getTemplate(final GetTemplateRequest request) {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("StackName", request.getStackName());
+    return new GetTemplateResult().withTemplateBody(text(client.call("GetTemplate", parameters), "TemplateBody"));
+  }
+
+  @Override
+  public void signalResource(final SignalResourceRequest request) {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("StackName", request.getStackName());
+    parameters.put("LogicalResourceId", request.getLogicalResourceId());
+    parameters.put("UniqueId", request.getUniqueId());
+    parameters.put("Status", request.getStatus());
+    client.call("SignalResource", parameters);
+  }
+
+  @Override
+  public void shutdown() {
+    //connections are pooled by the JDK and shared with the rest of the process
+  }
+}
@@ -0,0 +1,109 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.BasicSessionCredentials;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+
+/**
+ * Credentials for {@link LightweightCloudFormation}, from the {@code AWS_ACCESS_KEY_ID}, {@code AWS_SECRET_ACCESS_KEY}
+ * and optional {@code AWS_SESSION_TOKEN} environment variables, otherwise from the EC2 instance profile via the
+ * instance metadata service. Instance profile credentials are cached until shortly before they expire.
+ */
+class LightweightCredentialsProvider implements AWSCredentialsProvider {
+
+  private static final String SECURITY_CREDENTIALS_PATH = "/latest/meta-data/iam/security-credentials/";
+  //refresh instance profile credentials well before they expire, as the SDK does
+  private static final Duration REFRESH_BEFORE_EXPIRY = Duration.ofMinutes(5);
+
+  private final Function<String, String> environment;
+  private final Ec2MetadataResolver ec2MetadataResolver;
+  private final Clock clock;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private AWSCredentials credentials;
+  private Instant expiration;
+
+  LightweightCredentialsProvider(final Ec2MetadataResolver ec2MetadataResolver) {
+    this(System::getenv, ec2MetadataResolver, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  LightweightCredentialsProvider(final Function<String, String> environment,
+                                 final Ec2MetadataResolver ec2MetadataResolver,
+                                 final Clock clock) {
+    this.environment = checkNotNull(environment);
+    this.ec2MetadataResolver = checkNotNull(ec2MetadataResolver);
+    this.clock = checkNotNull(clock);
+  }
+
+  @Override
+  public synchronized AWSCredentials getCredentials() {
+    if (credentials == null || expiration != null && clock.instant().isAfter(expiration.minus(REFRESH_BEFORE_EXPIRY))) {
+      refresh();
+    }
+    return credentials;
+  }
+
+  @Override
+  public synchronized void refresh() {
+    final Optional<AWSCredentials> fromEnvironment = fromEnvironment();
+    if (fromEnvironment.isPresent()) {
+      credentials = fromEnvironment.get();
+      expiration = null;
+      return;
+    }
+    try {
+      fromInstanceProfile();
+    }
+    catch (IOException e) {
+      throw new AmazonClientException("Unable to load credentials from the EC2 instance profile", e);
+    }
+  }
+
+  private Optional<AWSCredentials> fromEnvironment() {
+    final String accessKeyId = environment.apply("AWS_ACCESS_KEY_ID");
+    final String secretKey = environment.apply("AWS_SECRET_ACCESS_KEY");
+    if (Strings.isNullOrEmpty(accessKeyId) || Strings.isNullOrEmpty(secretKey)) {
+      return Optional.empty();
+    }
+    final String sessionToken = environment.apply("AWS_SESSION_TOKEN");
+    return Optional.of(Strings.isNullOrEmpty(sessionToken)
+                       ? new BasicAWSCredentials(accessKeyId, secretKey)
+                       : new BasicSessionCredentials(accessKeyId, secretKey, sessionToken));
+  }
+
+  private void fromInstanceProfile() throws IOException {
+    final String role = ec2MetadataResolver.get(SECURITY_CREDENTIALS_PATH)
+                                           .map(roles -> roles.split("\n")[0].trim())
+                                           .orElseThrow(() -> new AmazonClientException(
+                                             "No credentials in the environment and no EC2 instance profile"));
+    final String document = ec2MetadataResolver.get(SECURITY_CREDENTIALS_PATH + role)
+                                               .orElseThrow(() -> new AmazonClientException(
+                                                 "No credentials for EC2 instance profile role '" + role + "'"));
+
+    final JsonNode json = objectMapper.readTree(document);
+    if (!"Success".equals(json.path("Code").asText("Success"))) {
+      throw new AmazonClientException("Unable to load credentials for EC2 instance profile role '" + role + "': "
+                                      + json.path("Message").asText());
+    }
+    credentials = new BasicSessionCredentials(json.path("AccessKeyId").asText(),
+                                              json.path("SecretAccessKey").asText(),
+                                              json.path("Token").asText());
+    expiration = json.hasNonNull("Expiration") ? Instant.parse(json.get("Expiration").asText()) : null;
+  }
+}
@@ -0,0 +1,82 @@
+package net.eldeen.dropwizard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.base.Strings;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.Server;
+
+/**
+ * Finds where the app's own Jetty connectors are listening, and sends it requests there.
+ */
+final class LocalConnectors {
+
+  private LocalConnectors() {
+  }
+
+  /**
+   * @param connectorName name of the connector, Dropwizard names them {@code application} and {@code admin}
+   * @return the base URI of the named connector
+   * @throws IllegalStateException if there is no started network connector with that name
+   */
+  static URI baseUri(final Server server, final String connectorName) {
+    return Arrays.stream(server.getConnectors())
+                 .filter(connector -> connector instanceof NetworkConnector)
+                 .map(connector -> (NetworkConnector) connector)
+                 .filter(connector -> connectorName.equals(connector.getName()) && connector.getLocalPort() > 0)
+                 .findFirst()
+                 .map(connector -> URI.create("http://" + localHost(connector.getHost()) + ":" + connector.getLocalPort()))
+                 .orElseThrow(() -> new IllegalStateException("no started connector named '" + connectorName + "'"));
+  }
+
+  /**
+   * Send a request straight to the app, bypassing any proxy, and read the whole response so the connection can be
+   * kept alive.
+   * @param body the body to send, {@code null} for none
+   * @return the response status
+   */
+  static int send(final URI uri,
+                  final String method,
+                  final Map<String, String> headers,
+                  final byte[] body,
+                  final int timeoutMillis) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection(Proxy.NO_PROXY);
+    connection.setConnectTimeout(timeoutMillis);
+    connection.setReadTimeout(timeoutMillis);
+    connection.setRequestMethod(method);
+    headers.forEach(connection::setRequestProperty);
+    if (body != null) {
+      connection.setDoOutput(true);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+    }
+    final int status = connection.getResponseCode();
+    try (InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+      if (in != null) {
+        final byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+          //discard
+        }
+      }
+    }
+    return status;
+  }
+
+  private static String localHost(final String host) {
+    if (Strings.isNullOrEmpty(host) || "0.0.0.0".equals(host)) {
+      return "127.0.0.1";
+    }
+    if ("::".equals(host) || "0:0:0:0:0:0:0:0".equals(host)) {
+      return "[::1]";
+    }
+    return host.contains(":") ? "[" + host + "]" : host;
+  }
+}
@@ -0,0 +1,209 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Makes calls to an AWS query API, e.g. CloudFormation's or Auto Scaling's, as form encoded {@code POST}s signed with
+ * {@link SigV4Signer}, on the JDK's HTTP client. Failures are reported as {@link AmazonServiceException}s and
+ * {@link AmazonClientException}s, like the SDK clients, so {@link CloudFormationRetrier} treats them the same way.
+ */
+class QueryApiClient {
+
+  private static final String CONTENT_TYPE = "application/x-www-form-urlencoded; charset=utf-8";
+  private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+  private static final int READ_TIMEOUT_MILLIS = 30_000;
+
+  private final URI endpoint;
+  private final String apiVersion;
+  private final String serviceName;
+  private final SigV4Signer signer;
+  private final AWSCredentialsProvider credentialsProvider;
+  private final Clock clock;
+
+  /**
+   * @param signingName the service's name in signatures and endpoints, e.g. {@code cloudformation}
+   * @param serviceName the service's name in errors, e.g. {@code AmazonCloudFormation}
+   */
+  QueryApiClient(final URI endpoint,
+                 final String region,
+                 final String signingName,
+                 final String serviceName,
+                 final String apiVersion,
+                 final AWSCredentialsProvider credentialsProvider,
+                 final Clock clock) {
+    this.endpoint = checkNotNull(endpoint);
+    this.apiVersion = checkNotNull(apiVersion);
+    this.serviceName = checkNotNull(serviceName);
+    this.signer = new SigV4Signer(region, signingName);
+    this.credentialsProvider = checkNotNull(credentialsProvider);
+    this.clock = checkNotNull(clock);
+  }
+
+  static URI endpointFor(final String signingName, final String region) {
+    return URI.create("https://" + signingName + "." + region + (region.startsWith("cn-") ? ".amazonaws.com.cn/"
+                                                                                         : ".amazonaws.com/"));
+  }
+
+  /**
+   * @param parameters the action's parameters, those with {@code null} values are left out
+   * @return the {@code <action>Result} element of the response, or its root element if it has none
+   */
+  Element call(final String action, final Map<String, String> parameters) {
+    final byte[] body = formEncode(action, parameters);
+    final Map<String, String> headers = new LinkedHashMap<>();
+    headers.put("Content-Type", CONTENT_TYPE);
+    signer.sign("POST", endpoint, headers, body, credentialsProvider.getCredentials(), clock.instant());
+
+    final int status;
+    final byte[] response;
+    try {
+      final HttpURLConnection connection = (HttpURLConnection) endpoint.toURL().openConnection();
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+      connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setFixedLengthStreamingMode(body.length);
+      headers.forEach(connection::setRequestProperty);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      }
+      status = connection.getResponseCode();
+      final InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+      response = in == null ? new byte[0] : read(in);
+    }
+    catch (IOException e) {
+      throw new AmazonClientException("Unable to execute HTTP request: " + e.getMessage(), e);
+    }
+
+    if (status / 100 != 2) {
+      throw serviceException(status, response);
+    }
+    final Element root = parse(response).getDocumentElement();
+    final NodeList results = root.getElementsByTagName(action + "Result");
+    return results.getLength() > 0 ? (Element) results.item(0) : root;
+  }
+
+  /**
+   * @return the text of the first element named {@code tagName} under {@code parent}, or {@code null} if there is none
+   */
+  static String text(final Element parent, final String tagName) {
+    final NodeList elements = parent.getElementsByTagName(tagName);
+    return elements.getLength() == 0 ? null : elements.item(0).getTextContent();
+  }
+
+  /**
+   * @return the {@code member} elements of the first list named {@code tagName} under {@code parent}
+   */
+  static List<Element> members(final Element parent, final String tagName) {
+    final List<Element> members = new ArrayList<>();
+    final NodeList lists = parent.getElementsByTagName(tagName);
+    if (lists.getLength() > 0) {
+      for (Node child = lists.item(0).getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (child instanceof Element && "member".equals(child.getNodeName())) {
+          members.add((Element) child);
+        }
+      }
+    }
+    return members;
+  }
+
+  private AmazonServiceException serviceException(final int status, final byte[] response) {
+    Element error = null;
+    String requestId = null;
+    try {
+      final Element root = parse(response).getDocumentElement();
+      final NodeList errors = root.getElementsByTagName("Error");
+      error = errors.getLength() > 0 ? (Element) errors.item(0) : null;
+      requestId = text(root, "RequestId");
+    }
+    catch (AmazonClientException e) {
+      //not XML, e.g. from a proxy, report the status alone
+    }
+
+    final AmazonServiceException exception = new AmazonServiceException(
+      error == null ? new String(response, StandardCharsets.UTF_8) : text(error, "Message"));
+    exception.setStatusCode(status);
+    exception.setServiceName(serviceName);
+    exception.setRequestId(requestId);
+    if (error != null) {
+      exception.setErrorCode(text(error, "Code"));
+      exception.setErrorType("Receiver".equals(text(error, "Type")) ? AmazonServiceException.ErrorType.Service
+                                                                     : AmazonServiceException.ErrorType.Client);
+    }
+    else {
+      exception.setErrorType(status >= 500 ? AmazonServiceException.ErrorType.Service
+                                           : AmazonServiceException.ErrorType.Client);
+    }
+    return exception;
+  }
+
+  private byte[] formEncode(final String action, final Map<String, String> parameters) {
+    final StringBuilder form = new StringBuilder("Action=").append(action).append("&Version=").append(apiVersion);
+    parameters.forEach((name, value) -> {
+      if (value != null) {
+        form.append('&').append(name).append('=').append(urlEncode(value));
+      }
+    });
+    return form.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String urlEncode(final String value) {
+    try {
+      return URLEncoder.encode(value, "UTF-8").replace("+", "%20").replace("*", "%2A").replace("%7E", "~");
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException("UTF-8 is required of every JVM", e);
+    }
+  }
+
+  private Document parse(final byte[] xml) {
+    try {
+      final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      factory.setExpandEntityReferences(false);
+      return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+    catch (ParserConfigurationException | SAXException | IOException e) {
+      throw new AmazonClientException("Unable to parse the " + serviceName + " response", e);
+    }
+  }
+
+  private static byte[] read(final InputStream inputStream) throws IOException {
+    try (InputStream in = inputStream) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
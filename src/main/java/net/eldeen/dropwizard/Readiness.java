@@ -0,0 +1,94 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Whether the app is ready to take traffic, and if not, why not.
+ */
+final class Readiness {
+
+  private static final Readiness READY = new Readiness(null);
+
+  private final String reason;
+
+  private Readiness(final String reason) {
+    this.reason = reason;
+  }
+
+  static Readiness ready() {
+    return READY;
+  }
+
+  static Readiness notReady(final String reason) {
+    return new Readiness(checkNotNull(reason));
+  }
+
+  boolean isReady() {
+    return reason == null;
+  }
+
+  /**
+   * @return why the app isn't ready, empty when it is ready
+   */
+  Optional<String> getReason() {
+    return Optional.ofNullable(reason);
+  }
+
+  /**
+   * Combine readiness that is being determined concurrently. Completes as soon as any is not ready, otherwise once all
+   * are ready. A future that fails counts as not ready.
+   */
+  static CompletableFuture<Readiness> all(final List<CompletableFuture<Readiness>> readiness) {
+    final CompletableFuture<Readiness> combined = new CompletableFuture<>();
+    for (CompletableFuture<Readiness> each : readiness) {
+      each.whenComplete((result, throwable) -> {
+        if (throwable != null) {
+          combined.complete(notReady(String.valueOf(throwable)));
+        }
+        else if (!result.isReady()) {
+          combined.complete(result);
+        }
+      });
+    }
+    //callbacks may run in any order, so check every result rather than assuming the ones above have already run
+    CompletableFuture.allOf(readiness.toArray(new CompletableFuture<?>[readiness.size()]))
+                     .whenComplete((unused, throwable) -> {
+                       for (CompletableFuture<Readiness> each : readiness) {
+                         final Readiness result = each.exceptionally(failure -> notReady(String.valueOf(failure)))
+                                                      .join();
+                         if (!result.isReady()) {
+                           combined.complete(result);
+                           return;
+                         }
+                       }
+                       combined.complete(ready());
+                     });
+    return combined;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return Objects.equals(reason, ((Readiness) o).reason);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(reason);
+  }
+
+  @Override
+  public String toString() {
+    return isReady() ? "ready" : "not ready: " + reason;
+  }
+}
@@ -0,0 +1,19 @@
+package net.eldeen.dropwizard;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jetty.server.Server;
+
+/**
+ * Something that must be ready before {@link CfSignalResourceBundle} signals {@code SUCCESS}. If it is not ready,
+ * {@code FAILURE} is signalled instead.
+ */
+interface ReadinessGate {
+
+  /**
+   * Called once Jetty has started. Must not block, do the work elsewhere.
+   * @param server the started Jetty server
+   * @return a future completing with the {@link Readiness} once known
+   */
+  CompletableFuture<Readiness> await(Server server);
+}
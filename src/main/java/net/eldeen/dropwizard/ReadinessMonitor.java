@@ -0,0 +1,210 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.jetty.MutableServletContextHandler;
+import io.dropwizard.lifecycle.Managed;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps checking, from the metrics Dropwizard records for Jetty, the JVM and the app's requests, whether the app is
+ * still fit to take traffic. A metric that isn't registered, e.g. with a custom server factory, isn't checked. See
+ * {@link CfSignalResourceMonitorConfig} for the thresholds, and how the readiness avoids flapping. Sampling only starts
+ * once the app has signalled, as until then it would only find the app busy starting.
+ */
+class ReadinessMonitor implements Managed {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReadinessMonitor.class);
+
+  static final String THREAD_POOL_UTILIZATION = MetricRegistry.name(QueuedThreadPool.class, "dw", "utilization");
+  static final String QUEUED_REQUESTS = MetricRegistry.name(QueuedThreadPool.class, "dw", "jobs");
+  static final String REQUESTS = MetricRegistry.name(MutableServletContextHandler.class, "requests");
+  private static final String GC_PREFIX = "jvm.gc.";
+  private static final String GC_TIME_SUFFIX = ".time";
+
+  private final MetricRegistry metrics;
+  private final CfSignalResourceMonitorConfig config;
+  private final CompletableFuture<?> signalled;
+  private final LongSupplier nanoClock;
+  private volatile ScheduledExecutorService sampler;
+
+  private volatile Readiness readiness = Readiness.ready();
+  //only touched by the sampling thread
+  private int unreadyInARow;
+  private int readyInARow;
+  private long lastGcMillis = -1;
+  private long lastSampleNanos;
+  private long lastRequestCount;
+
+  /**
+   * @param signalled completes once the app has signalled, or found it needn't
+   */
+  ReadinessMonitor(final MetricRegistry metrics,
+                   final CfSignalResourceMonitorConfig config,
+                   final CompletableFuture<?> signalled) {
+    this(metrics, config, signalled, System::nanoTime);
+  }
+
+  @VisibleForTesting
+  ReadinessMonitor(final MetricRegistry metrics,
+                   final CfSignalResourceMonitorConfig config,
+                   final CompletableFuture<?> signalled,
+                   final LongSupplier nanoClock) {
+    this.metrics = checkNotNull(metrics);
+    this.config = checkNotNull(config);
+    this.signalled = checkNotNull(signalled);
+    this.nanoClock = checkNotNull(nanoClock);
+    SignalMetrics.registerGauge(metrics, MetricRegistry.name(SignalMetrics.PREFIX, "ready"),
+                                (Gauge<Boolean>) () -> readiness.isReady());
+  }
+
+  @Override
+  public void start() {
+    sampler = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-resource-monitor-%d").build());
+    final long intervalMillis = config.getInterval().toMilliseconds();
+    signalled.whenComplete((result, throwable) -> sampler.scheduleAtFixedRate(() -> {
+      try {
+        sample();
+      }
+      catch (RuntimeException e) {
+        //a broken gauge mustn't stop the sampling
+        LOGGER.warn("Unable to sample the app's metrics", e);
+      }
+    }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+  }
+
+  @Override
+  public void stop() {
+    if (sampler != null) {
+      sampler.shutdownNow();
+    }
+  }
+
+  Readiness getReadiness() {
+    return readiness;
+  }
+
+  /**
+   * Check every threshold, and change the readiness once enough samples in a row agree it has changed.
+   * @return the readiness after this sample
+   */
+  @VisibleForTesting
+  Readiness sample() {
+    final Optional<String> problem = firstProblem();
+    if (problem.isPresent()) {
+      readyInARow = 0;
+      if (++unreadyInARow >= config.getUnreadySamples()) {
+        if (readiness.isReady()) {
+          LOGGER.warn("No longer ready to take traffic, {}", problem.get());
+        }
+        readiness = Readiness.notReady(problem.get());
+      }
+    }
+    else {
+      unreadyInARow = 0;
+      if (++readyInARow >= config.getReadySamples() && !readiness.isReady()) {
+        LOGGER.info("Ready to take traffic again");
+        readiness = Readiness.ready();
+      }
+    }
+    return readiness;
+  }
+
+  private Optional<String> firstProblem() {
+    //the GC's share of the interval, and the requests since the last sample, have to be worked out every sample,
+    //whatever else is wrong
+    final Optional<String> gcProblem = gcProblem();
+    final Optional<String> latencyProblem = latencyProblem();
+
+    final Optional<Number> utilization = gaugeValue(THREAD_POOL_UTILIZATION);
+    if (utilization.isPresent() && utilization.get().doubleValue() > config.getMaxThreadPoolUtilization()) {
+      return Optional.of(String.format("%.0f%% of Jetty's threads are busy", utilization.get().doubleValue() * 100));
+    }
+    final Optional<Number> queued = gaugeValue(QUEUED_REQUESTS);
+    if (queued.isPresent() && queued.get().longValue() > config.getMaxQueuedRequests()) {
+      return Optional.of(queued.get() + " requests are waiting for a Jetty thread");
+    }
+    if (gcProblem.isPresent()) {
+      return gcProblem;
+    }
+    return latencyProblem;
+  }
+
+  /**
+   * The timer's reservoir only changes as requests arrive, and an unready app is sent none, so the latency is only
+   * checked when there have been requests since the last sample, otherwise a slow spell would keep the app unready.
+   */
+  private Optional<String> latencyProblem() {
+    final Metric requests = metrics.getMetrics().get(REQUESTS);
+    if (!(requests instanceof Timer)) {
+      return Optional.empty();
+    }
+    final Timer timer = (Timer) requests;
+    final long count = timer.getCount();
+    final long previousCount = lastRequestCount;
+    lastRequestCount = count;
+    if (count == previousCount) {
+      return Optional.empty();
+    }
+    final double p99Nanos = timer.getSnapshot().get99thPercentile();
+    return p99Nanos > config.getMaxRequestLatency().toNanoseconds()
+           ? Optional.of(String.format("the 99th percentile request took %.0fms", p99Nanos / 1_000_000))
+           : Optional.empty();
+  }
+
+  private Optional<String> gcProblem() {
+    //getGauges holds raw Gauges
+    final Collection<?> gcTimes =
+      metrics.getGauges((name, metric) -> name.startsWith(GC_PREFIX) && name.endsWith(GC_TIME_SUFFIX)).values();
+    if (gcTimes.isEmpty()) {
+      return Optional.empty();
+    }
+    long gcMillis = 0;
+    for (Object gcTime : gcTimes) {
+      final Object value = ((Gauge<?>) gcTime).getValue();
+      if (value instanceof Number) {
+        gcMillis += ((Number) value).longValue();
+      }
+    }
+    final long nowNanos = nanoClock.getAsLong();
+    final long previousGcMillis = lastGcMillis;
+    final long previousSampleNanos = lastSampleNanos;
+    lastGcMillis = gcMillis;
+    lastSampleNanos = nowNanos;
+    if (previousGcMillis < 0 || nowNanos <= previousSampleNanos) {
+      return Optional.empty();
+    }
+
+    final double ratio =
+      (double) TimeUnit.MILLISECONDS.toNanos(gcMillis - previousGcMillis) / (nowNanos - previousSampleNanos);
+    return ratio > config.getMaxGcPauseRatio()
+           ? Optional.of(String.format("%.0f%% of the time was spent collecting garbage", ratio * 100))
+           : Optional.empty();
+  }
+
+  private Optional<Number> gaugeValue(final String name) {
+    final Metric gauge = metrics.getMetrics().get(name);
+    if (!(gauge instanceof Gauge)) {
+      return Optional.empty();
+    }
+    final Object value = ((Gauge<?>) gauge).getValue();
+    return value instanceof Number ? Optional.of((Number) value) : Optional.empty();
+  }
+}
@@ -0,0 +1,42 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serves whether the app is ready to take traffic as JSON on the admin port, with a {@code 503} when it isn't, for the
+ * load balancer's health check.
+ */
+class ReadinessServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient Supplier<Readiness> readiness;
+  private final transient ObjectMapper objectMapper = new ObjectMapper();
+
+  ReadinessServlet(final Supplier<Readiness> readiness) {
+    this.readiness = checkNotNull(readiness);
+  }
+
+  @Override
+  protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+    final Readiness current = readiness.get();
+    final Map<String, Object> body = new LinkedHashMap<>();
+    body.put("ready", current.isReady());
+    current.getReason().ifPresent(reason -> body.put("reason", reason));
+
+    resp.setStatus(current.isReady() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    resp.setContentType("application/json");
+    resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+    objectMapper.writeValue(resp.getOutputStream(), body);
+  }
+}
@@ -0,0 +1,165 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.dropwizard.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs {@link CfSignalResourceReadinessTask}s on a fork-join pool, each starting as soon as the tasks it depends on have
+ * completed. Dependencies must be added before the tasks that depend on them, so the graph can't have cycles and tasks
+ * can start while the rest of the app is still starting. The first task to fail makes the app not ready and keeps tasks
+ * that haven't started yet from starting.
+ */
+class ReadinessTaskGraph {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReadinessTaskGraph.class);
+
+  //guarded by this
+  private final Map<String, CompletableFuture<Void>> tasks = new LinkedHashMap<>();
+  private final Map<String, Long> timingsNanos = new ConcurrentHashMap<>();
+  private final CompletableFuture<Readiness> failure = new CompletableFuture<>();
+  //guarded by this
+  private ForkJoinPool pool;
+
+  synchronized void add(final String name, final CfSignalResourceReadinessTask task, final String... dependsOn) {
+    checkNotNull(name);
+    checkNotNull(task);
+    checkArgument(!tasks.containsKey(name), "a readiness task named '%s' has already been added", name);
+
+    final CompletableFuture<?>[] dependencies = new CompletableFuture<?>[dependsOn.length];
+    for (int i = 0; i < dependsOn.length; i++) {
+      dependencies[i] = tasks.get(dependsOn[i]);
+      checkArgument(dependencies[i] != null,
+                    "readiness task '%s' depends on '%s' which must be added first", name, dependsOn[i]);
+    }
+
+    //a task that fails reports itself, so the tasks skipped because of it don't take the blame
+    final CompletableFuture<Void> future = CompletableFuture.allOf(dependencies)
+                                                            .thenRunAsync(() -> run(name, task), pool());
+    tasks.put(name, future);
+  }
+
+  synchronized boolean isEmpty() {
+    return tasks.isEmpty();
+  }
+
+  /**
+   * @return completes with ready once every task added so far has completed, or not ready as soon as any fails
+   */
+  synchronized CompletableFuture<Readiness> await() {
+    if (tasks.isEmpty()) {
+      return CompletableFuture.completedFuture(Readiness.ready());
+    }
+
+    final CompletableFuture<Readiness> readiness = new CompletableFuture<>();
+    failure.thenAccept(readiness::complete);
+    CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture<?>[tasks.size()]))
+                     .thenRun(() -> readiness.complete(Readiness.ready()));
+
+    final ForkJoinPool runningOn = pool;
+    readiness.whenComplete((result, throwable) -> {
+      runningOn.shutdown();
+      LOGGER.info("Readiness tasks {}: {}", result, getTimings().entrySet()
+                                                              .stream()
+                                                              .map(entry -> entry.getKey() + " " + entry.getValue())
+                                                              .collect(Collectors.joining(", ")));
+    });
+    return readiness;
+  }
+
+  /**
+   * @return how long each task that has run took
+   */
+  Map<String, Duration> getTimings() {
+    final Map<String, Duration> timings = new LinkedHashMap<>();
+    timingsNanos.forEach((name, nanos) -> timings.put(name, Duration.milliseconds(TimeUnit.NANOSECONDS.toMillis(nanos))));
+    return Collections.unmodifiableMap(timings);
+  }
+
+  private void run(final String name, final CfSignalResourceReadinessTask task) {
+    if (failure.isDone()) {
+      throw new CancellationException("not running readiness task '" + name + "' as another has failed");
+    }
+    final long start = System.nanoTime();
+    try {
+      ForkJoinPool.managedBlock(new BlockingTask(task));
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw failed(name, e);
+    }
+    catch (CompletionException e) {
+      throw failed(name, e.getCause());
+    }
+    finally {
+      timingsNanos.put(name, System.nanoTime() - start);
+    }
+  }
+
+  private ForkJoinPool pool() {
+    if (pool == null || pool.isShutdown()) {
+      pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), (forkJoinPool) -> {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+        thread.setName("cf-signal-readiness-task-" + thread.getPoolIndex());
+        return thread;
+      }, null, true);
+    }
+    return pool;
+  }
+
+  private CompletionException failed(final String name, final Throwable cause) {
+    failure.complete(Readiness.notReady("readiness task '" + name + "' failed: " + cause));
+    return new CompletionException(cause);
+  }
+
+  /**
+   * Readiness tasks usually wait on I/O, so let the pool add a thread to keep the other tasks running while one blocks.
+   */
+  private static final class BlockingTask implements ForkJoinPool.ManagedBlocker {
+
+    private final CfSignalResourceReadinessTask task;
+    private boolean done;
+
+    private BlockingTask(final CfSignalResourceReadinessTask task) {
+      this.task = task;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      try {
+        task.run();
+      }
+      catch (InterruptedException e) {
+        throw e;
+      }
+      catch (Throwable e) {
+        //an Error, e.g. a NoClassDefFoundError, must fail the graph as well, or the app would never be ready
+        throw new CompletionException(e);
+      }
+      finally {
+        done = true;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return done;
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.jetty.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up the JVM, and the app's caches, by replaying requests sampled from live traffic by {@link CaptureFilter} to
+ * the app's own connector for a while. Replaying is best effort, so the app is ready once it is over however the
+ * requests fared, and straight away if there is nothing to replay.
+ */
+class ReplayGate implements ReadinessGate {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplayGate.class);
+
+  private final CfSignalResourceReplayConfig config;
+
+  ReplayGate(final CfSignalResourceReplayConfig config) {
+    this.config = checkNotNull(config);
+  }
+
+  @Override
+  public CompletableFuture<Readiness> await(final Server server) {
+    final URI baseUri;
+    try {
+      baseUri = LocalConnectors.baseUri(server, config.getConnectorName());
+    }
+    catch (IllegalStateException e) {
+      return CompletableFuture.completedFuture(Readiness.notReady("unable to replay requests, " + e.getMessage()));
+    }
+    return replay(baseUri);
+  }
+
+  @VisibleForTesting
+  CompletableFuture<Readiness> replay(final URI baseUri) {
+    final List<RequestRecording.Request> requests;
+    try {
+      //a recording made before the methods or excluded paths changed may hold requests no longer safe to repeat
+      requests = RequestRecording.readAll(Paths.get(config.getPath()), config.getMaxSize().toBytes())
+                                 .stream()
+                                 .filter(request -> CaptureFilter.isRepeatable(config.getMethods(),
+                                                                               config.getExcludedPaths(),
+                                                                               request.getMethod(),
+                                                                               pathOf(request.getUri())))
+                                 .collect(Collectors.toList());
+    }
+    catch (IOException e) {
+      LOGGER.warn("Unable to read the request recording at {}, not replaying it", config.getPath(), e);
+      return CompletableFuture.completedFuture(Readiness.ready());
+    }
+    if (requests.isEmpty()) {
+      LOGGER.info("No requests recorded at {} to replay", config.getPath());
+      return CompletableFuture.completedFuture(Readiness.ready());
+    }
+
+    final CompletableFuture<Readiness> readiness = new CompletableFuture<>();
+    final ExecutorService workers = Executors.newFixedThreadPool(
+      config.getConcurrency(), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-replay-%d").build());
+    final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-replay-timer-%d").build());
+    readiness.whenComplete((result, throwable) -> {
+      workers.shutdownNow();
+      timer.shutdownNow();
+    });
+
+    LOGGER.info("Replaying {} recorded requests against {} for {}", requests.size(), baseUri, config.getDuration());
+
+    final long intervalNanos = config.getRequestsPerSecond() > 0
+                               ? (long) (TimeUnit.SECONDS.toNanos(1) / config.getRequestsPerSecond())
+                               : 0;
+    final AtomicLong nextSendNanos = new AtomicLong(System.nanoTime());
+    final AtomicInteger nextRequest = new AtomicInteger();
+    final AtomicInteger sent = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    for (int i = 0; i < config.getConcurrency(); i++) {
+      workers.execute(() -> {
+        try {
+          while (!readiness.isDone()) {
+            //each request gets the next slot at the configured rate, slots missed while the app was slow are skipped
+            //rather than made up for with a burst
+            final long now = System.nanoTime();
+            final long slotNanos =
+              nextSendNanos.updateAndGet(next -> Math.max(next, now) + intervalNanos) - intervalNanos;
+            TimeUnit.NANOSECONDS.sleep(slotNanos - now);
+            final RequestRecording.Request request =
+              requests.get(Math.floorMod(nextRequest.getAndIncrement(), requests.size()));
+            if (!send(baseUri, request)) {
+              failed.incrementAndGet();
+            }
+            sent.incrementAndGet();
+          }
+        }
+        catch (InterruptedException e) {
+          //the replay is over
+        }
+      });
+    }
+
+    timer.schedule(() -> {
+      LOGGER.info("Replayed {} requests, {} of which failed", sent.get(), failed.get());
+      readiness.complete(Readiness.ready());
+    }, config.getDuration().toMilliseconds(), TimeUnit.MILLISECONDS);
+
+    return readiness;
+  }
+
+  /**
+   * @return if a response was received, whatever its status
+   */
+  private boolean send(final URI baseUri, final RequestRecording.Request request) {
+    final Map<String, String> headers = new LinkedHashMap<>(request.getHeaders());
+    headers.put(CaptureFilter.REPLAY_HEADER, "true");
+    try {
+      LocalConnectors.send(baseUri.resolve(request.getUri()),
+                           request.getMethod(),
+                           headers,
+                           request.getBody().length > 0 ? request.getBody() : null,
+                           (int) config.getRequestTimeout().toMilliseconds());
+      return true;
+    }
+    catch (IOException | IllegalArgumentException e) {
+      LOGGER.debug("Replaying {} {} failed", request.getMethod(), request.getUri(), e);
+      return false;
+    }
+  }
+
+  private static String pathOf(final String uri) {
+    final int query = uri.indexOf('?');
+    return query < 0 ? uri : uri.substring(0, query);
+  }
+}
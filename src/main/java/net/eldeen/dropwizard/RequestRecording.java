@@ -0,0 +1,293 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Requests sampled from live traffic, in a memory-mapped, append-only file of bounded size, so they can be replayed to
+ * warm up new instances. The file starts with a header holding where the records end, which is only moved on once a
+ * record has been written in full, so a crash never leaves a torn record to be read back. Each record is its length
+ * followed by the method, URI, headers and body. Once the file is full nothing more is recorded.
+ */
+class RequestRecording {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequestRecording.class);
+
+  private static final int MAGIC = 0x43465252; //CFRR
+  private static final int VERSION = 1;
+  private static final int END_OFFSET = 8;
+  static final int HEADER_SIZE = 16;
+
+  private final MappedByteBuffer buffer;
+  private volatile boolean full;
+
+  private RequestRecording(final MappedByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Open the recording at {@code path} to append to it, creating it if it doesn't exist or isn't a recording.
+   * @param maxSize the size of the file, and so of all the records in it
+   */
+  static RequestRecording openForAppend(final Path path, final long maxSize) throws IOException {
+    checkArgument(maxSize > HEADER_SIZE && maxSize <= Integer.MAX_VALUE,
+                  "maxSize must be more than %s bytes and less than 2GiB", HEADER_SIZE);
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    try (FileChannel channel = FileChannel.open(path,
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE)) {
+      //the mapping stays valid once the channel is closed
+      final long size = Math.max(maxSize, channel.size());
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      if (end(buffer) < 0) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(END_OFFSET, HEADER_SIZE);
+      }
+      return new RequestRecording(buffer);
+    }
+  }
+
+  /**
+   * The recording an instance captures to. Appends are only serialized within one JVM, and writes to a file mapped on
+   * more than one host, e.g. over NFS, aren't coherent, so each instance gets a file of its own.
+   * @return {@code path} suffixed with {@code instanceId}
+   */
+  static Path instancePath(final Path path, final String instanceId) {
+    return path.resolveSibling(path.getFileName() + "." + instanceId);
+  }
+
+  /**
+   * @return the requests recorded at {@code path} and by each instance at {@link #instancePath(Path, String)}, most
+   * recently modified recording first, stopping once {@code maxSize} of records have been read
+   */
+  static List<Request> readAll(final Path path, final long maxSize) throws IOException {
+    final String fileName = path.getFileName().toString();
+    final Path directory = path.toAbsolutePath().getParent();
+    final List<Path> recordings = new ArrayList<>();
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, candidate -> {
+      final String name = candidate.getFileName().toString();
+      return name.equals(fileName) || name.startsWith(fileName + ".");
+    })) {
+      paths.forEach(recordings::add);
+    }
+    catch (NoSuchFileException e) {
+      return Collections.emptyList();
+    }
+    final Map<Path, FileTime> modified = new HashMap<>();
+    for (Path recording : recordings) {
+      modified.put(recording, Files.getLastModifiedTime(recording));
+    }
+    recordings.sort(Comparator.comparing(modified::get, Comparator.reverseOrder()));
+
+    final List<Request> requests = new ArrayList<>();
+    long read = 0;
+    for (Iterator<Path> recording = recordings.iterator(); recording.hasNext() && read < maxSize; ) {
+      read += read(recording.next(), requests);
+    }
+    return requests;
+  }
+
+  /**
+   * @return the requests recorded at {@code path}, none if there is no recording there
+   */
+  static List<Request> read(final Path path) throws IOException {
+    final List<Request> requests = new ArrayList<>();
+    read(path, requests);
+    return requests;
+  }
+
+  /**
+   * Add the requests recorded at {@code path} to {@code requests}.
+   * @return the size of the records read
+   */
+  private static int read(final Path path, final List<Request> requests) throws IOException {
+    final MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    catch (NoSuchFileException e) {
+      return 0;
+    }
+    final int end = end(buffer);
+    if (end < 0) {
+      LOGGER.warn("{} isn't a request recording", path);
+      return 0;
+    }
+
+    final ByteBuffer records = buffer.duplicate();
+    records.position(HEADER_SIZE);
+    records.limit(end);
+    try {
+      while (records.hasRemaining()) {
+        final int length = records.getInt();
+        final ByteBuffer record = records.slice();
+        record.limit(length);
+        records.position(records.position() + length);
+        requests.add(Request.read(record));
+      }
+    }
+    catch (BufferUnderflowException | IllegalArgumentException e) {
+      LOGGER.warn("Ignoring the corrupt end of the request recording {}", path);
+    }
+    return end - HEADER_SIZE;
+  }
+
+  /**
+   * @return where the records end, or -1 if {@code buffer} doesn't hold a recording
+   */
+  private static int end(final ByteBuffer buffer) {
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      return -1;
+    }
+    final int end = buffer.getInt(END_OFFSET);
+    return end >= HEADER_SIZE && end <= buffer.capacity() ? end : -1;
+  }
+
+  boolean isFull() {
+    return full;
+  }
+
+  /**
+   * @return {@code false} if the recording is full, so the request wasn't recorded
+   */
+  boolean append(final Request request) {
+    if (full) {
+      return false;
+    }
+    final byte[] record = request.toBytes();
+    synchronized (buffer) {
+      final int end = buffer.getInt(END_OFFSET);
+      if ((long) end + Integer.BYTES + record.length > buffer.capacity()) {
+        full = true;
+        return false;
+      }
+      buffer.putInt(end, record.length);
+      final ByteBuffer target = buffer.duplicate();
+      target.position(end + Integer.BYTES);
+      target.put(record);
+      //only once the record is all there
+      buffer.putInt(END_OFFSET, end + Integer.BYTES + record.length);
+    }
+    return true;
+  }
+
+  /**
+   * A recorded request.
+   */
+  static final class Request {
+
+    private final String method;
+    private final String uri;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    /**
+     * @param uri the path and query string
+     */
+    Request(final String method, final String uri, final Map<String, String> headers, final byte[] body) {
+      this.method = checkNotNull(method);
+      this.uri = checkNotNull(uri);
+      this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+      this.body = checkNotNull(body);
+    }
+
+    String getMethod() {
+      return method;
+    }
+
+    String getUri() {
+      return uri;
+    }
+
+    Map<String, String> getHeaders() {
+      return headers;
+    }
+
+    byte[] getBody() {
+      return body;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the URI, or a header, is longer than 64KiB
+     */
+    private byte[] toBytes() {
+      try {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + body.length);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, method);
+        writeString(out, uri);
+        out.writeShort(headers.size());
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+          writeString(out, header.getKey());
+          writeString(out, header.getValue());
+        }
+        out.writeInt(body.length);
+        out.write(body);
+        return bytes.toByteArray();
+      }
+      catch (IOException e) {
+        throw new IllegalStateException("writing to memory can't fail", e);
+      }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+      final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      if (utf8.length > 0xFFFF) {
+        throw new IllegalArgumentException("too long to record: " + value.substring(0, 64) + "...");
+      }
+      out.writeShort(utf8.length);
+      out.write(utf8);
+    }
+
+    private static Request read(final ByteBuffer record) {
+      final String method = readString(record);
+      final String uri = readString(record);
+      final int headerCount = record.getShort() & 0xFFFF;
+      final Map<String, String> headers = new LinkedHashMap<>();
+      for (int i = 0; i < headerCount; i++) {
+        headers.put(readString(record), readString(record));
+      }
+      final int bodyLength = record.getInt();
+      checkArgument(bodyLength >= 0 && bodyLength <= record.remaining(), "corrupt body length %s", bodyLength);
+      final byte[] body = new byte[bodyLength];
+      record.get(body);
+      return new Request(method, uri, headers, body);
+    }
+
+    private static String readString(final ByteBuffer record) {
+      final byte[] utf = new byte[record.getShort() & 0xFFFF];
+      record.get(utf);
+      return new String(utf, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A JVM shutdown hook that can be armed, and disarmed again, as often as needed.
+ */
+class ShutdownHook {
+
+  private final Thread thread;
+  private boolean armed;
+
+  ShutdownHook(final String name, final Runnable action) {
+    thread = new Thread(checkNotNull(action), checkNotNull(name));
+  }
+
+  /**
+   * Run the action if the JVM shuts down before {@link #disarm()} is called.
+   */
+  synchronized void arm() {
+    if (armed) {
+      return;
+    }
+    try {
+      Runtime.getRuntime().addShutdownHook(thread);
+      armed = true;
+    }
+    catch (IllegalStateException e) {
+      //the JVM is already shutting down, too late to run anything
+    }
+  }
+
+  synchronized void disarm() {
+    if (!armed) {
+      return;
+    }
+    try {
+      Runtime.getRuntime().removeShutdownHook(thread);
+      armed = false;
+    }
+    catch (IllegalStateException e) {
+      //the JVM is already shutting down, and the hook is either running or about to
+    }
+  }
+
+  synchronized boolean isArmed() {
+    return armed;
+  }
+
+  /**
+   * Run the action on the calling thread, as the JVM would when shutting down.
+   */
+  @VisibleForTesting
+  /*package-private*/ void runNow() {
+    thread.run();
+  }
+}
@@ -0,0 +1,130 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.google.common.base.Strings;
+
+/**
+ * Signs requests with AWS Signature Version 4, for the query API's form encoded {@code POST}s.
+ */
+class SigV4Signer {
+
+  static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+                                                                      .withZone(ZoneOffset.UTC);
+  private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final String region;
+  private final String service;
+
+  SigV4Signer(final String region, final String service) {
+    this.region = checkNotNull(region);
+    this.service = checkNotNull(service);
+  }
+
+  /**
+   * @param headers the headers that will be sent, not including {@code Host}; the signing headers are added to them
+   */
+  void sign(final String method,
+            final URI uri,
+            final Map<String, String> headers,
+            final byte[] body,
+            final AWSCredentials credentials,
+            final Instant now) {
+    final String dateTime = DATE_TIME.format(now);
+    final String date = DATE.format(now);
+    headers.put("X-Amz-Date", dateTime);
+    if (credentials instanceof AWSSessionCredentials) {
+      headers.put("X-Amz-Security-Token", ((AWSSessionCredentials) credentials).getSessionToken());
+    }
+
+    final Map<String, String> canonicalHeaders = new TreeMap<>();
+    canonicalHeaders.put("host", host(uri));
+    headers.forEach((name, value) -> canonicalHeaders.put(name.toLowerCase(Locale.ROOT), value.trim()));
+    final StringBuilder canonicalHeaderLines = new StringBuilder();
+    canonicalHeaders.forEach((name, value) -> canonicalHeaderLines.append(name).append(':').append(value).append('\n'));
+    final String signedHeaders = String.join(";", canonicalHeaders.keySet());
+
+    final String canonicalRequest = method + '\n'
+                                    + (Strings.isNullOrEmpty(uri.getRawPath()) ? "/" : uri.getRawPath()) + '\n'
+                                    + Strings.nullToEmpty(uri.getRawQuery()) + '\n'
+                                    + canonicalHeaderLines + '\n'
+                                    + signedHeaders + '\n'
+                                    + hex(sha256(body));
+
+    final String scope = date + '/' + region + '/' + service + "/aws4_request";
+    final String stringToSign = ALGORITHM + '\n'
+                                + dateTime + '\n'
+                                + scope + '\n'
+                                + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+    byte[] key = ("AWS4" + credentials.getAWSSecretKey()).getBytes(StandardCharsets.UTF_8);
+    for (String part : new String[] {date, region, service, "aws4_request"}) {
+      key = hmacSha256(key, part);
+    }
+    final String signature = hex(hmacSha256(key, stringToSign));
+
+    headers.put("Authorization", ALGORITHM + " Credential=" + credentials.getAWSAccessKeyId() + '/' + scope
+                                 + ", SignedHeaders=" + signedHeaders
+                                 + ", Signature=" + signature);
+  }
+
+  /**
+   * @return the {@code Host} header the JDK's HTTP client sends for this URI
+   */
+  private static String host(final URI uri) {
+    final int port = uri.getPort();
+    if (port == -1
+        || port == 80 && "http".equalsIgnoreCase(uri.getScheme())
+        || port == 443 && "https".equalsIgnoreCase(uri.getScheme())) {
+      return uri.getHost();
+    }
+    return uri.getHost() + ':' + port;
+  }
+
+  private static byte[] sha256(final byte[] bytes) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(bytes);
+    }
+    catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 is required of every JVM", e);
+    }
+  }
+
+  private static byte[] hmacSha256(final byte[] key, final String data) {
+    try {
+      final Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(new SecretKeySpec(key, "HmacSHA256"));
+      return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+    catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 is required of every JVM", e);
+    }
+  }
+
+  private static String hex(final byte[] bytes) {
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+}
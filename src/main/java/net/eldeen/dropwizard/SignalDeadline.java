@@ -0,0 +1,109 @@
+package net.eldeen.dropwizard;
+
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.CREATE_IN_PROGRESS;
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.UPDATE_IN_PROGRESS;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+import com.amazonaws.services.cloudformation.model.ResourceStatus;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Works out when CloudFormation stops waiting for the ASG's signals from the stack's template: the
+ * {@code CreationPolicy}'s {@code ResourceSignal} {@code Timeout} while the ASG is created or replaced, or the
+ * {@code AutoScalingRollingUpdate} {@code UpdatePolicy}'s {@code PauseTime} while it is updated with
+ * {@code WaitOnResourceSignals}.
+ */
+final class SignalDeadline {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SignalDeadline.class);
+
+  //CloudFormation's default for both the Timeout and, when waiting on signals, the PauseTime
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+
+  private SignalDeadline() {
+  }
+
+  /**
+   * The timeout is counted from the later of when the ASG resource's status last changed and {@code notBefore}, e.g.
+   * when the JVM started. CloudFormation starts counting a rolling update's {@code PauseTime} when each batch of
+   * instances is launched, so starting from no earlier than this instance's own startup means the deadline is never
+   * earlier than CloudFormation's.
+   * @return when CloudFormation stops waiting for the signal, or {@link Optional#empty()} if it isn't waiting for one,
+   * or the template doesn't say, e.g. because the timeout is a {@code Ref} to a parameter
+   */
+  static Optional<Instant> of(final String templateBody,
+                              final String logicalResourceId,
+                              final StackResourceDetail detail,
+                              final Instant notBefore) {
+    if (detail.getLastUpdatedTimestamp() == null) {
+      return Optional.empty();
+    }
+    final JsonNode template;
+    try {
+      template = parse(templateBody);
+    }
+    catch (IOException e) {
+      LOGGER.debug("Unable to parse the stack's template", e);
+      return Optional.empty();
+    }
+
+    final Instant lastUpdated = detail.getLastUpdatedTimestamp().toInstant();
+    final Instant start = lastUpdated.isAfter(notBefore) ? lastUpdated : notBefore;
+    return timeout(template, logicalResourceId, ResourceStatus.fromValue(detail.getResourceStatus()))
+      .map(start::plus);
+  }
+
+  @VisibleForTesting
+  /*package-private*/ static Optional<Duration> timeout(final JsonNode template,
+                                                       final String logicalResourceId,
+                                                       final ResourceStatus status) {
+    final JsonNode resource = template.path("Resources").path(logicalResourceId);
+    final JsonNode resourceSignal = resource.path("CreationPolicy").path("ResourceSignal");
+    final JsonNode updatePolicy = resource.path("UpdatePolicy");
+
+    final boolean created = status == CREATE_IN_PROGRESS
+                            || status == UPDATE_IN_PROGRESS
+                               && updatePolicy.path("AutoScalingReplacingUpdate").path("WillReplace").asBoolean(false);
+    if (created) {
+      return resourceSignal.isMissingNode() ? Optional.empty() : duration(resourceSignal.path("Timeout"));
+    }
+
+    final JsonNode rollingUpdate = updatePolicy.path("AutoScalingRollingUpdate");
+    if (status == UPDATE_IN_PROGRESS && rollingUpdate.path("WaitOnResourceSignals").asBoolean(false)) {
+      return duration(rollingUpdate.path("PauseTime"));
+    }
+    return Optional.empty();
+  }
+
+  @VisibleForTesting
+  /*package-private*/ static JsonNode parse(final String templateBody) throws IOException {
+    //YAML can't always parse JSON, e.g. when indented with tabs
+    return templateBody.trim().startsWith("{") ? JSON.readTree(templateBody) : YAML.readTree(templateBody);
+  }
+
+  private static Optional<Duration> duration(final JsonNode value) {
+    if (value.isMissingNode()) {
+      return Optional.of(DEFAULT_TIMEOUT);
+    }
+    try {
+      return Optional.of(Duration.parse(value.asText()));
+    }
+    catch (DateTimeParseException e) {
+      //e.g. a Ref to a parameter
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.amazonaws.services.cloudformation.model.ResourceSignalStatus;
+import com.google.common.base.Splitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only file recording each signal before it is sent and once CloudFormation has acknowledged it, keyed by
+ * stack, logical resource and instance ID, so a restarted app knows what it already signalled without asking
+ * CloudFormation. Each record is a tab separated line, written and forced to disk before the call it describes goes
+ * ahead. A record torn by a crash is ignored when the journal is read back.
+ * <p>
+ * The journal is only ever an aid: failing to read or write it is logged, and signalling carries on as if there were no
+ * journal.
+ * </p>
+ */
+class SignalJournal {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SignalJournal.class);
+
+  private static final String INTENDED = "INTENDED";
+  private static final String ACKNOWLEDGED = "ACKNOWLEDGED";
+  private static final Splitter LINES = Splitter.on('\n').omitEmptyStrings();
+  private static final Splitter FIELDS = Splitter.on('\t');
+
+  private final Path path;
+  private final Clock clock;
+  private final Map<Key, Entry> entries = new HashMap<>();
+
+  private SignalJournal(final Path path, final Clock clock) {
+    this.path = checkNotNull(path);
+    this.clock = checkNotNull(clock);
+  }
+
+  /**
+   * Read back the journal at {@code path}, which needn't exist yet.
+   */
+  static SignalJournal open(final Path path) {
+    return open(path, Clock.systemUTC());
+  }
+
+  static SignalJournal open(final Path path, final Clock clock) {
+    final SignalJournal journal = new SignalJournal(path, clock);
+    try {
+      final String records = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+      //anything after the last newline is a record torn by a crash
+      for (String line : LINES.split(records.substring(0, records.lastIndexOf('\n') + 1))) {
+        journal.replay(line);
+      }
+    }
+    catch (NoSuchFileException e) {
+      LOGGER.debug("No signal journal at {} yet", path);
+    }
+    catch (IOException e) {
+      LOGGER.warn("Unable to read the signal journal at " + path + ", assuming nothing has been signalled", e);
+    }
+    return journal;
+  }
+
+  private void replay(final String line) {
+    final List<String> fields = FIELDS.splitToList(line);
+    if (fields.size() != 6) {
+      LOGGER.warn("Ignoring incomplete signal journal record '{}'", line);
+      return;
+    }
+    final ResourceSignalStatus status;
+    try {
+      status = ResourceSignalStatus.fromValue(fields.get(2));
+    }
+    catch (IllegalArgumentException e) {
+      LOGGER.warn("Ignoring incomplete signal journal record '{}'", line);
+      return;
+    }
+    final Key key = new Key(new CfSignalResourceTarget(fields.get(3), fields.get(4)), fields.get(5));
+    if (INTENDED.equals(fields.get(1))) {
+      entries.put(key, new Entry(status, false));
+    }
+    else if (ACKNOWLEDGED.equals(fields.get(1))) {
+      entries.put(key, new Entry(status, true));
+    }
+    else {
+      LOGGER.warn("Ignoring incomplete signal journal record '{}'", line);
+    }
+  }
+
+  /**
+   * @return the signal CloudFormation has acknowledged for {@code target} from {@code instanceId}, if any
+   */
+  synchronized Optional<ResourceSignalStatus> acknowledged(final CfSignalResourceTarget target,
+                                                           final String instanceId) {
+    final Entry entry = entries.get(new Key(target, instanceId));
+    return entry != null && entry.acknowledged ? Optional.of(entry.status) : Optional.empty();
+  }
+
+  /**
+   * @return the signal about to be sent to {@code target} from {@code instanceId} when the app stopped, if it wasn't
+   * acknowledged; it may or may not have reached CloudFormation
+   */
+  synchronized Optional<ResourceSignalStatus> pending(final CfSignalResourceTarget target, final String instanceId) {
+    final Entry entry = entries.get(new Key(target, instanceId));
+    return entry != null && !entry.acknowledged ? Optional.of(entry.status) : Optional.empty();
+  }
+
+  /**
+   * Record that {@code status} is about to be signalled, before signalling it.
+   */
+  synchronized void intend(final CfSignalResourceTarget target,
+                           final String instanceId,
+                           final ResourceSignalStatus status) {
+    append(INTENDED, target, instanceId, status);
+  }
+
+  /**
+   * Record that CloudFormation has acknowledged {@code status}.
+   */
+  synchronized void acknowledge(final CfSignalResourceTarget target,
+                                final String instanceId,
+                                final ResourceSignalStatus status) {
+    append(ACKNOWLEDGED, target, instanceId, status);
+  }
+
+  private void append(final String record,
+                      final CfSignalResourceTarget target,
+                      final String instanceId,
+                      final ResourceSignalStatus status) {
+    entries.put(new Key(target, instanceId), new Entry(status, ACKNOWLEDGED.equals(record)));
+    final String line = clock.millis() + "\t" + record + "\t" + status + "\t" + target.getStackName() + "\t"
+                        + target.getLogicalResourceId() + "\t" + instanceId + "\n";
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      try (FileChannel channel = FileChannel.open(path,
+                                                  StandardOpenOption.CREATE,
+                                                  StandardOpenOption.WRITE,
+                                                  StandardOpenOption.APPEND)) {
+        channel.write(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+        channel.force(false);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.warn("Unable to record " + record + " " + status + " for " + target + " in the signal journal at " + path,
+                  e);
+    }
+  }
+
+  private static final class Key {
+
+    private final CfSignalResourceTarget target;
+    private final String instanceId;
+
+    private Key(final CfSignalResourceTarget target, final String instanceId) {
+      this.target = checkNotNull(target);
+      this.instanceId = checkNotNull(instanceId);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return target.equals(key.target) && instanceId.equals(key.instanceId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(target, instanceId);
+    }
+  }
+
+  private static final class Entry {
+
+    private final ResourceSignalStatus status;
+    private final boolean acknowledged;
+
+    private Entry(final ResourceSignalStatus status, final boolean acknowledged) {
+      this.status = status;
+      this.acknowledged = acknowledged;
+    }
+  }
+}
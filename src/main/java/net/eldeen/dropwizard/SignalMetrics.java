@@ -0,0 +1,129 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The metrics {@link CfSignalResourceBundle} records for each phase of signalling. Every name starts with
+ * {@link #PREFIX} so the same dashboards work across a fleet.
+ */
+class SignalMetrics {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SignalMetrics.class);
+
+  static final String PREFIX = MetricRegistry.name(CfSignalResourceBundle.class);
+
+  private final Timer metadataLookup;
+  private final Timer clientCreation;
+  private final Timer describeStackResource;
+  private final Timer signalResource;
+  private final Counter retries;
+  private final Counter throttles;
+  private final Counter skipped;
+  private final Counter failures;
+  //-1 until the signal has been sent
+  private final AtomicLong jvmStartToSignalMillis = new AtomicLong(-1);
+
+  SignalMetrics(final MetricRegistry metricRegistry) {
+    checkNotNull(metricRegistry);
+    metadataLookup = metricRegistry.timer(MetricRegistry.name(PREFIX, "metadataLookup"));
+    clientCreation = metricRegistry.timer(MetricRegistry.name(PREFIX, "clientCreation"));
+    describeStackResource = metricRegistry.timer(MetricRegistry.name(PREFIX, "describeStackResource"));
+    signalResource = metricRegistry.timer(MetricRegistry.name(PREFIX, "signalResource"));
+    retries = metricRegistry.counter(MetricRegistry.name(PREFIX, "retries"));
+    throttles = metricRegistry.counter(MetricRegistry.name(PREFIX, "throttles"));
+    skipped = metricRegistry.counter(MetricRegistry.name(PREFIX, "skipped"));
+    failures = metricRegistry.counter(MetricRegistry.name(PREFIX, "failures"));
+    registerGauge(metricRegistry, MetricRegistry.name(PREFIX, "jvmStartToSignalMillis"),
+                  (Gauge<Long>) jvmStartToSignalMillis::get);
+  }
+
+  /**
+   * Register the gauge unless another bundle in the same app, e.g. one per resource signalled, already has, in which
+   * case that bundle's gauge is kept.
+   */
+  static void registerGauge(final MetricRegistry metricRegistry, final String name, final Gauge<?> gauge) {
+    try {
+      metricRegistry.register(name, gauge);
+    }
+    catch (IllegalArgumentException e) {
+      LOGGER.debug("Keeping the gauge {} already registered", name);
+    }
+  }
+
+  /**
+   * @return metrics that aren't reported anywhere, for when there is no registry
+   */
+  static SignalMetrics unregistered() {
+    return new SignalMetrics(new MetricRegistry());
+  }
+
+  /**
+   * Time looking up the EC2 instance identity from the instance metadata service.
+   */
+  Timer metadataLookup() {
+    return metadataLookup;
+  }
+
+  /**
+   * Time creating the bundle's own CloudFormation client.
+   */
+  Timer clientCreation() {
+    return clientCreation;
+  }
+
+  /**
+   * Time looking up the ASG's resource status, including retries.
+   */
+  Timer describeStackResource() {
+    return describeStackResource;
+  }
+
+  /**
+   * Time sending the signal, including retries.
+   */
+  Timer signalResource() {
+    return signalResource;
+  }
+
+  /**
+   * Count CloudFormation calls that were retried.
+   */
+  Counter retries() {
+    return retries;
+  }
+
+  /**
+   * Count CloudFormation calls that were throttled.
+   */
+  Counter throttles() {
+    return throttles;
+  }
+
+  /**
+   * Count the times no signal was sent because signalling was skipped or no update was in progress.
+   */
+  Counter skipped() {
+    return skipped;
+  }
+
+  /**
+   * Count the times signalling failed or timed out.
+   */
+  Counter failures() {
+    return failures;
+  }
+
+  void signalSent() {
+    jvmStartToSignalMillis.set(System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+  }
+}
@@ -0,0 +1,57 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A resource being signalled, along with its own prefetched status and the outcome of signalling it.
+ */
+final class SignalTarget {
+
+  private final CfSignalResourceTarget resource;
+  private final StackResourceStatusCache statusCache;
+  private final CompletableFuture<CfSignalResourceOutcome> outcome = new CompletableFuture<>();
+
+  SignalTarget(final CfSignalResourceTarget resource, final StackResourceStatusCache statusCache) {
+    this.resource = checkNotNull(resource);
+    this.statusCache = checkNotNull(statusCache);
+  }
+
+  CfSignalResourceTarget getResource() {
+    return resource;
+  }
+
+  StackResourceStatusCache getStatusCache() {
+    return statusCache;
+  }
+
+  CompletableFuture<CfSignalResourceOutcome> getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * @return once every target's outcome is known: the first failure, in the order of {@code targets}, if any failed,
+   * otherwise the signal sent if any target was signalled, otherwise {@link CfSignalResourceOutcome#NO_UPDATE_IN_PROGRESS}
+   */
+  static CompletableFuture<CfSignalResourceOutcome> combinedOutcome(final List<SignalTarget> targets) {
+    return CompletableFuture.allOf(targets.stream().map(SignalTarget::getOutcome).toArray(CompletableFuture[]::new))
+                            .handle((ignored, throwable) -> {
+                              CfSignalResourceOutcome combined = CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS;
+                              for (SignalTarget target : targets) {
+                                //rethrows the target's failure
+                                final CfSignalResourceOutcome outcome = target.outcome.join();
+                                if (outcome != CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS) {
+                                  combined = outcome;
+                                }
+                              }
+                              return combined;
+                            });
+  }
+
+  @Override
+  public String toString() {
+    return resource.toString();
+  }
+}
@@ -0,0 +1,169 @@
+package net.eldeen.dropwizard;
+
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.CREATE_COMPLETE;
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.CREATE_IN_PROGRESS;
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.UPDATE_COMPLETE;
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.UPDATE_IN_PROGRESS;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import com.amazonaws.services.cloudformation.model.ResourceStatus;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.google.common.base.Ticker;
+import io.dropwizard.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the ASG's {@link StackResourceDetail} fetched ahead of signalling so only the {@code SignalResource} call is
+ * left for when Jetty has started. The prefetched detail is only reused while it is younger than the configured max age
+ * and its status is unambiguous, otherwise it is fetched again. A detail from a {@link StatusSnapshot} isn't fetched at
+ * all, and is reused for as long as the snapshot is trusted.
+ */
+class StackResourceStatusCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StackResourceStatusCache.class);
+
+  private static final Set<ResourceStatus> UNAMBIGUOUS =
+    EnumSet.of(CREATE_IN_PROGRESS, UPDATE_IN_PROGRESS, CREATE_COMPLETE, UPDATE_COMPLETE);
+
+  private final Callable<StackResourceDetail> describe;
+  private final long maxAgeNanos;
+  private final Supplier<Optional<StackResourceDetail>> snapshot;
+  private final Ticker ticker;
+
+  private volatile CompletableFuture<Fetched> prefetched;
+  private volatile boolean snapshotTrusted = true;
+
+  StackResourceStatusCache(final Callable<StackResourceDetail> describe, final Duration maxAge) {
+    this(describe, maxAge, Optional::empty);
+  }
+
+  StackResourceStatusCache(final Callable<StackResourceDetail> describe, final Duration maxAge, final Ticker ticker) {
+    this(describe, maxAge, Optional::empty, ticker);
+  }
+
+  /**
+   * @param snapshot the resource's status from a {@link StatusSnapshot}, empty once the snapshot is too old
+   */
+  StackResourceStatusCache(final Callable<StackResourceDetail> describe,
+                           final Duration maxAge,
+                           final Supplier<Optional<StackResourceDetail>> snapshot) {
+    this(describe, maxAge, snapshot, Ticker.systemTicker());
+  }
+
+  StackResourceStatusCache(final Callable<StackResourceDetail> describe,
+                           final Duration maxAge,
+                           final Supplier<Optional<StackResourceDetail>> snapshot,
+                           final Ticker ticker) {
+    this.describe = checkNotNull(describe);
+    this.maxAgeNanos = maxAge.toNanoseconds();
+    this.snapshot = checkNotNull(snapshot);
+    this.ticker = checkNotNull(ticker);
+  }
+
+  /**
+   * Start fetching the {@link StackResourceDetail} in the background, unless the snapshot has it.
+   */
+  void prefetch(final Executor executor) {
+    final Optional<StackResourceDetail> fromSnapshot = trustedSnapshot();
+    if (fromSnapshot.isPresent()) {
+      LOGGER.info("Using the status snapshot's resource status '{}' rather than asking CloudFormation",
+                  fromSnapshot.get().getResourceStatus());
+      prefetched = CompletableFuture.completedFuture(new Fetched(fromSnapshot.get(), ticker.read(), true));
+      return;
+    }
+    prefetched = CompletableFuture.supplyAsync(() -> {
+      try {
+        return new Fetched(describe.call(), ticker.read(), false);
+      }
+      catch (Exception e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * @return the {@link StackResourceDetail} as prefetched, without fetching it again
+   * @throws IllegalStateException if {@link #prefetch(Executor)} hasn't been called
+   */
+  CompletableFuture<StackResourceDetail> whenPrefetched() {
+    final CompletableFuture<Fetched> inFlight = prefetched;
+    if (inFlight == null) {
+      throw new IllegalStateException("the resource status hasn't been prefetched");
+    }
+    return inFlight.thenApply(fetched -> fetched.detail);
+  }
+
+  /**
+   * @return the prefetched {@link StackResourceDetail} if it is still usable, waiting for it if it's still in flight,
+   * otherwise a freshly fetched one
+   */
+  StackResourceDetail get() throws Exception {
+    final CompletableFuture<Fetched> inFlight = prefetched;
+    if (inFlight != null) {
+      try {
+        final Fetched fetched = inFlight.get();
+        if (isUsable(fetched)) {
+          return fetched.detail;
+        }
+        LOGGER.debug("Prefetched resource status '{}' is stale or ambiguous, checking again",
+                     fetched.detail.getResourceStatus());
+      }
+      catch (ExecutionException e) {
+        LOGGER.debug("Prefetching the resource status failed, checking again", e.getCause());
+      }
+    }
+    return describe.call();
+  }
+
+  /**
+   * Stop trusting the snapshot, e.g. once CloudFormation has contradicted it, so the status is fetched from now on.
+   * @return if the status was being taken from the snapshot, so fetching it may tell a different story
+   */
+  boolean distrustSnapshot() {
+    final CompletableFuture<Fetched> inFlight = prefetched;
+    final boolean fromSnapshot = snapshotTrusted && inFlight != null && inFlight.isDone()
+                                 && !inFlight.isCompletedExceptionally() && inFlight.join().fromSnapshot;
+    snapshotTrusted = false;
+    return fromSnapshot;
+  }
+
+  private Optional<StackResourceDetail> trustedSnapshot() {
+    return snapshotTrusted ? snapshot.get() : Optional.empty();
+  }
+
+  private boolean isUsable(final Fetched fetched) {
+    if (fetched.fromSnapshot ? !trustedSnapshot().isPresent() : ticker.read() - fetched.fetchedAtNanos > maxAgeNanos) {
+      return false;
+    }
+    try {
+      return UNAMBIGUOUS.contains(ResourceStatus.fromValue(fetched.detail.getResourceStatus()));
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static final class Fetched {
+
+    private final StackResourceDetail detail;
+    private final long fetchedAtNanos;
+    private final boolean fromSnapshot;
+
+    private Fetched(final StackResourceDetail detail, final long fetchedAtNanos, final boolean fromSnapshot) {
+      this.detail = checkNotNull(detail);
+      this.fetchedAtNanos = fetchedAtNanos;
+      this.fromSnapshot = fromSnapshot;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * What happened when during startup, measured from JVM start, so a slow deploy can be traced to the phase that held it
+ * up. Marking an event only reads the clock and writes two array slots, so it can be called from any thread, however
+ * hot. Events past {@link #CAPACITY} are dropped.
+ */
+class StartupTimeline {
+
+  static final int CAPACITY = 256;
+
+  private final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(CAPACITY);
+  private final AtomicLongArray nanos = new AtomicLongArray(CAPACITY);
+  private final AtomicInteger count = new AtomicInteger();
+
+  /**
+   * Record that {@code name} happened just now.
+   */
+  void mark(final String name) {
+    final long now = System.nanoTime();
+    final int index = count.getAndIncrement();
+    if (index < CAPACITY) {
+      nanos.set(index, now);
+      //written last, so an event without a name is still being marked
+      names.set(index, checkNotNull(name));
+    }
+  }
+
+  Instant getJvmStartTime() {
+    return Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+  }
+
+  /**
+   * @return the events marked so far, in the order they were marked
+   */
+  List<Event> getEvents() {
+    //looked up only when read, so marking doesn't have to load the JVM's management beans
+    final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+    final long jvmStartNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(runtime.getUptime());
+    final int marked = Math.min(count.get(), CAPACITY);
+    final List<Event> events = new ArrayList<>(marked);
+    for (int i = 0; i < marked; i++) {
+      final String name = names.get(i);
+      if (name != null) {
+        events.add(new Event(name, TimeUnit.NANOSECONDS.toMillis(nanos.get(i) - jvmStartNanos)));
+      }
+    }
+    return Collections.unmodifiableList(events);
+  }
+
+  /**
+   * @return the events on one line, e.g. {@code initialize=812ms run=1540ms jetty.started=3020ms}
+   */
+  String summary() {
+    final StringBuilder summary = new StringBuilder();
+    for (Event event : getEvents()) {
+      if (summary.length() > 0) {
+        summary.append(' ');
+      }
+      summary.append(event.getName()).append('=').append(event.getMillis()).append("ms");
+    }
+    return summary.toString();
+  }
+
+  static final class Event {
+
+    private final String name;
+    private final long millis;
+
+    Event(final String name, final long millis) {
+      this.name = checkNotNull(name);
+      this.millis = millis;
+    }
+
+    @JsonProperty
+    String getName() {
+      return name;
+    }
+
+    /**
+     * @return milliseconds from JVM start
+     */
+    @JsonProperty
+    long getMillis() {
+      return millis;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serves the {@link StartupTimeline} as JSON on the admin port, along with the signal outcome once known.
+ */
+class StartupTimelineServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient StartupTimeline timeline;
+  private final transient CfSignalResourceBundle<?> bundle;
+  private final transient ObjectMapper objectMapper = new ObjectMapper();
+
+  StartupTimelineServlet(final StartupTimeline timeline, final CfSignalResourceBundle<?> bundle) {
+    this.timeline = checkNotNull(timeline);
+    this.bundle = checkNotNull(bundle);
+  }
+
+  @Override
+  protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+    final Map<String, Object> body = new LinkedHashMap<>();
+    body.put("jvmStartTime", timeline.getJvmStartTime().toString());
+    body.put("outcome", bundle.getSignalOutcome().handle((outcome, throwable) ->
+      throwable == null ? outcome.toString() : "FAILED"
+    ).getNow("PENDING"));
+    body.put("events", timeline.getEvents());
+
+    resp.setStatus(HttpServletResponse.SC_OK);
+    resp.setContentType("application/json");
+    resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+    objectMapper.writeValue(resp.getOutputStream(), body);
+  }
+}
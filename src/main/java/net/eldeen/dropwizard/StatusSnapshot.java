@@ -0,0 +1,140 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The status of the resources to signal as captured at launch, so each instance in a rolling update needn't ask
+ * CloudFormation for it. A JSON file, with the time the snapshot was taken and, for each resource, its status and,
+ * optionally, when its update started, which {@link CfSignalResourceBudgetConfig budgeting} needs:
+ * <pre>
+ * {
+ *   "timestamp": "2016-01-02T03:04:05Z",
+ *   "resources": [
+ *     {
+ *       "stackName": "yourASG_StackName",
+ *       "logicalResourceId": "yourASG_ResourceName",
+ *       "resourceStatus": "UPDATE_IN_PROGRESS",
+ *       "lastUpdatedTimestamp": "2016-01-02T03:00:00Z"
+ *     }
+ *   ]
+ * }
+ * </pre>
+ * The snapshot is only trusted while it is younger than its max age. Like the {@link SignalJournal}, it is only ever an
+ * aid: a snapshot that is missing or can't be read is logged, and CloudFormation is asked instead.
+ */
+class StatusSnapshot {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StatusSnapshot.class);
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private static final StatusSnapshot EMPTY =
+    new StatusSnapshot(Instant.EPOCH, Collections.emptyMap(), Duration.seconds(0), Clock.systemUTC());
+
+  private final Instant takenAt;
+  private final Map<CfSignalResourceTarget, StackResourceDetail> resources;
+  private final Duration maxAge;
+  private final Clock clock;
+
+  private StatusSnapshot(final Instant takenAt,
+                         final Map<CfSignalResourceTarget, StackResourceDetail> resources,
+                         final Duration maxAge,
+                         final Clock clock) {
+    this.takenAt = checkNotNull(takenAt);
+    this.resources = checkNotNull(resources);
+    this.maxAge = checkNotNull(maxAge);
+    this.clock = checkNotNull(clock);
+  }
+
+  /**
+   * @return a snapshot holding no resources
+   */
+  static StatusSnapshot empty() {
+    return EMPTY;
+  }
+
+  static StatusSnapshot read(final Path path, final Duration maxAge) {
+    return read(path, maxAge, Clock.systemUTC());
+  }
+
+  /**
+   * @return the snapshot at {@code path}, empty if there isn't one or it can't be read
+   */
+  static StatusSnapshot read(final Path path, final Duration maxAge, final Clock clock) {
+    try (InputStream in = Files.newInputStream(path)) {
+      final JsonNode snapshot = OBJECT_MAPPER.readTree(in);
+      if (snapshot == null) {
+        throw new IOException("the snapshot is empty");
+      }
+      final Instant takenAt = parseTimestamp(snapshot.path("timestamp").asText(null))
+        .orElseThrow(() -> new IOException("the snapshot has no timestamp"));
+      final Map<CfSignalResourceTarget, StackResourceDetail> resources = new HashMap<>();
+      for (JsonNode resource : snapshot.path("resources")) {
+        final String stackName = resource.path("stackName").asText(null);
+        final String logicalResourceId = resource.path("logicalResourceId").asText(null);
+        final String resourceStatus = resource.path("resourceStatus").asText(null);
+        if (stackName == null || logicalResourceId == null || resourceStatus == null) {
+          throw new IOException("each resource needs a stackName, logicalResourceId and resourceStatus");
+        }
+        resources.put(new CfSignalResourceTarget(stackName, logicalResourceId),
+                      new StackResourceDetail().withStackName(stackName)
+                                               .withLogicalResourceId(logicalResourceId)
+                                               .withResourceStatus(resourceStatus)
+                                               .withLastUpdatedTimestamp(
+                                                 parseTimestamp(resource.path("lastUpdatedTimestamp").asText(null))
+                                                   .map(Date::from)
+                                                   .orElse(null)));
+      }
+      return new StatusSnapshot(takenAt, resources, maxAge, clock);
+    }
+    catch (NoSuchFileException e) {
+      LOGGER.info("No status snapshot at {}, asking CloudFormation instead", path);
+    }
+    catch (IOException | DateTimeParseException e) {
+      LOGGER.warn("Unable to read the status snapshot at {}, asking CloudFormation instead", path, e);
+    }
+    return EMPTY;
+  }
+
+  private static Optional<Instant> parseTimestamp(final String timestamp) {
+    //with an offset, as date -Iseconds and CloudFormation both write them
+    return Optional.ofNullable(timestamp).map(OffsetDateTime::parse).map(OffsetDateTime::toInstant);
+  }
+
+  /**
+   * @return the resource's status, empty if the snapshot doesn't hold it or is too old to be trusted
+   */
+  Optional<StackResourceDetail> lookUp(final CfSignalResourceTarget target) {
+    final StackResourceDetail detail = resources.get(target);
+    if (detail == null) {
+      return Optional.empty();
+    }
+    if (clock.millis() - takenAt.toEpochMilli() > maxAge.toMilliseconds()) {
+      LOGGER.debug("The status snapshot taken at {} is too old to be trusted", takenAt);
+      return Optional.empty();
+    }
+    return Optional.of(detail);
+  }
+}
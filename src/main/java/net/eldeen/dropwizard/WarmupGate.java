@@ -0,0 +1,165 @@
+package net.eldeen.dropwizard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.eclipse.jetty.server.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up the JVM by sending requests to the app's own connector until the 99th percentile latency stays at or below
+ * the target for enough windows in a row. Not ready if that doesn't happen before the deadline.
+ */
+class WarmupGate implements ReadinessGate {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmupGate.class);
+
+  private final CfSignalResourceWarmupConfig config;
+
+  WarmupGate(final CfSignalResourceWarmupConfig config) {
+    this.config = checkNotNull(config);
+  }
+
+  @Override
+  public CompletableFuture<Readiness> await(final Server server) {
+    final URI baseUri;
+    try {
+      baseUri = LocalConnectors.baseUri(server, config.getConnectorName());
+    }
+    catch (IllegalStateException e) {
+      return CompletableFuture.completedFuture(Readiness.notReady("unable to warm up, " + e.getMessage()));
+    }
+    return warmUp(baseUri);
+  }
+
+  @VisibleForTesting
+  CompletableFuture<Readiness> warmUp(final URI baseUri) {
+    final CompletableFuture<Readiness> readiness = new CompletableFuture<>();
+    final ExecutorService workers = Executors.newFixedThreadPool(
+      config.getConcurrency(), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-warmup-%d").build());
+    final ScheduledExecutorService windows = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("cf-signal-warmup-windows-%d").build());
+    readiness.whenComplete((result, throwable) -> {
+      workers.shutdownNow();
+      windows.shutdownNow();
+    });
+
+    LOGGER.info("Warming up against {} until p99 <= {} for {} windows", baseUri, config.getP99Target(),
+                config.getRequiredWindows());
+
+    final List<CfSignalResourceWarmupConfig.Request> requests = config.getRequests();
+    final AtomicInteger nextRequest = new AtomicInteger();
+    final LatencyWindow window = new LatencyWindow();
+    for (int i = 0; i < config.getConcurrency(); i++) {
+      workers.execute(() -> {
+        while (!readiness.isDone() && !Thread.currentThread().isInterrupted()) {
+          final CfSignalResourceWarmupConfig.Request request =
+            requests.get(Math.floorMod(nextRequest.getAndIncrement(), requests.size()));
+          final long start = System.nanoTime();
+          if (send(baseUri, request)) {
+            window.record(System.nanoTime() - start);
+          }
+        }
+      });
+    }
+
+    final long p99TargetNanos = config.getP99Target().toNanoseconds();
+    final AtomicInteger warmWindows = new AtomicInteger();
+    final AtomicLong lastP99Nanos = new AtomicLong(-1);
+    final long windowMillis = config.getWindow().toMilliseconds();
+    windows.scheduleAtFixedRate(() -> {
+      final long[] latencies = window.drain();
+      if (latencies.length < config.getMinRequestsPerWindow()) {
+        LOGGER.debug("Warmup window had only {} requests", latencies.length);
+        warmWindows.set(0);
+        return;
+      }
+      final long p99Nanos = percentile(latencies, 0.99);
+      lastP99Nanos.set(p99Nanos);
+      LOGGER.info("Warmup window of {} requests had a p99 of {}ms", latencies.length,
+                  TimeUnit.NANOSECONDS.toMillis(p99Nanos));
+      if (p99Nanos > p99TargetNanos) {
+        warmWindows.set(0);
+      }
+      else if (warmWindows.incrementAndGet() >= config.getRequiredWindows()) {
+        readiness.complete(Readiness.ready());
+      }
+    }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+
+    windows.schedule(() -> {
+      final long lastP99 = lastP99Nanos.get();
+      readiness.complete(Readiness.notReady(
+        "not warmed up within " + config.getDeadline() + ", last p99 "
+        + (lastP99 < 0 ? "unknown" : TimeUnit.NANOSECONDS.toMillis(lastP99) + "ms")
+        + " against a target of " + config.getP99Target()));
+    }, config.getDeadline().toMilliseconds(), TimeUnit.MILLISECONDS);
+
+    return readiness;
+  }
+
+  /**
+   * @return if a response was received, whatever its status
+   */
+  private boolean send(final URI baseUri, final CfSignalResourceWarmupConfig.Request request) {
+    try {
+      LocalConnectors.send(baseUri.resolve(request.getPath()),
+                           request.getMethod(),
+                           request.getBody() == null
+                           ? Collections.emptyMap()
+                           : Collections.singletonMap("Content-Type", request.getContentType()),
+                           request.getBody() == null ? null : request.getBody().getBytes(StandardCharsets.UTF_8),
+                           (int) config.getRequestTimeout().toMilliseconds());
+      return true;
+    }
+    catch (IOException e) {
+      LOGGER.debug("Warmup request {} {} failed", request.getMethod(), request.getPath(), e);
+      return false;
+    }
+  }
+
+  @VisibleForTesting
+  static long percentile(final long[] values, final double percentile) {
+    final long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  /**
+   * Latencies recorded during the current window.
+   */
+  private static final class LatencyWindow {
+
+    private long[] latencies = new long[1024];
+    private int size;
+
+    synchronized void record(final long latencyNanos) {
+      if (size == latencies.length) {
+        latencies = Arrays.copyOf(latencies, size * 2);
+      }
+      latencies[size++] = latencyNanos;
+    }
+
+    synchronized long[] drain() {
+      final long[] drained = Arrays.copyOf(latencies, size);
+      size = 0;
+      return drained;
+    }
+  }
+}
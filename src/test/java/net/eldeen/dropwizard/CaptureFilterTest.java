@@ -0,0 +1,154 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+public class CaptureFilterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path path;
+  private CaptureFilter captureFilter;
+
+  @Before
+  public void setUpCaptureFilter() throws IOException {
+    path = temporaryFolder.getRoot().toPath().resolve("requests.recording");
+    captureFilter = new CaptureFilter(RequestRecording.openForAppend(path, 4096),
+                                      1,
+                                      1024,
+                                      Arrays.asList("Accept", "Content-Type"),
+                                      Arrays.asList("GET", "POST"),
+                                      Collections.singletonList("/admin/.*"));
+  }
+
+  @Test
+  public void capturesRequestsAndStillHandsTheAppTheirBody() throws Exception {
+    final HttpServletRequest request = request("POST", "{\"name\":\"thing\"}");
+    when(request.getContentType()).thenReturn("application/json");
+    when(request.getHeader("Content-Type")).thenReturn("application/json");
+    when(request.getHeader("Authorization")).thenReturn("Bearer secret");
+    final FilterChain chain = mock(FilterChain.class);
+
+    captureFilter.doFilter(request, mock(HttpServletResponse.class), chain);
+
+    final ArgumentCaptor<ServletRequest> handedOn = ArgumentCaptor.forClass(ServletRequest.class);
+    verify(chain).doFilter(handedOn.capture(), any());
+    assertThat(new String(ByteStreams.toByteArray(handedOn.getValue().getInputStream()), StandardCharsets.UTF_8),
+               equalTo("{\"name\":\"thing\"}"));
+
+    final List<RequestRecording.Request> recorded = RequestRecording.read(path);
+    assertThat(recorded, hasSize(1));
+    assertThat(recorded.get(0).getMethod(), equalTo("POST"));
+    assertThat(recorded.get(0).getUri(), equalTo("/things?page=2"));
+    assertThat(recorded.get(0).getHeaders(), equalTo(Collections.singletonMap("Content-Type", "application/json")));
+    assertThat(new String(recorded.get(0).getBody(), StandardCharsets.UTF_8), equalTo("{\"name\":\"thing\"}"));
+  }
+
+  @Test
+  public void leavesOutReplayedRequestsAndBodiesItCantBound() throws Exception {
+    final HttpServletRequest replayed = request("GET", "");
+    when(replayed.getHeader(CaptureFilter.REPLAY_HEADER)).thenReturn("true");
+    final HttpServletRequest chunked = request("POST", "{\"name\":\"thing\"}");
+    when(chunked.getContentLengthLong()).thenReturn(-1L);
+    when(chunked.getHeader("Transfer-Encoding")).thenReturn("chunked");
+    final HttpServletRequest form = request("POST", "name=thing");
+    when(form.getContentType()).thenReturn("application/x-www-form-urlencoded");
+
+    for (HttpServletRequest request : Arrays.asList(replayed, chunked, form)) {
+      final FilterChain chain = mock(FilterChain.class);
+      final HttpServletResponse response = mock(HttpServletResponse.class);
+      captureFilter.doFilter(request, response, chain);
+      final ArgumentCaptor<ServletRequest> handedOn = ArgumentCaptor.forClass(ServletRequest.class);
+      verify(chain).doFilter(handedOn.capture(), eq(response));
+      assertSame(request, handedOn.getValue());
+    }
+
+    assertThat(RequestRecording.read(path), empty());
+  }
+
+  @Test
+  public void onlyCapturesTheConfiguredMethodsAndPaths() throws Exception {
+    final CfSignalResourceReplayConfig config = new CfSignalResourceReplayConfig();
+    final CaptureFilter safeMethodsOnly = new CaptureFilter(RequestRecording.openForAppend(path, 4096),
+                                                            1,
+                                                            1024,
+                                                            config.getHeaders(),
+                                                            config.getMethods(),
+                                                            Collections.singletonList("/admin/.*"));
+    final HttpServletRequest post = request("POST", "{\"name\":\"thing\"}");
+    final HttpServletRequest excluded = request("GET", "");
+    when(excluded.getRequestURI()).thenReturn("/admin/things");
+
+    for (HttpServletRequest request : Arrays.asList(post, excluded)) {
+      final FilterChain chain = mock(FilterChain.class);
+      final HttpServletResponse response = mock(HttpServletResponse.class);
+      safeMethodsOnly.doFilter(request, response, chain);
+      verify(chain).doFilter(request, response);
+    }
+    assertThat(RequestRecording.read(path), empty());
+
+    safeMethodsOnly.doFilter(request("GET", ""), mock(HttpServletResponse.class), mock(FilterChain.class));
+    assertThat(RequestRecording.read(path), hasSize(1));
+  }
+
+  private static HttpServletRequest request(final String method, final String body) throws IOException {
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    final ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+    when(request.getMethod()).thenReturn(method);
+    when(request.getRequestURI()).thenReturn("/things");
+    when(request.getQueryString()).thenReturn("page=2");
+    when(request.getContentLengthLong()).thenReturn((long) bytes.length);
+    when(request.getInputStream()).thenReturn(new ServletInputStream() {
+      @Override
+      public boolean isFinished() {
+        return in.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(final ReadListener readListener) {
+      }
+
+      @Override
+      public int read() {
+        return in.read();
+      }
+    });
+    return request;
+  }
+}
@@ -0,0 +1,84 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CdsArchiveTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path archivePath;
+  private Path store;
+
+  @Before
+  public void setUpPaths() throws IOException {
+    archivePath = temporaryFolder.getRoot().toPath().resolve("instance").resolve("app-1.2.jsa");
+    store = temporaryFolder.newFolder("store").toPath();
+  }
+
+  @Test
+  public void dumpsTheArchiveOnceAndStoresIt() throws IOException {
+    final AtomicInteger dumps = new AtomicInteger();
+    final CdsArchive archive = new CdsArchive(archivePath, Optional.of(store), file -> {
+      dumps.incrementAndGet();
+      try {
+        Files.write(file, "archive".getBytes(StandardCharsets.UTF_8));
+      }
+      catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    });
+
+    assertTrue(archive.archive());
+    assertTrue(archive.archive());
+
+    assertThat(dumps.get(), equalTo(1));
+    assertThat(new String(Files.readAllBytes(store.resolve("app-1.2.jsa")), StandardCharsets.UTF_8),
+               equalTo("archive"));
+    assertThat(Files.list(archivePath.getParent()).count(), equalTo(1L));
+  }
+
+  @Test
+  public void carriesOnWithoutAnArchiveWhenTheJvmCantDumpOne() throws IOException {
+    //not started with -XX:+RecordDynamicDumpInfo
+    assertFalse(new CdsArchive(archivePath, Optional.of(store), file -> { }).archive());
+    //before Java 17
+    assertFalse(new CdsArchive(archivePath, Optional.of(store), file -> {
+      throw new ReflectionException(new NoSuchMethodException("vmCds"));
+    }).archive());
+
+    assertFalse(Files.exists(archivePath));
+    assertThat(Files.list(store).count(), equalTo(0L));
+  }
+
+  @Test
+  public void bootsTheNextInstanceWithTheStoredArchive() throws IOException {
+    final CdsArchive archive = new CdsArchive(archivePath, Optional.of(store));
+    assertThat(archive.jvmOptions(17), contains("-XX:+RecordDynamicDumpInfo"));
+
+    Files.write(store.resolve("app-1.2.jsa"), "archive".getBytes(StandardCharsets.UTF_8));
+    archive.fetch();
+
+    assertThat(new String(Files.readAllBytes(archivePath), StandardCharsets.UTF_8), equalTo("archive"));
+    assertThat(archive.jvmOptions(17), contains("-XX:SharedArchiveFile=" + archivePath));
+    assertThat(archive.jvmOptions(8), empty());
+  }
+}
@@ -1,34 +1,101 @@
 package net.eldeen.dropwizard;
 
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import javax.servlet.Filter;
+import javax.servlet.FilterRegistration;
+import javax.servlet.Servlet;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRegistration;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
-
+import javax.validation.Validator;
+import javax.validation.metadata.ConstraintDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.cloudformation.AmazonCloudFormation;
+import com.amazonaws.services.cloudformation.AmazonCloudFormationClient;
 import com.amazonaws.services.cloudformation.model.DescribeStackResourceResult;
+import com.amazonaws.services.cloudformation.model.GetTemplateResult;
 import com.amazonaws.services.cloudformation.model.ResourceSignalStatus;
 import com.amazonaws.services.cloudformation.model.ResourceStatus;
 import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.dropwizard.Configuration;
+import io.dropwizard.configuration.ConfigurationFactory;
+import io.dropwizard.configuration.ConfigurationFactoryFactory;
+import io.dropwizard.configuration.ConfigurationValidationException;
+import io.dropwizard.configuration.DefaultConfigurationFactoryFactory;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.jetty.setup.ServletEnvironment;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
+import io.dropwizard.setup.AdminEnvironment;
+import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.dropwizard.util.Duration;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
@@ -58,12 +125,18 @@ public class CfSignalResourceBundleTest {
   @Mock
   private LifecycleEnvironment lifecycleEnvironment;
 
+  @Mock
+  private AdminEnvironment adminEnvironment;
+
   @Captor
   private ArgumentCaptor<CfSignalResourceBundle.CfSignalResourceLifcycleListener> listenerArgumentCaptor;
 
   @Rule
   public MockitoRule mockitoJUnitRule = MockitoJUnit.rule();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Before
   public void setupTestConfigWithDefaults() {
     testConfig.cfSignalResourceConfig = new CfSignalResourceConfig();
@@ -76,6 +149,9 @@ public class CfSignalResourceBundleTest {
   @Before
   public void setupLifeCycleEnvironment() {
     when(environment.lifecycle()).thenReturn(lifecycleEnvironment);
+    when(environment.metrics()).thenReturn(new MetricRegistry());
+    when(environment.admin()).thenReturn(adminEnvironment);
+    when(adminEnvironment.addServlet(any(), any(Servlet.class))).thenReturn(mock(ServletRegistration.Dynamic.class));
   }
 
   @Test
@@ -115,24 +191,246 @@ public class CfSignalResourceBundleTest {
   }
 
   @Test
-  public void lifecycleListenerDoesNotSignalOutsideCloudFormationUpdate() throws Exception {
+  public void looksUpTheRegionWithTheBundlesOwnMetadataResolver() {
+    Ec2MetadataResolver ec2MetadataResolver = mock(Ec2MetadataResolver.class);
+    when(ec2MetadataResolver.resolve())
+      .thenReturn(Optional.of(new Ec2MetadataResolver.Ec2Identity("i-123", "eu-west-1")));
+    testConfig.cfSignalResourceConfig.setAwsRegion(null);
+    testConfig.cfSignalResourceConfig.setLightweightClient(true);
+
+    CfSignalResourceBundle.newCloudFormationClient(testConfig.cfSignalResourceConfig, ec2MetadataResolver).shutdown();
+
+    verify(ec2MetadataResolver).resolve();
+  }
+
+  @Test
+  public void recordsMetricsForEachPhaseOfSignalling() throws Exception {
     AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    MetricRegistry metricRegistry = new MetricRegistry();
+    when(environment.metrics()).thenReturn(metricRegistry);
 
-    final String uniqueId = "i-123";
-    testConfig.cfSignalResourceConfig.setEc2InstanceId(uniqueId);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(metricRegistry.timer(SignalMetrics.PREFIX + ".describeStackResource").getCount(), equalTo(1L));
+    assertThat(metricRegistry.timer(SignalMetrics.PREFIX + ".signalResource").getCount(), equalTo(1L));
+    assertThat((Long) metricRegistry.getGauges().get(SignalMetrics.PREFIX + ".jvmStartToSignalMillis").getValue(),
+               greaterThan(0L));
+    assertThat(metricRegistry.counter(SignalMetrics.PREFIX + ".failures").getCount(), equalTo(0L));
+  }
+
+  @Test
+  public void sharesTheGaugesWithAnotherBundleInTheSameApp() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    when(environment.metrics()).thenReturn(metricRegistry);
+    testConfig.cfSignalResourceConfig.getMonitor().setEnabled(true);
+
+    new CfSignalResourceBundle(mock(AmazonCloudFormation.class)).run(testConfig, environment);
+    new CfSignalResourceBundle(mock(AmazonCloudFormation.class)).run(testConfig, environment);
+
+    assertThat(metricRegistry.getGauges().keySet(),
+               hasItems(SignalMetrics.PREFIX + ".jvmStartToSignalMillis", SignalMetrics.PREFIX + ".ready"));
+  }
+
+  @Test
+  public void servesTheStartupTimelineOnTheAdminPort() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    ServletRegistration.Dynamic registration = mock(ServletRegistration.Dynamic.class);
+    when(adminEnvironment.addServlet(any(), any(Servlet.class))).thenReturn(registration);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
 
     CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    ArgumentCaptor<Servlet> servlet = ArgumentCaptor.forClass(Servlet.class);
+    verify(adminEnvironment).addServlet(any(), servlet.capture());
+    verify(registration).addMapping(CfSignalResourceBundle.TIMELINE_PATH);
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarting(mock(LifeCycle.class));
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+    cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS);
+
+    final JsonNode timeline = getTimeline((StartupTimelineServlet) servlet.getValue());
+    assertThat(timeline.get("outcome").asText(), equalTo("SIGNALLED_SUCCESS"));
+    assertThat(eventNames(timeline), hasItems("run", "jetty.starting", "jetty.started", "readiness", "signal.SUCCESS",
+                                              "signalled.autoScalingGroup"));
+  }
+
+  @Test
+  public void leavesTheSignalOffTheTimelineWhenNoneWasSent() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    ServletRegistration.Dynamic registration = mock(ServletRegistration.Dynamic.class);
+    when(adminEnvironment.addServlet(any(), any(Servlet.class))).thenReturn(registration);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE)));
 
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
     cfSignalResourceBundle.run(testConfig, environment);
 
-    verify(testConfig).getCfSignalResourceConfig();
+    ArgumentCaptor<Servlet> servlet = ArgumentCaptor.forClass(Servlet.class);
+    verify(adminEnvironment).addServlet(any(), servlet.capture());
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS));
+
+    final List<String> events = eventNames(getTimeline((StartupTimelineServlet) servlet.getValue()));
+    assertThat(events, hasItem("signal.SUCCESS"));
+    assertThat(events, not(hasItem("signalled.autoScalingGroup")));
+  }
+
+  private JsonNode getTimeline(final StartupTimelineServlet servlet) throws IOException {
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(writingTo(body));
+    servlet.doGet(mock(HttpServletRequest.class), response);
+    return Jackson.newObjectMapper().readTree(body.toByteArray());
+  }
+
+  private static List<String> eventNames(final JsonNode timeline) {
+    final List<String> events = new ArrayList<>();
+    timeline.get("events").forEach(event -> events.add(event.get("name").asText()));
+    return events;
+  }
+
+  @Test
+  public void servesReadinessOnceSignalledAndWhileTheAppStaysFit() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    ServletRegistration.Dynamic registration = mock(ServletRegistration.Dynamic.class);
+    when(adminEnvironment.addServlet(any(), any(Servlet.class))).thenReturn(registration);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    testConfig.cfSignalResourceConfig.getMonitor().setEnabled(true);
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    ArgumentCaptor<Servlet> servlet = ArgumentCaptor.forClass(Servlet.class);
+    verify(adminEnvironment).addServlet(eq("cf-signal-resource-readiness"), servlet.capture());
+    verify(registration).addMapping(CfSignalResourceBundle.READINESS_PATH);
+    verify(lifecycleEnvironment).manage(isA(ReadinessMonitor.class));
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    HttpServletResponse starting = mock(HttpServletResponse.class);
+    when(starting.getOutputStream()).thenReturn(writingTo(new ByteArrayOutputStream()));
+    ((ReadinessServlet) servlet.getValue()).doGet(mock(HttpServletRequest.class), starting);
+    verify(starting).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+    cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS);
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    HttpServletResponse started = mock(HttpServletResponse.class);
+    when(started.getOutputStream()).thenReturn(writingTo(body));
+    ((ReadinessServlet) servlet.getValue()).doGet(mock(HttpServletRequest.class), started);
+    verify(started).setStatus(HttpServletResponse.SC_OK);
+    assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8), equalTo("{\"ready\":true}"));
+  }
+
+  @Test
+  public void servesNotReadyWhenSignallingFailed() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    ServletRegistration.Dynamic registration = mock(ServletRegistration.Dynamic.class);
+    when(adminEnvironment.addServlet(any(), any(Servlet.class))).thenReturn(registration);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    final AmazonServiceException rejected = new AmazonServiceException("signal rejected");
+    rejected.setErrorCode("ValidationError");
+    rejected.setStatusCode(400);
+    doThrow(rejected).when(amazonCloudFormation).signalResource(any());
+
+    testConfig.cfSignalResourceConfig.getMonitor().setEnabled(true);
 
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    ArgumentCaptor<Servlet> servlet = ArgumentCaptor.forClass(Servlet.class);
+    verify(adminEnvironment).addServlet(eq("cf-signal-resource-readiness"), servlet.capture());
     verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+    try {
+      cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS);
+      fail("signalling should have failed");
+    }
+    catch (ExecutionException e) {
+      assertSame(rejected, e.getCause());
+    }
+
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    HttpServletResponse failed = mock(HttpServletResponse.class);
+    when(failed.getOutputStream()).thenReturn(writingTo(body));
+    ((ReadinessServlet) servlet.getValue()).doGet(mock(HttpServletRequest.class), failed);
+    verify(failed).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8),
+               containsString("signalling failed, signal rejected"));
+  }
+
+  private static ServletOutputStream writingTo(final ByteArrayOutputStream body) {
+    return new ServletOutputStream() {
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(final WriteListener writeListener) {
+      }
+
+      @Override
+      public void write(final int b) {
+        body.write(b);
+      }
+    };
+  }
+
+
+  @Test
+  public void countsSkippedSignals() {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    when(environment.metrics()).thenReturn(metricRegistry);
+    testConfig.cfSignalResourceConfig.setSkip(true);
+
+    new CfSignalResourceBundle(mock(AmazonCloudFormation.class)).run(testConfig, environment);
+
+    assertThat(metricRegistry.counter(SignalMetrics.PREFIX + ".skipped").getCount(), equalTo(1L));
+  }
+
+  @Test
+  public void lifecycleListenerDoesNotSignalOutsideCloudFormationUpdate() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    final String uniqueId = "i-123";
+    testConfig.cfSignalResourceConfig.setEc2InstanceId(uniqueId);
 
     when(amazonCloudFormation.describeStackResource(any())).thenReturn(
         new DescribeStackResourceResult().withStackResourceDetail(
             new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE)));
 
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(testConfig).getCfSignalResourceConfig();
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
     listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
 
     verify(amazonCloudFormation)
@@ -146,6 +444,30 @@ public class CfSignalResourceBundleTest {
     assertThat(cfSignalResourceBundle.getInternalCloudFormation(), nullValue());
   }
 
+  @Test
+  public void signalsThroughARealClient() throws Exception {
+    try (FakeCloudFormationServer cloudFormation = new FakeCloudFormationServer()) {
+      CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(config -> {
+        AmazonCloudFormationClient client = new AmazonCloudFormationClient(new BasicAWSCredentials("test", "test"));
+        client.setEndpoint(cloudFormation.getEndpoint());
+        return client;
+      }, Ec2MetadataResolver.getDefault());
+      cfSignalResourceBundle.run(testConfig, environment);
+
+      verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+      listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+      assertThat(cfSignalResourceBundle.getSignalOutcome().getNow(null),
+                 equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+      Map<String, String> signal = cloudFormation.awaitSignal(1, TimeUnit.SECONDS);
+      assertThat(signal.get("Status"), equalTo("SUCCESS"));
+      assertThat(signal.get("UniqueId"), equalTo("i-123"));
+      assertThat(signal.get("LogicalResourceId"), equalTo("autoScalingGroup"));
+      assertThat(signal.get("StackName"), equalTo("stackName"));
+    }
+  }
+
   @Test
   public void lifecycleListenerSignalsSuccess() throws Exception {
     AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
@@ -153,6 +475,10 @@ public class CfSignalResourceBundleTest {
     final String uniqueId = "i-123";
     testConfig.cfSignalResourceConfig.setEc2InstanceId(uniqueId);
 
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
     CfSignalResourceBundle cfSignalResourceBundle =
       new CfSignalResourceBundle(amazonCloudFormation);
     cfSignalResourceBundle.run(testConfig, environment);
@@ -161,10 +487,6 @@ public class CfSignalResourceBundleTest {
 
     verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
 
-    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
-        new DescribeStackResourceResult().withStackResourceDetail(
-            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
-
     LifeCycle event = mock(LifeCycle.class);
 
     listenerArgumentCaptor.getValue().lifeCycleStarted(event);
@@ -195,6 +517,10 @@ public class CfSignalResourceBundleTest {
     final String uniqueId = "i-123";
     testConfig.cfSignalResourceConfig.setEc2InstanceId(uniqueId);
 
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.CREATE_IN_PROGRESS)));
+
     CfSignalResourceBundle cfSignalResourceBundle =
       new CfSignalResourceBundle(amazonCloudFormation);
     cfSignalResourceBundle.run(testConfig, environment);
@@ -203,10 +529,6 @@ public class CfSignalResourceBundleTest {
 
     verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
 
-    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
-        new DescribeStackResourceResult().withStackResourceDetail(
-            new StackResourceDetail().withResourceStatus(ResourceStatus.CREATE_IN_PROGRESS)));
-
     LifeCycle event = mock(LifeCycle.class);
     when(event.isStopping()).thenReturn(Boolean.FALSE);
     when(event.isStopped()).thenReturn(Boolean.FALSE);
@@ -248,9 +570,737 @@ public class CfSignalResourceBundleTest {
     when(event.isStopping()).thenReturn(Boolean.TRUE);
     when(event.isStopped()).thenReturn(Boolean.FALSE);
 
+    listenerArgumentCaptor.getValue().lifeCycleFailure(event, new Throwable("testing"));
+
+    verify(amazonCloudFormation, never()).signalResource(any());
+  }
+
+  @Test
+  public void lifecycleListenerSignalsAsynchronously() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    testConfig.cfSignalResourceConfig.setAsyncSignal(true);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    verify(amazonCloudFormation).signalResource(any());
+  }
+
+  @Test
+  public void signallingGivesUpAfterSignalTimeout() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    testConfig.cfSignalResourceConfig.setSignalTimeout(Duration.milliseconds(50));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenAnswer(invocation -> {
+      Thread.sleep(TimeUnit.SECONDS.toMillis(5));
+      return new DescribeStackResourceResult().withStackResourceDetail(
+          new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS));
+    });
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    try {
+      cfSignalResourceBundle.getSignalOutcome().get(1, TimeUnit.SECONDS);
+      fail("signalling should have timed out");
+    }
+    catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(TimeoutException.class));
+    }
+    verify(amazonCloudFormation, never()).signalResource(any());
+  }
+
+  @Test
+  public void signalsEveryTargetConcurrently() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    final CfSignalResourceTarget waitCondition = new CfSignalResourceTarget("nestedStack", "waitCondition");
+    testConfig.cfSignalResourceConfig.setAdditionalTargets(Collections.singletonList(waitCondition));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    doAnswer(invocation -> {
+      Thread.sleep(500);
+      return null;
+    }).when(amazonCloudFormation).signalResource(any());
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    final long started = System.nanoTime();
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    //both signals took half a second, at the same time
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), lessThan(950L));
+
+    final Map<CfSignalResourceTarget, CompletableFuture<CfSignalResourceOutcome>> targetOutcomes =
+      cfSignalResourceBundle.getTargetOutcomes();
+    assertThat(targetOutcomes.keySet(),
+               contains(new CfSignalResourceTarget("stackName", "autoScalingGroup"), waitCondition));
+    for (CompletableFuture<CfSignalResourceOutcome> targetOutcome : targetOutcomes.values()) {
+      assertThat(targetOutcome.get(), equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    }
+    verify(amazonCloudFormation)
+      .signalResource(argThat(allOf(hasProperty("stackName", equalTo("stackName")),
+                                    hasProperty("logicalResourceId", equalTo("autoScalingGroup")))));
+    verify(amazonCloudFormation)
+      .signalResource(argThat(allOf(hasProperty("stackName", equalTo("nestedStack")),
+                                    hasProperty("logicalResourceId", equalTo("waitCondition")))));
+  }
+
+  @Test
+  public void signalOutcomeIsTheFirstTargetToFail() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    testConfig.cfSignalResourceConfig.setAdditionalTargets(
+      Collections.singletonList(new CfSignalResourceTarget("nestedStack", "waitCondition")));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    final AmazonServiceException validationError = new AmazonServiceException("wait condition already signalled");
+    validationError.setErrorCode("ValidationError");
+    validationError.setStatusCode(400);
+    doThrow(validationError).when(amazonCloudFormation)
+                            .signalResource(argThat(hasProperty("logicalResourceId", equalTo("waitCondition"))));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    try {
+      cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS);
+      fail("signalling the wait condition should have failed");
+    }
+    catch (ExecutionException e) {
+      assertSame(validationError, e.getCause());
+    }
+    final Map<CfSignalResourceTarget, CompletableFuture<CfSignalResourceOutcome>> targetOutcomes =
+      cfSignalResourceBundle.getTargetOutcomes();
+    assertThat(targetOutcomes.get(new CfSignalResourceTarget("stackName", "autoScalingGroup")).get(),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+  }
+
+  @Test
+  public void doesNotSignalAgainWhatWasSignalledBeforeRestarting() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    final Path journalPath = temporaryFolder.getRoot().toPath().resolve("signals.journal");
+    testConfig.cfSignalResourceConfig.getJournal().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getJournal().setPath(journalPath.toString());
+    SignalJournal.open(journalPath).acknowledge(new CfSignalResourceTarget("stackName", "autoScalingGroup"),
+                                                "i-123",
+                                                ResourceSignalStatus.SUCCESS);
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
     verifyZeroInteractions(amazonCloudFormation);
   }
 
+  @Test
+  public void storesTheCdsArchiveOnceSignalledSuccessfully() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    //dumped by an earlier boot, so this JVM needn't be able to dump one
+    final Path archivePath = temporaryFolder.newFile("app.jsa").toPath();
+    final Path store = temporaryFolder.newFolder("store").toPath();
+    testConfig.cfSignalResourceConfig.getCds().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getCds().setArchivePath(archivePath.toString());
+    testConfig.cfSignalResourceConfig.getCds().setStoreDirectory(store.toString());
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    final CompletableFuture<Boolean> cdsArchived = cfSignalResourceBundle.getCdsArchived();
+    assertTrue(cdsArchived.get(5, TimeUnit.SECONDS));
+    assertTrue(Files.exists(store.resolve("app.jsa")));
+  }
+
+  @Test
+  public void signalsAPendingFailureAgainAsSoonAsTheAppRestarts() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    final Path journalPath = temporaryFolder.getRoot().toPath().resolve("signals.journal");
+    testConfig.cfSignalResourceConfig.getJournal().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getJournal().setPath(journalPath.toString());
+    final CfSignalResourceTarget asg = new CfSignalResourceTarget("stackName", "autoScalingGroup");
+    SignalJournal.open(journalPath).intend(asg, "i-123", ResourceSignalStatus.FAILURE);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    //the signal got through before the app restarted
+    final AmazonServiceException alreadySignalled =
+      new AmazonServiceException("Signal with ID i-123 for resource autoScalingGroup already exists.");
+    alreadySignalled.setErrorCode("ValidationError");
+    alreadySignalled.setStatusCode(400);
+    doThrow(alreadySignalled).when(amazonCloudFormation).signalResource(any());
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_FAILURE));
+    verify(amazonCloudFormation).signalResource(argThat(hasProperty("status", equalTo("FAILURE"))));
+    assertThat(SignalJournal.open(journalPath).acknowledged(asg, "i-123"),
+               equalTo(Optional.of(ResourceSignalStatus.FAILURE)));
+  }
+
+  @Test
+  public void signalsOnAFreshStatusSnapshotsWordWithoutAskingCloudFormation() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    writeStatusSnapshot(Instant.now(), "UPDATE_IN_PROGRESS");
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    verify(amazonCloudFormation, never()).describeStackResource(any());
+    verify(amazonCloudFormation).signalResource(any());
+  }
+
+  @Test
+  public void asksCloudFormationWhenItRejectsASignalSentOnTheSnapshotsWord() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    writeStatusSnapshot(Instant.now(), "UPDATE_IN_PROGRESS");
+
+    final AmazonServiceException notWaiting = new AmazonServiceException(
+      "Resource autoScalingGroup is in UPDATE_COMPLETE state and can not be signaled");
+    notWaiting.setErrorCode("ValidationError");
+    notWaiting.setStatusCode(400);
+    doThrow(notWaiting).when(amazonCloudFormation).signalResource(any());
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE)));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.NO_UPDATE_IN_PROGRESS));
+    verify(amazonCloudFormation).describeStackResource(any());
+    verify(amazonCloudFormation).signalResource(any());
+  }
+
+  private void writeStatusSnapshot(final Instant takenAt, final String resourceStatus) throws IOException {
+    final Path snapshotPath = temporaryFolder.getRoot().toPath().resolve("status.json");
+    testConfig.cfSignalResourceConfig.getStatusSnapshot().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getStatusSnapshot().setPath(snapshotPath.toString());
+    Files.write(snapshotPath,
+                ("{\"timestamp\": \"" + takenAt + "\", \"resources\": [{\"stackName\": \"stackName\","
+                 + " \"logicalResourceId\": \"autoScalingGroup\", \"resourceStatus\": \"" + resourceStatus + "\"}]}")
+                  .getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void completesTheLaunchLifecycleActionOnScaleOut() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    LifecycleHooks lifecycleHooks = mock(LifecycleHooks.class);
+
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setLifecycleHookNames(Collections.singletonList("warm-up"));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE)));
+    final LifecycleAction action = new LifecycleAction("app-asg", "warm-up", "i-123", Duration.minutes(5));
+    when(lifecycleHooks.findPendingActions("i-123", LifecycleHooks.LAUNCHING)).thenReturn(Collections.singletonList(action));
+
+    CfSignalResourceBundle cfSignalResourceBundle =
+      new CfSignalResourceBundle(amazonCloudFormation, config -> lifecycleHooks);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.LIFECYCLE_ACTION_CONTINUED));
+    verify(lifecycleHooks).complete(action, true);
+    verify(amazonCloudFormation, never()).signalResource(any());
+  }
+
+  @Test
+  public void leavesOtherLifecycleHooksAlone() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    LifecycleHooks lifecycleHooks = mock(LifecycleHooks.class);
+
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setLifecycleHookNames(Collections.singletonList("warm-up"));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE)));
+    final LifecycleAction action = new LifecycleAction("app-asg", "warm-up", "i-123", Duration.minutes(5));
+    //e.g. config management still setting up the instance
+    final LifecycleAction otherAction = new LifecycleAction("app-asg", "config-agent", "i-123", Duration.minutes(5));
+    when(lifecycleHooks.findPendingActions("i-123", LifecycleHooks.LAUNCHING)).thenReturn(Arrays.asList(action,
+                                                                                                        otherAction));
+
+    CfSignalResourceBundle cfSignalResourceBundle =
+      new CfSignalResourceBundle(amazonCloudFormation, config -> lifecycleHooks);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.LIFECYCLE_ACTION_CONTINUED));
+    verify(lifecycleHooks).complete(action, true);
+    verify(lifecycleHooks, never()).complete(eq(otherAction), anyBoolean());
+    verify(lifecycleHooks, never()).recordHeartbeat(otherAction);
+  }
+
+  @Test
+  public void recordsLifecycleHeartbeatsUntilReady() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    LifecycleHooks lifecycleHooks = mock(LifecycleHooks.class);
+
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setLifecycleHookNames(Collections.singletonList("warm-up"));
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setHeartbeatInterval(Duration.milliseconds(50));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    final LifecycleAction action = new LifecycleAction("app-asg", "warm-up", "i-123", Duration.minutes(5));
+    when(lifecycleHooks.findPendingActions("i-123", LifecycleHooks.LAUNCHING)).thenReturn(Collections.singletonList(action));
+
+    CfSignalResourceBundle cfSignalResourceBundle =
+      new CfSignalResourceBundle(amazonCloudFormation, config -> lifecycleHooks);
+    cfSignalResourceBundle.addReadinessTask("warmup", () -> Thread.sleep(500));
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    //CloudFormation was waiting for the signal, so it is what's reported
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    verify(lifecycleHooks, atLeast(3)).recordHeartbeat(action);
+    verify(lifecycleHooks).complete(action, true);
+  }
+
+  @Test
+  public void drainsRequestsBeforeCompletingTheTerminateLifecycleAction() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    LifecycleHooks lifecycleHooks = mock(LifecycleHooks.class);
+    ServletEnvironment servlets = mock(ServletEnvironment.class);
+    when(environment.servlets()).thenReturn(servlets);
+    when(servlets.addFilter(any(), any(Filter.class))).thenReturn(mock(FilterRegistration.Dynamic.class));
+
+    testConfig.cfSignalResourceConfig.getDrain().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setLifecycleHookNames(Collections.singletonList("drain"));
+    testConfig.cfSignalResourceConfig.getLifecycleHook().setHeartbeatInterval(Duration.milliseconds(50));
+
+    final LifecycleAction action = new LifecycleAction("app-asg", "drain", "i-123", Duration.minutes(5));
+    when(lifecycleHooks.findPendingActions("i-123", LifecycleHooks.TERMINATING))
+      .thenReturn(Collections.singletonList(action));
+
+    CfSignalResourceBundle cfSignalResourceBundle =
+      new CfSignalResourceBundle(amazonCloudFormation, config -> lifecycleHooks);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    ArgumentCaptor<Filter> drainFilter = ArgumentCaptor.forClass(Filter.class);
+    verify(servlets).addFilter(any(), drainFilter.capture());
+
+    //a request still in flight when the ASG starts terminating the instance
+    final CountDownLatch inFlight = new CountDownLatch(1);
+    final CountDownLatch respond = new CountDownLatch(1);
+    final CompletableFuture<Void> request = CompletableFuture.runAsync(() -> {
+      try {
+        drainFilter.getValue().doFilter(mock(HttpServletRequest.class), mock(HttpServletResponse.class),
+                                        (req, res) -> {
+                                          inFlight.countDown();
+                                          try {
+                                            respond.await();
+                                          }
+                                          catch (InterruptedException e) {
+                                            Thread.currentThread().interrupt();
+                                          }
+                                        });
+      }
+      catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertTrue(inFlight.await(1, TimeUnit.SECONDS));
+
+    final CompletableFuture<Void> drained = CompletableFuture.runAsync(
+      () -> cfSignalResourceBundle.drainForTermination(testConfig.cfSignalResourceConfig, "i-123"));
+
+    verify(lifecycleHooks, timeout(1000).atLeast(2)).recordHeartbeat(action);
+    verify(lifecycleHooks, never()).complete(any(), anyBoolean());
+
+    respond.countDown();
+    drained.get(5, TimeUnit.SECONDS);
+    request.get(5, TimeUnit.SECONDS);
+    verify(lifecycleHooks).complete(action, true);
+  }
+
+  @Test
+  public void lifecycleListenerChecksStatusAgainWhenPrefetchFails() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    when(amazonCloudFormation.describeStackResource(any()))
+      .thenThrow(new AmazonServiceException("testing"))
+      .thenReturn(new DescribeStackResourceResult().withStackResourceDetail(
+          new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    verify(amazonCloudFormation, times(2)).describeStackResource(any());
+    verify(amazonCloudFormation).signalResource(any());
+  }
+
+  @Test
+  public void lifecycleListenerRetriesThrottledSignal() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    testConfig.cfSignalResourceConfig.getRetry().setBaseDelay(Duration.milliseconds(1));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    AmazonServiceException throttling = new AmazonServiceException("Rate exceeded");
+    throttling.setErrorCode("Throttling");
+    throttling.setStatusCode(400);
+    doThrow(throttling).doThrow(throttling).doNothing().when(amazonCloudFormation).signalResource(any());
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    verify(amazonCloudFormation, times(3)).signalResource(any());
+    assertThat(cfSignalResourceBundle.getSignalOutcome().getNow(null),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+  }
+
+  @Test
+  public void countsASignalAsSentWhenARetryFindsTheFirstAttemptGotThrough() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    testConfig.cfSignalResourceConfig.getRetry().setBaseDelay(Duration.milliseconds(1));
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    //the first signal reached CloudFormation, but its response was lost
+    AmazonServiceException unavailable = new AmazonServiceException("Service Unavailable");
+    unavailable.setErrorCode("ServiceUnavailable");
+    unavailable.setStatusCode(503);
+    AmazonServiceException alreadySignalled =
+      new AmazonServiceException("Signal with ID i-123 for resource autoScalingGroup already exists.");
+    alreadySignalled.setErrorCode("ValidationError");
+    alreadySignalled.setStatusCode(400);
+    doThrow(unavailable).doThrow(alreadySignalled).when(amazonCloudFormation).signalResource(any());
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    verify(amazonCloudFormation, times(2)).signalResource(any());
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+  }
+
+  @Test
+  public void lifecycleListenerSignalsFailureWhenNotReady() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.addReadinessGate(server -> CompletableFuture.completedFuture(Readiness.ready()));
+    cfSignalResourceBundle.addReadinessGate(server -> CompletableFuture.completedFuture(Readiness.notReady("testing")));
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(Server.class));
+
+    verify(amazonCloudFormation)
+      .signalResource(argThat(hasProperty("status", equalTo(ResourceSignalStatus.FAILURE.toString()))));
+    assertThat(cfSignalResourceBundle.getSignalOutcome().getNow(null),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_FAILURE));
+  }
+
+  @Test
+  public void lifecycleListenerSignalsFailureWhenAReadinessTaskFails() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+    cfSignalResourceBundle.addReadinessTask("pool", () -> { });
+    cfSignalResourceBundle.addReadinessTask("cache", () -> {
+      throw new IllegalStateException("testing");
+    }, "pool");
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    verify(amazonCloudFormation)
+      .signalResource(argThat(hasProperty("status", equalTo(ResourceSignalStatus.FAILURE.toString()))));
+    assertThat(cfSignalResourceBundle.getSignalOutcome().getNow(null),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_FAILURE));
+  }
+
+  @Test
+  public void lifecycleListenerWaitsForReadinessBeforeSignallingSuccess() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+
+    testConfig.cfSignalResourceConfig.setAsyncSignal(true);
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CompletableFuture<Readiness> readiness = new CompletableFuture<>();
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(amazonCloudFormation);
+    cfSignalResourceBundle.addReadinessGate(server -> readiness);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(Server.class));
+
+    verify(amazonCloudFormation, never()).signalResource(any());
+
+    readiness.complete(Readiness.ready());
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_SUCCESS));
+    verify(amazonCloudFormation)
+      .signalResource(argThat(hasProperty("status", equalTo(ResourceSignalStatus.SUCCESS.toString()))));
+  }
+
+  @Test
+  public void skippedOutcomeWhenNotOnAWS() throws Exception {
+    testConfig.cfSignalResourceConfig.setEc2InstanceId("");
+
+    CfSignalResourceBundle cfSignalResourceBundle = new CfSignalResourceBundle(mock(AmazonCloudFormation.class));
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    assertThat(cfSignalResourceBundle.getSignalOutcome().getNow(null), equalTo(CfSignalResourceOutcome.SKIPPED));
+  }
+
+  @Test
+  public void internalClientIsReusedAndOnlyShutDownWhenTheAppStops() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    AtomicInteger clientsCreated = new AtomicInteger();
+
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle<TestConfig> cfSignalResourceBundle = new CfSignalResourceBundle<>((config) -> {
+      clientsCreated.incrementAndGet();
+      return amazonCloudFormation;
+    }, Ec2MetadataResolver.getDefault());
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    ArgumentCaptor<Managed> managedArgumentCaptor = ArgumentCaptor.forClass(Managed.class);
+    verify(lifecycleEnvironment).manage(managedArgumentCaptor.capture());
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+
+    verify(amazonCloudFormation).signalResource(any());
+    verify(amazonCloudFormation, never()).shutdown();
+    assertSame(amazonCloudFormation, cfSignalResourceBundle.getInternalCloudFormation());
+    assertThat(clientsCreated.get(), equalTo(1));
+
+    managedArgumentCaptor.getValue().stop();
+
+    verify(amazonCloudFormation).shutdown();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void signalsFailureAsSoonAsTheConfigurationIsInvalid() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+    Bootstrap<TestConfig> bootstrap = mock(Bootstrap.class);
+    when(bootstrap.getConfigurationFactoryFactory()).thenReturn(new DefaultConfigurationFactoryFactory<>());
+    ConstraintViolation<Object> violation = mock(ConstraintViolation.class);
+    when(violation.getConstraintDescriptor()).thenReturn(mock(ConstraintDescriptor.class));
+    Validator validator = mock(Validator.class);
+    when(validator.validate(any())).thenReturn(Collections.singleton(violation));
+
+    new CfSignalResourceBundle<TestConfig>(amazonCloudFormation).initialize(bootstrap);
+
+    ArgumentCaptor<ConfigurationFactoryFactory> factoryFactory = ArgumentCaptor.forClass(ConfigurationFactoryFactory.class);
+    verify(bootstrap).setConfigurationFactoryFactory(factoryFactory.capture());
+    ConfigurationFactory<TestConfig> configurationFactory =
+      factoryFactory.getValue().create(TestConfig.class, validator, Jackson.newObjectMapper(), "dw");
+    try {
+      configurationFactory.build(path -> new ByteArrayInputStream(("cfSignalResourceConfig:\n"
+                                                                   + "  asgResourceName: autoScalingGroup\n"
+                                                                   + "  stackName: stackName\n"
+                                                                   + "  ec2InstanceId: i-123\n"
+                                                                   + "  awsRegion: us-west-2\n")
+                                                                    .getBytes(StandardCharsets.UTF_8)),
+                                 "config.yml");
+      fail("the config should not have been valid");
+    }
+    catch (ConfigurationValidationException e) {
+      verify(amazonCloudFormation)
+        .signalResource(
+          argThat(
+            allOf(
+              hasProperty("status", equalTo(ResourceSignalStatus.FAILURE.toString())),
+              hasProperty("uniqueId", equalTo("i-123")))));
+    }
+  }
+
+  @Test
+  public void signalsFailureIfTheJvmExitsBeforeTheAppStarted() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle<TestConfig> cfSignalResourceBundle = new CfSignalResourceBundle<>(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    ShutdownHook startupFailureHook = cfSignalResourceBundle.getStartupFailureHook();
+    assertThat(startupFailureHook.isArmed(), equalTo(true));
+
+    startupFailureHook.runNow();
+
+    verify(amazonCloudFormation)
+      .signalResource(argThat(hasProperty("status", equalTo(ResourceSignalStatus.FAILURE.toString()))));
+    assertThat(cfSignalResourceBundle.getSignalOutcome().getNow(null),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_FAILURE));
+    assertThat(awaitDisarmed(startupFailureHook), equalTo(true));
+  }
+
+  @Test
+  public void signalsOnlyOnce() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)));
+
+    CfSignalResourceBundle<TestConfig> cfSignalResourceBundle = new CfSignalResourceBundle<>(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+    verify(lifecycleEnvironment).addLifeCycleListener(listenerArgumentCaptor.capture());
+
+    listenerArgumentCaptor.getValue().lifeCycleStarted(mock(LifeCycle.class));
+    listenerArgumentCaptor.getValue().lifeCycleFailure(mock(LifeCycle.class), new RuntimeException("too late"));
+    cfSignalResourceBundle.getStartupFailureHook().runNow();
+
+    verify(amazonCloudFormation, times(1)).signalResource(any());
+    verify(amazonCloudFormation)
+      .signalResource(argThat(hasProperty("status", equalTo(ResourceSignalStatus.SUCCESS.toString()))));
+    assertThat(awaitDisarmed(cfSignalResourceBundle.getStartupFailureHook()), equalTo(true));
+  }
+
+  /**
+   * The hook is disarmed once the outcome completes, which may be just after waiting on the outcome returns.
+   */
+  private static boolean awaitDisarmed(final ShutdownHook shutdownHook) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    while (shutdownHook.isArmed() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    return !shutdownHook.isArmed();
+  }
+
+  @Test
+  public void signalsFailureWhenNotReadyBeforeTheSignalDeadline() throws Exception {
+    AmazonCloudFormation amazonCloudFormation = mock(AmazonCloudFormation.class);
+    when(amazonCloudFormation.describeStackResource(any())).thenReturn(
+        new DescribeStackResourceResult().withStackResourceDetail(
+            new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS)
+                                     .withLastUpdatedTimestamp(new Date())));
+    when(amazonCloudFormation.getTemplate(any())).thenReturn(new GetTemplateResult().withTemplateBody(
+      "{\"Resources\": {\"autoScalingGroup\": {\"UpdatePolicy\": {\"AutoScalingRollingUpdate\":"
+      + " {\"PauseTime\": \"PT2S\", \"WaitOnResourceSignals\": true}}}}}"));
+    testConfig.cfSignalResourceConfig.getBudget().setEnabled(true);
+    testConfig.cfSignalResourceConfig.getBudget().setSafetyMargin(Duration.seconds(1));
+
+    CfSignalResourceBundle<TestConfig> cfSignalResourceBundle = new CfSignalResourceBundle<>(amazonCloudFormation);
+    cfSignalResourceBundle.run(testConfig, environment);
+
+    Optional<Instant> deadline = cfSignalResourceBundle.getSignalDeadline().get(1, TimeUnit.SECONDS);
+    assertThat(deadline.isPresent(), equalTo(true));
+
+    //Jetty never starts, so the app is never ready
+    assertThat(cfSignalResourceBundle.getSignalOutcome().get(5, TimeUnit.SECONDS),
+               equalTo(CfSignalResourceOutcome.SIGNALLED_FAILURE));
+    assertThat(Instant.now().isBefore(deadline.get()), equalTo(true));
+    verify(amazonCloudFormation)
+      .signalResource(argThat(hasProperty("status", equalTo(ResourceSignalStatus.FAILURE.toString()))));
+  }
+
   @Test
   public void useInternalAmazonCloudformationClient() {
     CfSignalResourceBundle<Configuration> cfSignalResourceBundle = new CfSignalResourceBundle<>();
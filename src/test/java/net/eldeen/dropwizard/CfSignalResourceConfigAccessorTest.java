@@ -0,0 +1,66 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import io.dropwizard.Configuration;
+import org.junit.Test;
+
+public class CfSignalResourceConfigAccessorTest {
+
+  public static class AppConfig extends Configuration {
+
+    private final CfSignalResourceConfig cfSignalResource = new CfSignalResourceConfig();
+
+    public CfSignalResourceConfig getCfSignalResource() {
+      return cfSignalResource;
+    }
+  }
+
+  public static class AmbiguousConfig extends AppConfig {
+
+    public CfSignalResourceConfig getOtherCfSignalResource() {
+      return getCfSignalResource();
+    }
+  }
+
+  public static class NullConfig extends Configuration {
+
+    public CfSignalResourceConfig getCfSignalResource() {
+      return null;
+    }
+  }
+
+  @Test
+  public void findsTheAccessor() {
+    AppConfig config = new AppConfig();
+
+    assertThat(CfSignalResourceConfigAccessor.get(config).get(), sameInstance(config.getCfSignalResource()));
+    //served from the cache the second time
+    assertThat(CfSignalResourceConfigAccessor.get(config).get(), sameInstance(config.getCfSignalResource()));
+  }
+
+  @Test
+  public void emptyWithoutAnAccessor() {
+    assertFalse(CfSignalResourceConfigAccessor.get(new Configuration()).isPresent());
+  }
+
+  @Test
+  public void failsWhenMoreThanOneMethodMatches() {
+    try {
+      CfSignalResourceConfigAccessor.get(new AmbiguousConfig());
+      fail("should not pick one of several accessors");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getMessage(), containsString("getCfSignalResource, getOtherCfSignalResource"));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void failsWhenTheAccessorReturnsNull() {
+    CfSignalResourceConfigAccessor.get(new NullConfig());
+  }
+}
@@ -0,0 +1,199 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.cloudformation.AmazonCloudFormation;
+import com.amazonaws.services.cloudformation.model.DescribeStackResourceRequest;
+import com.amazonaws.services.cloudformation.model.DescribeStackResourceResult;
+import com.google.common.base.Ticker;
+import io.dropwizard.util.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CloudFormationRetrierTest {
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final Ticker ticker = new Ticker() {
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+  };
+
+  private CfSignalResourceRetryConfig config;
+  private AmazonCloudFormation amazonCloudFormation;
+  private SignalMetrics metrics;
+
+  @Before
+  public void setup() {
+    metrics = SignalMetrics.unregistered();
+    config = new CfSignalResourceRetryConfig();
+    config.setBaseDelay(Duration.milliseconds(1));
+    config.setMaxDelay(Duration.milliseconds(5));
+    config.setRequestsPerSecond(1000);
+    amazonCloudFormation = mock(AmazonCloudFormation.class);
+  }
+
+  private static AmazonServiceException throttling() {
+    AmazonServiceException e = new AmazonServiceException("Rate exceeded");
+    e.setErrorCode("Throttling");
+    e.setStatusCode(400);
+    return e;
+  }
+
+  private static AmazonServiceException withStatus(int statusCode) {
+    AmazonServiceException e = new AmazonServiceException("testing");
+    e.setStatusCode(statusCode);
+    return e;
+  }
+
+  private DescribeStackResourceResult describe(CloudFormationRetrier retrier) throws Exception {
+    return retrier.call("DescribeStackResource",
+                        () -> amazonCloudFormation.describeStackResource(new DescribeStackResourceRequest()));
+  }
+
+  @Test
+  public void retriesThrottledCallsUntilTheySucceed() throws Exception {
+    DescribeStackResourceResult result = new DescribeStackResourceResult();
+    when(amazonCloudFormation.describeStackResource(any()))
+      .thenThrow(throttling(), throttling(), throttling())
+      .thenReturn(result);
+
+    assertSame(result, describe(new CloudFormationRetrier(config, metrics)));
+    verify(amazonCloudFormation, times(4)).describeStackResource(any());
+    assertThat(metrics.retries().getCount(), equalTo(3L));
+    assertThat(metrics.throttles().getCount(), equalTo(3L));
+  }
+
+  @Test
+  public void retriesTransientFailures() throws Exception {
+    DescribeStackResourceResult result = new DescribeStackResourceResult();
+    when(amazonCloudFormation.describeStackResource(any()))
+      .thenThrow(withStatus(503), new AmazonClientException("reset", new IOException("reset")))
+      .thenReturn(result);
+
+    assertSame(result, describe(new CloudFormationRetrier(config, metrics)));
+    verify(amazonCloudFormation, times(3)).describeStackResource(any());
+    assertThat(metrics.retries().getCount(), equalTo(2L));
+    assertThat(metrics.throttles().getCount(), equalTo(0L));
+  }
+
+  @Test
+  public void doesNotRetryFatalFailures() throws Exception {
+    AmazonServiceException validationError = withStatus(400);
+    validationError.setErrorCode("ValidationError");
+    when(amazonCloudFormation.describeStackResource(any())).thenThrow(validationError);
+
+    try {
+      describe(new CloudFormationRetrier(config, metrics));
+      fail("fatal failures should not be retried");
+    }
+    catch (AmazonServiceException e) {
+      assertSame(validationError, e);
+    }
+    verify(amazonCloudFormation).describeStackResource(any());
+  }
+
+  @Test
+  public void givesUpWhenTheRetryBudgetIsSpent() throws Exception {
+    config.setMaxRetries(2);
+    when(amazonCloudFormation.describeStackResource(any())).thenThrow(throttling());
+
+    try {
+      describe(new CloudFormationRetrier(config, metrics));
+      fail("should have given up");
+    }
+    catch (AmazonServiceException e) {
+      assertThat(e.getErrorCode(), equalTo("Throttling"));
+    }
+    verify(amazonCloudFormation, times(3)).describeStackResource(any());
+  }
+
+  @Test
+  public void givesUpWhenTheDeadlineHasPassed() throws Exception {
+    config.setDeadline(Duration.seconds(10));
+    when(amazonCloudFormation.describeStackResource(any())).then(invocation -> {
+      nanos.addAndGet(TimeUnit.SECONDS.toNanos(6));
+      throw throttling();
+    });
+
+    try {
+      describe(new CloudFormationRetrier(config, new AdaptiveRateLimiter(1000), ticker, metrics));
+      fail("should have given up");
+    }
+    catch (AmazonServiceException e) {
+      assertThat(e.getErrorCode(), equalTo("Throttling"));
+    }
+    verify(amazonCloudFormation, times(2)).describeStackResource(any());
+  }
+
+  @Test
+  public void throttlingSlowsTheRateLimiterDown() throws Exception {
+    AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(1000);
+    when(amazonCloudFormation.describeStackResource(any()))
+      .thenThrow(throttling(), throttling())
+      .thenReturn(new DescribeStackResourceResult());
+
+    describe(new CloudFormationRetrier(config, rateLimiter, Ticker.systemTicker(), metrics));
+
+    assertThat(rateLimiter.getRate(), lessThan(1000.0));
+  }
+
+  @Test
+  public void backoffIsJitteredWithinBounds() {
+    config.setBaseDelay(Duration.milliseconds(100));
+    config.setMaxDelay(Duration.seconds(10));
+    CloudFormationRetrier retrier = new CloudFormationRetrier(config, metrics);
+
+    for (int i = 0; i < 1000; i++) {
+      long delay = retrier.nextDelayMillis(1000);
+      assertThat(delay, greaterThanOrEqualTo(100L));
+      assertThat(delay, lessThanOrEqualTo(3000L));
+    }
+    assertThat(retrier.nextDelayMillis(TimeUnit.HOURS.toMillis(1)), lessThanOrEqualTo(10000L));
+  }
+
+  @Test
+  public void rateLimiterMakesCallersWaitOnceTheBucketIsEmpty() {
+    AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(2, ticker);
+
+    assertThat(rateLimiter.reserve(), equalTo(0L));
+    assertThat(rateLimiter.reserve(), equalTo(0L));
+    assertThat(rateLimiter.reserve(), equalTo(TimeUnit.MILLISECONDS.toNanos(500)));
+
+    rateLimiter.onThrottled();
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    //one token of debt paid back at the halved rate
+    assertThat(rateLimiter.reserve(), greaterThan(0L));
+
+    rateLimiter.onSuccess();
+    assertThat(rateLimiter.getRate(), greaterThan(1.0));
+  }
+
+  @Test
+  public void classifiesErrors() {
+    assertThat(CloudFormationRetrier.classify(throttling()), equalTo(CloudFormationRetrier.ErrorKind.THROTTLING));
+    assertThat(CloudFormationRetrier.classify(withStatus(429)), equalTo(CloudFormationRetrier.ErrorKind.THROTTLING));
+    assertThat(CloudFormationRetrier.classify(withStatus(500)), equalTo(CloudFormationRetrier.ErrorKind.TRANSIENT));
+    assertThat(CloudFormationRetrier.classify(withStatus(403)), equalTo(CloudFormationRetrier.ErrorKind.FATAL));
+    assertThat(CloudFormationRetrier.classify(new IllegalStateException()), equalTo(CloudFormationRetrier.ErrorKind.FATAL));
+  }
+}
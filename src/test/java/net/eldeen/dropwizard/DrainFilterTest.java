@@ -0,0 +1,120 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class DrainFilterTest {
+
+  private final DrainFilter drainFilter = new DrainFilter();
+
+  @Test
+  public void waitsForInFlightRequests() throws Exception {
+    final CountDownLatch inFlight = new CountDownLatch(1);
+    final CountDownLatch respond = new CountDownLatch(1);
+    final FilterChain chain = mock(FilterChain.class);
+    doAnswer(invocation -> {
+      inFlight.countDown();
+      respond.await();
+      return null;
+    }).when(chain).doFilter(any(), any());
+
+    final Thread request = new Thread(() -> {
+      try {
+        drainFilter.doFilter(mock(HttpServletRequest.class), mock(HttpServletResponse.class), chain);
+      }
+      catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    request.start();
+    assertTrue(inFlight.await(1, TimeUnit.SECONDS));
+
+    assertFalse(drainFilter.awaitDrained(50, TimeUnit.MILLISECONDS));
+    assertThat(drainFilter.getInFlight(), equalTo(1));
+
+    respond.countDown();
+    assertTrue(drainFilter.awaitDrained(1, TimeUnit.SECONDS));
+    request.join();
+  }
+
+  @Test
+  public void asksClientsToCloseTheirConnectionOnceDraining() throws Exception {
+    final HttpServletResponse before = mock(HttpServletResponse.class);
+    drainFilter.doFilter(mock(HttpServletRequest.class), before, mock(FilterChain.class));
+    verify(before, never()).setHeader("Connection", "close");
+
+    drainFilter.startDraining();
+
+    final HttpServletResponse after = mock(HttpServletResponse.class);
+    drainFilter.doFilter(mock(HttpServletRequest.class), after, mock(FilterChain.class));
+    verify(after).setHeader("Connection", "close");
+  }
+
+  @Test
+  public void asyncRequestsAreInFlightUntilTheyComplete() throws Exception {
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    final AsyncContext asyncContext = mock(AsyncContext.class);
+    when(request.startAsync()).thenReturn(asyncContext);
+    final FilterChain chain = mock(FilterChain.class);
+    doAnswer(invocation -> ((HttpServletRequest) invocation.getArguments()[0]).startAsync())
+      .when(chain).doFilter(any(), any());
+
+    drainFilter.doFilter(request, mock(HttpServletResponse.class), chain);
+    assertThat(drainFilter.getInFlight(), equalTo(1));
+
+    final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    verify(asyncContext).addListener(listener.capture());
+    listener.getValue().onComplete(new AsyncEvent(asyncContext));
+
+    assertTrue(drainFilter.awaitDrained(0, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void asyncRequestsCompletingBeforeTheChainReturnsAreNotLeftInFlight() throws Exception {
+    final HttpServletRequest request = mock(HttpServletRequest.class);
+    final AsyncContext asyncContext = mock(AsyncContext.class);
+    when(request.startAsync()).thenReturn(asyncContext);
+    final ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+    final FilterChain chain = mock(FilterChain.class);
+    doAnswer(invocation -> {
+      final AsyncContext started = ((HttpServletRequest) invocation.getArguments()[0]).startAsync();
+      //the app's own thread completes the request straight away
+      final Thread completing = new Thread(() -> {
+        verify(started).addListener(listener.capture());
+        try {
+          listener.getValue().onComplete(new AsyncEvent(started));
+        }
+        catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      completing.start();
+      completing.join();
+      return null;
+    }).when(chain).doFilter(any(), any());
+
+    drainFilter.doFilter(request, mock(HttpServletResponse.class), chain);
+
+    assertThat(drainFilter.getInFlight(), equalTo(0));
+  }
+}
@@ -0,0 +1,131 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Ec2MetadataResolverTest {
+
+  private static final String TOKEN = "test-token";
+
+  private HttpServer metadataService;
+  private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+  private volatile boolean imdsV2 = true;
+
+  @Before
+  public void startMetadataService() throws IOException {
+    metadataService = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    metadataService.createContext("/", this::handle);
+    metadataService.start();
+  }
+
+  @After
+  public void stopMetadataService() {
+    metadataService.stop(0);
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    final String path = exchange.getRequestURI().getPath();
+    requests.computeIfAbsent(exchange.getRequestMethod() + " " + path, key -> new AtomicInteger()).incrementAndGet();
+
+    if ("/latest/api/token".equals(path)) {
+      if (imdsV2 && "PUT".equals(exchange.getRequestMethod())
+          && exchange.getRequestHeaders().getFirst("X-aws-ec2-metadata-token-ttl-seconds") != null) {
+        respond(exchange, 200, TOKEN);
+      }
+      else {
+        respond(exchange, 403, "");
+      }
+      return;
+    }
+
+    if (imdsV2 && !TOKEN.equals(exchange.getRequestHeaders().getFirst("X-aws-ec2-metadata-token"))) {
+      respond(exchange, 401, "");
+      return;
+    }
+    switch (path) {
+      case "/latest/meta-data/instance-id":
+        respond(exchange, 200, "i-0123456789abcdef0");
+        break;
+      case "/latest/meta-data/placement/region":
+        respond(exchange, 200, "us-west-2");
+        break;
+      default:
+        respond(exchange, 404, "");
+    }
+  }
+
+  private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private Ec2MetadataResolver resolver() {
+    return new Ec2MetadataResolver("http://127.0.0.1:" + metadataService.getAddress().getPort(), 250, 1000);
+  }
+
+  private int requestCount(final String request) {
+    return Optional.ofNullable(requests.get(request)).map(AtomicInteger::get).orElse(0);
+  }
+
+  @Test
+  public void resolvesIdentityWithImdsV2Token() {
+    assertThat(resolver().resolve(),
+               equalTo(Optional.of(new Ec2MetadataResolver.Ec2Identity("i-0123456789abcdef0", "us-west-2"))));
+    assertThat(requestCount("PUT /latest/api/token"), equalTo(1));
+  }
+
+  @Test
+  public void fallsBackToImdsV1WhenNoTokenIsIssued() {
+    imdsV2 = false;
+
+    assertThat(resolver().resolve(),
+               equalTo(Optional.of(new Ec2MetadataResolver.Ec2Identity("i-0123456789abcdef0", "us-west-2"))));
+  }
+
+  @Test
+  public void cachesTokenAndIdentity() throws IOException {
+    Ec2MetadataResolver resolver = resolver();
+
+    resolver.resolve();
+    resolver.resolve();
+    resolver.get("/latest/meta-data/instance-id");
+
+    assertThat(requestCount("PUT /latest/api/token"), equalTo(1));
+    assertThat(requestCount("GET /latest/meta-data/placement/region"), equalTo(1));
+    assertThat(requestCount("GET /latest/meta-data/instance-id"), equalTo(2));
+  }
+
+  @Test
+  public void quicklyDecidesNotOnEc2WhenNothingIsListening() throws IOException {
+    final int closedPort;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      closedPort = socket.getLocalPort();
+    }
+
+    long start = System.nanoTime();
+    assertFalse(new Ec2MetadataResolver("http://127.0.0.1:" + closedPort, 250, 1000).resolve().isPresent());
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(1000L));
+  }
+}
@@ -0,0 +1,321 @@
+package net.eldeen.dropwizard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the CloudFormation query API, answering {@code DescribeStackResource},
+ * {@code GetTemplate} and {@code SignalResource} the way CloudFormation does, so a real client can be pointed at it with
+ * {@code setEndpoint(getEndpoint())}. Latency, throttling and errors can be injected to see how signalling copes, and
+ * calls are answered concurrently, so a whole fleet can signal it at once. Used by tests and by the benchmarks module.
+ */
+public class FakeCloudFormationServer implements Closeable {
+
+  private static final String NAMESPACE = "http://cloudformation.amazonaws.com/doc/2010-05-15/";
+  private static final int BACKLOG = 1024;
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+    final Thread thread = new Thread(runnable, "fake-cloudformation");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Map<String, AtomicInteger> callCounts = new ConcurrentHashMap<>();
+  private final AtomicInteger throttled = new AtomicInteger();
+  private final AtomicInteger errors = new AtomicInteger();
+  private volatile long minLatencyNanos;
+  private volatile long maxLatencyNanos;
+  private volatile double throttlingRate;
+  private volatile double errorRate;
+  private volatile double requestsPerSecond;
+  private double rateLimitTokens;
+  private long rateLimitRefilledNanos = System.nanoTime();
+  private final List<Map<String, String>> signals = new CopyOnWriteArrayList<>();
+  private final BlockingQueue<Map<String, String>> unclaimedSignals = new LinkedBlockingQueue<>();
+  private final List<String> authorizations = new CopyOnWriteArrayList<>();
+  private final AtomicInteger failuresLeft = new AtomicInteger();
+  private volatile int failureStatus;
+  private volatile String failureCode;
+  private volatile String resourceStatus = "UPDATE_IN_PROGRESS";
+  private volatile String template = "{\"Resources\": {}}";
+
+  public FakeCloudFormationServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), BACKLOG);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /**
+   * @return the endpoint to give the client, e.g. {@code http://127.0.0.1:54321}
+   */
+  public String getEndpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /**
+   * @param resourceStatus what {@code DescribeStackResource} reports, {@code UPDATE_IN_PROGRESS} by default
+   */
+  public void setResourceStatus(final String resourceStatus) {
+    this.resourceStatus = resourceStatus;
+  }
+
+  /**
+   * @param template what {@code GetTemplate} returns, a template without resources by default
+   */
+  public void setTemplate(final String template) {
+    this.template = template;
+  }
+
+  /**
+   * Fail the next calls with a CloudFormation error response.
+   * @param count how many calls to fail
+   * @param status HTTP status of the error, e.g. {@code 400} for {@code Throttling}
+   * @param errorCode e.g. {@code Throttling} or {@code InternalFailure}
+   */
+  public void failNextCalls(final int count, final int status, final String errorCode) {
+    failureStatus = status;
+    failureCode = errorCode;
+    failuresLeft.set(count);
+  }
+
+  /**
+   * Delay every response by a random time between {@code min} and {@code max}.
+   */
+  public void setLatency(final long min, final long max, final TimeUnit unit) {
+    minLatencyNanos = unit.toNanos(min);
+    maxLatencyNanos = Math.max(minLatencyNanos, unit.toNanos(max));
+  }
+
+  /**
+   * @param throttlingRate fraction of calls, from {@code 0} to {@code 1}, answered with a {@code Throttling} error
+   */
+  public void setThrottlingRate(final double throttlingRate) {
+    this.throttlingRate = throttlingRate;
+  }
+
+  /**
+   * @param errorRate fraction of calls, from {@code 0} to {@code 1}, answered with an {@code InternalFailure} error
+   */
+  public void setErrorRate(final double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Throttle calls beyond a sustained rate, as CloudFormation does per account, allowing bursts of up to a second's
+   * worth of calls.
+   * @param requestsPerSecond the rate, or {@code 0} for no limit, the default
+   */
+  public synchronized void setRateLimit(final double requestsPerSecond) {
+    this.requestsPerSecond = requestsPerSecond;
+    rateLimitTokens = requestsPerSecond;
+    rateLimitRefilledNanos = System.nanoTime();
+  }
+
+  /**
+   * @return how many times each action has been called so far, throttled and failed calls included
+   */
+  public Map<String, Integer> getCallCounts() {
+    final Map<String, Integer> counts = new TreeMap<>();
+    callCounts.forEach((action, count) -> counts.put(action, count.get()));
+    return counts;
+  }
+
+  /**
+   * @return how many calls have been throttled by {@link #setThrottlingRate(double)} or {@link #setRateLimit(double)}
+   */
+  public int getThrottledCount() {
+    return throttled.get();
+  }
+
+  /**
+   * @return how many calls have failed because of {@link #setErrorRate(double)}
+   */
+  public int getErrorCount() {
+    return errors.get();
+  }
+
+  /**
+   * @return the {@code Authorization} header of every call received so far
+   */
+  public List<String> getAuthorizations() {
+    return Collections.unmodifiableList(authorizations);
+  }
+
+  /**
+   * @return the parameters of every {@code SignalResource} call received so far
+   */
+  public List<Map<String, String>> getSignals() {
+    return Collections.unmodifiableList(signals);
+  }
+
+  /**
+   * Wait for the next {@code SignalResource} call that hasn't already been waited for.
+   * @return its parameters, or {@code null} if none arrived in time
+   */
+  public Map<String, String> awaitSignal(final long timeout, final TimeUnit unit) throws InterruptedException {
+    return unclaimedSignals.poll(timeout, unit);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    final Map<String, String> parameters = parse(read(exchange.getRequestBody()));
+    final String action = parameters.get("Action");
+    authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+    callCounts.computeIfAbsent(String.valueOf(action), ignored -> new AtomicInteger()).incrementAndGet();
+    delay();
+    if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+      respondWithError(exchange, failureStatus, failureCode);
+      return;
+    }
+    if (!acquireRateLimit() || ThreadLocalRandom.current().nextDouble() < throttlingRate) {
+      throttled.incrementAndGet();
+      respondWithError(exchange, 400, "Throttling");
+      return;
+    }
+    if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+      errors.incrementAndGet();
+      respondWithError(exchange, 500, "InternalFailure");
+      return;
+    }
+    if ("DescribeStackResource".equals(action)) {
+      respond(exchange, 200,
+              "<DescribeStackResourceResponse xmlns=\"" + NAMESPACE + "\">"
+              + "<DescribeStackResourceResult><StackResourceDetail>"
+              + "<StackName>" + parameters.get("StackName") + "</StackName>"
+              + "<StackId>arn:aws:cloudformation:us-west-2:123456789012:stack/" + parameters.get("StackName")
+              + "/" + UUID.randomUUID() + "</StackId>"
+              + "<LogicalResourceId>" + parameters.get("LogicalResourceId") + "</LogicalResourceId>"
+              + "<PhysicalResourceId>" + parameters.get("LogicalResourceId") + "-ABC123</PhysicalResourceId>"
+              + "<ResourceType>AWS::AutoScaling::AutoScalingGroup</ResourceType>"
+              + "<LastUpdatedTimestamp>2016-01-01T00:00:00Z</LastUpdatedTimestamp>"
+              + "<ResourceStatus>" + resourceStatus + "</ResourceStatus>"
+              + "</StackResourceDetail></DescribeStackResourceResult>"
+              + responseMetadata()
+              + "</DescribeStackResourceResponse>");
+    }
+    else if ("GetTemplate".equals(action)) {
+      respond(exchange, 200,
+              "<GetTemplateResponse xmlns=\"" + NAMESPACE + "\"><GetTemplateResult><TemplateBody>"
+              + template.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+              + "</TemplateBody></GetTemplateResult>" + responseMetadata() + "</GetTemplateResponse>");
+    }
+    else if ("SignalResource".equals(action)) {
+      signals.add(parameters);
+      unclaimedSignals.add(parameters);
+      respond(exchange, 200,
+              "<SignalResourceResponse xmlns=\"" + NAMESPACE + "\">" + responseMetadata() + "</SignalResourceResponse>");
+    }
+    else {
+      respond(exchange, 400,
+              "<ErrorResponse xmlns=\"" + NAMESPACE + "\"><Error><Type>Sender</Type>"
+              + "<Code>InvalidAction</Code><Message>Unsupported action " + action + "</Message></Error>"
+              + "<RequestId>" + UUID.randomUUID() + "</RequestId></ErrorResponse>");
+    }
+  }
+
+  private void delay() {
+    final long latencyNanos = maxLatencyNanos > minLatencyNanos
+                              ? ThreadLocalRandom.current().nextLong(minLatencyNanos, maxLatencyNanos)
+                              : minLatencyNanos;
+    if (latencyNanos > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(latencyNanos);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private synchronized boolean acquireRateLimit() {
+    if (requestsPerSecond <= 0) {
+      return true;
+    }
+    final long now = System.nanoTime();
+    rateLimitTokens = Math.min(requestsPerSecond,
+                               rateLimitTokens + (now - rateLimitRefilledNanos) * requestsPerSecond / 1e9);
+    rateLimitRefilledNanos = now;
+    if (rateLimitTokens < 1) {
+      return false;
+    }
+    rateLimitTokens--;
+    return true;
+  }
+
+  private static void respondWithError(final HttpExchange exchange,
+                                       final int status,
+                                       final String errorCode) throws IOException {
+    respond(exchange, status,
+            "<ErrorResponse xmlns=\"" + NAMESPACE + "\"><Error><Type>" + (status >= 500 ? "Receiver" : "Sender")
+            + "</Type><Code>" + errorCode + "</Code><Message>" + errorCode + "</Message></Error>"
+            + "<RequestId>" + UUID.randomUUID() + "</RequestId></ErrorResponse>");
+  }
+
+  private static String responseMetadata() {
+    return "<ResponseMetadata><RequestId>" + UUID.randomUUID() + "</RequestId></ResponseMetadata>";
+  }
+
+  private static Map<String, String> parse(final String form) throws UnsupportedEncodingException {
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    for (String pair : form.split("&")) {
+      final int equals = pair.indexOf('=');
+      if (equals > 0) {
+        parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                       URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+      }
+    }
+    return parameters;
+  }
+
+  private static String read(final InputStream inputStream) throws IOException {
+    try (InputStream in = inputStream) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/xml");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
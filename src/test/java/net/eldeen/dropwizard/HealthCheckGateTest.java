@@ -0,0 +1,156 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.codahale.metrics.health.HealthCheckRegistry;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.dropwizard.util.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HealthCheckGateTest {
+
+  private HealthCheckRegistry healthCheckRegistry;
+  private CfSignalResourceHealthCheckConfig config;
+
+  @Before
+  public void setup() {
+    healthCheckRegistry = new HealthCheckRegistry();
+    config = new CfSignalResourceHealthCheckConfig();
+    config.setCheckTimeout(Duration.milliseconds(500));
+    config.setInitialBackoff(Duration.milliseconds(10));
+    config.setMaxBackoff(Duration.milliseconds(50));
+    config.setDeadline(Duration.seconds(5));
+  }
+
+  private static HealthCheck healthy() {
+    return new HealthCheck() {
+      @Override
+      protected Result check() {
+        return Result.healthy();
+      }
+    };
+  }
+
+  private static HealthCheck slow(final long millis) {
+    return new HealthCheck() {
+      @Override
+      protected Result check() throws Exception {
+        Thread.sleep(millis);
+        return Result.healthy();
+      }
+    };
+  }
+
+  @Test
+  public void readyOnceFailingChecksRecover() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    healthCheckRegistry.register("db", healthy());
+    healthCheckRegistry.register("cache", new HealthCheck() {
+      @Override
+      protected Result check() {
+        return attempts.incrementAndGet() < 3 ? Result.unhealthy("cold") : Result.healthy();
+      }
+    });
+    config.setAll(true);
+
+    assertTrue(new HealthCheckGate(healthCheckRegistry, config).check().get(5, TimeUnit.SECONDS).isReady());
+  }
+
+  @Test
+  public void notReadyWithFailingCheckNamesAfterDeadline() throws Exception {
+    healthCheckRegistry.register("db", healthy());
+    healthCheckRegistry.register("downstream", new HealthCheck() {
+      @Override
+      protected Result check() {
+        return Result.unhealthy("connection refused");
+      }
+    });
+    config.setNames(Arrays.asList("db", "downstream"));
+    config.setDeadline(Duration.milliseconds(200));
+
+    Readiness readiness = new HealthCheckGate(healthCheckRegistry, config).check().get(5, TimeUnit.SECONDS);
+
+    assertFalse(readiness.isReady());
+    assertThat(readiness.getReason().get(), containsString("downstream (connection refused)"));
+    assertThat(readiness.getReason().get(), not(containsString("db")));
+  }
+
+  @Test
+  public void slowChecksRunInParallel() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      healthCheckRegistry.register("slow-" + i, slow(300));
+    }
+    config.setAll(true);
+
+    long start = System.nanoTime();
+    assertTrue(new HealthCheckGate(healthCheckRegistry, config).check().get(5, TimeUnit.SECONDS).isReady());
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(1000L));
+  }
+
+  @Test
+  public void checksThatTimeOutFail() throws Exception {
+    healthCheckRegistry.register("hung", slow(TimeUnit.SECONDS.toMillis(30)));
+    config.setNames(Arrays.asList("hung"));
+    config.setCheckTimeout(Duration.milliseconds(50));
+    config.setDeadline(Duration.milliseconds(100));
+
+    Readiness readiness = new HealthCheckGate(healthCheckRegistry, config).check().get(5, TimeUnit.SECONDS);
+
+    assertFalse(readiness.isReady());
+    assertThat(readiness.getReason().get(), containsString("hung (timed out after 50 milliseconds)"));
+  }
+
+  @Test
+  public void hungChecksAreInterruptedAndNotRunAgainWhileStillRunning() throws Exception {
+    AtomicInteger runs = new AtomicInteger();
+    CountDownLatch interrupted = new CountDownLatch(1);
+    healthCheckRegistry.register("hung", new HealthCheck() {
+      @Override
+      protected Result check() {
+        runs.incrementAndGet();
+        try {
+          Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+        }
+        catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+        //ignores the interrupt, and hangs on
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        return Result.healthy();
+      }
+    });
+    config.setNames(Arrays.asList("hung"));
+    config.setCheckTimeout(Duration.milliseconds(50));
+    config.setDeadline(Duration.milliseconds(500));
+
+    Readiness readiness = new HealthCheckGate(healthCheckRegistry, config).check().get(5, TimeUnit.SECONDS);
+
+    assertFalse(readiness.isReady());
+    assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    assertThat(runs.get(), equalTo(1));
+  }
+
+  @Test
+  public void unknownChecksFail() throws Exception {
+    config.setNames(Arrays.asList("missing"));
+    config.setDeadline(Duration.milliseconds(50));
+
+    Readiness readiness = new HealthCheckGate(healthCheckRegistry, config).check().get(5, TimeUnit.SECONDS);
+
+    assertFalse(readiness.isReady());
+    assertThat(readiness.getReason().get(), containsString("no health check named 'missing' is registered"));
+  }
+}
@@ -0,0 +1,156 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.dropwizard.util.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LightweightAutoScalingTest {
+
+  private static final String NAMESPACE = "http://autoscaling.amazonaws.com/doc/2011-01-01/";
+
+  private HttpServer autoScalingService;
+  private LightweightAutoScaling autoScaling;
+  private final List<Map<String, String>> calls = new CopyOnWriteArrayList<>();
+  private volatile String lifecycleState = "Pending:Wait";
+
+  @Before
+  public void startAutoScalingService() throws IOException {
+    autoScalingService = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    autoScalingService.createContext("/", this::handle);
+    autoScalingService.start();
+    autoScaling = new LightweightAutoScaling(
+      URI.create("http://127.0.0.1:" + autoScalingService.getAddress().getPort() + "/"),
+      "us-west-2",
+      new StaticCredentialsProvider(new BasicAWSCredentials("AKIDEXAMPLE", "secret")),
+      Clock.systemUTC());
+  }
+
+  @After
+  public void stopAutoScalingService() {
+    autoScalingService.stop(0);
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    final Map<String, String> parameters = parse(exchange.getRequestBody());
+    parameters.put("Authorization", exchange.getRequestHeaders().getFirst("Authorization"));
+    calls.add(parameters);
+    final String action = parameters.get("Action");
+    if ("DescribeAutoScalingInstances".equals(action)) {
+      respond(exchange, "<DescribeAutoScalingInstancesResponse xmlns=\"" + NAMESPACE + "\">"
+                        + "<DescribeAutoScalingInstancesResult><AutoScalingInstances><member>"
+                        + "<InstanceId>" + parameters.get("InstanceIds.member.1") + "</InstanceId>"
+                        + "<AutoScalingGroupName>app-asg</AutoScalingGroupName>"
+                        + "<LifecycleState>" + lifecycleState + "</LifecycleState>"
+                        + "</member></AutoScalingInstances></DescribeAutoScalingInstancesResult>"
+                        + "</DescribeAutoScalingInstancesResponse>");
+    }
+    else if ("DescribeLifecycleHooks".equals(action)) {
+      respond(exchange, "<DescribeLifecycleHooksResponse xmlns=\"" + NAMESPACE + "\">"
+                        + "<DescribeLifecycleHooksResult><LifecycleHooks>"
+                        + "<member><LifecycleHookName>warm-up</LifecycleHookName>"
+                        + "<LifecycleTransition>autoscaling:EC2_INSTANCE_LAUNCHING</LifecycleTransition>"
+                        + "<HeartbeatTimeout>300</HeartbeatTimeout></member>"
+                        + "<member><LifecycleHookName>drain</LifecycleHookName>"
+                        + "<LifecycleTransition>autoscaling:EC2_INSTANCE_TERMINATING</LifecycleTransition>"
+                        + "<HeartbeatTimeout>600</HeartbeatTimeout></member>"
+                        + "</LifecycleHooks></DescribeLifecycleHooksResult></DescribeLifecycleHooksResponse>");
+    }
+    else {
+      respond(exchange, "<" + action + "Response xmlns=\"" + NAMESPACE + "\"><" + action + "Result/></" + action
+                        + "Response>");
+    }
+  }
+
+  @Test
+  public void findsTheLaunchingHooksTheInstanceIsWaitingOn() {
+    assertThat(autoScaling.findPendingActions("i-123", LifecycleHooks.LAUNCHING),
+               contains(new LifecycleAction("app-asg", "warm-up", "i-123", Duration.seconds(300))));
+    assertThat(calls.get(0).get("InstanceIds.member.1"), equalTo("i-123"));
+    assertThat(calls.get(0).get("Version"), equalTo("2011-01-01"));
+    assertThat(calls.get(0).get("Authorization"), startsWith("AWS4-HMAC-SHA256 Credential=AKIDEXAMPLE/"));
+    assertThat(calls.get(1).get("AutoScalingGroupName"), equalTo("app-asg"));
+  }
+
+  @Test
+  public void findsNothingOnceTheInstanceIsInService() {
+    lifecycleState = "InService";
+
+    assertThat(autoScaling.findPendingActions("i-123", LifecycleHooks.LAUNCHING), empty());
+  }
+
+  @Test
+  public void findsTheTerminatingHooksTheInstanceIsWaitingOn() {
+    lifecycleState = "Terminating:Wait";
+
+    assertThat(autoScaling.findPendingActions("i-123", LifecycleHooks.TERMINATING),
+               contains(new LifecycleAction("app-asg", "drain", "i-123", Duration.seconds(600))));
+    assertThat(autoScaling.findPendingActions("i-123", LifecycleHooks.LAUNCHING), empty());
+  }
+
+  @Test
+  public void completesTheLifecycleAction() {
+    final LifecycleAction action = new LifecycleAction("app-asg", "warm-up", "i-123", Duration.seconds(300));
+
+    autoScaling.recordHeartbeat(action);
+    autoScaling.complete(action, false);
+
+    assertThat(calls.get(0).get("Action"), equalTo("RecordLifecycleActionHeartbeat"));
+    assertThat(calls.get(1).get("Action"), equalTo("CompleteLifecycleAction"));
+    assertThat(calls.get(1).get("AutoScalingGroupName"), equalTo("app-asg"));
+    assertThat(calls.get(1).get("LifecycleHookName"), equalTo("warm-up"));
+    assertThat(calls.get(1).get("InstanceId"), equalTo("i-123"));
+    assertThat(calls.get(1).get("LifecycleActionResult"), equalTo("ABANDON"));
+  }
+
+  private static Map<String, String> parse(final InputStream inputStream) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = inputStream) {
+      final byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    final Map<String, String> parameters = new LinkedHashMap<>();
+    for (String pair : new String(out.toByteArray(), StandardCharsets.UTF_8).split("&")) {
+      final int equals = pair.indexOf('=');
+      parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                     URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+    }
+    return parameters;
+  }
+
+  private static void respond(final HttpExchange exchange, final String body) throws IOException {
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/xml");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.internal.StaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.cloudformation.model.DescribeStackResourceRequest;
+import com.amazonaws.services.cloudformation.model.ResourceSignalStatus;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LightweightCloudFormationTest {
+
+  private FakeCloudFormationServer cloudFormationServer;
+  private LightweightCloudFormation cloudFormation;
+  private CfSignalResourceConfig config;
+
+  @Before
+  public void setup() throws Exception {
+    cloudFormationServer = new FakeCloudFormationServer();
+    cloudFormation = new LightweightCloudFormation(URI.create(cloudFormationServer.getEndpoint() + "/"),
+                                                   "us-west-2",
+                                                   new StaticCredentialsProvider(
+                                                     new BasicAWSCredentials("AKIDEXAMPLE", "secret")),
+                                                   Clock.systemUTC());
+    config = new CfSignalResourceConfig();
+    config.setStackName("stack name");
+    config.setAsgResourceName("autoScalingGroup");
+  }
+
+  @After
+  public void tearDown() {
+    cloudFormationServer.close();
+  }
+
+  @Test
+  public void describesTheStackResource() {
+    cloudFormationServer.setResourceStatus("UPDATE_IN_PROGRESS");
+
+    StackResourceDetail detail = cloudFormation.describeStackResource(
+      new DescribeStackResourceRequest().withStackName("stack name").withLogicalResourceId("autoScalingGroup"))
+                                               .getStackResourceDetail();
+
+    assertThat(detail.getResourceStatus(), equalTo("UPDATE_IN_PROGRESS"));
+    assertThat(detail.getStackName(), equalTo("stack name"));
+    assertThat(detail.getLogicalResourceId(), equalTo("autoScalingGroup"));
+    assertThat(detail.getResourceType(), equalTo("AWS::AutoScaling::AutoScalingGroup"));
+    assertThat(cloudFormationServer.getAuthorizations().get(0),
+               startsWith("AWS4-HMAC-SHA256 Credential=AKIDEXAMPLE/"));
+  }
+
+  @Test
+  public void signalsTheResource() throws Exception {
+    cloudFormation.signalResource(CfSignalResourceBundle.newSignalResourceRequest(config, "i-123", false));
+
+    Map<String, String> signal = cloudFormationServer.awaitSignal(1, TimeUnit.SECONDS);
+    assertThat(signal.get("StackName"), equalTo("stack name"));
+    assertThat(signal.get("LogicalResourceId"), equalTo("autoScalingGroup"));
+    assertThat(signal.get("UniqueId"), equalTo("i-123"));
+    assertThat(signal.get("Status"), equalTo(ResourceSignalStatus.FAILURE.toString()));
+  }
+
+  @Test
+  public void reportsErrorsLikeTheSdk() {
+    cloudFormationServer.failNextCalls(1, 400, "Throttling");
+
+    try {
+      cloudFormation.signalResource(CfSignalResourceBundle.newSignalResourceRequest(config, "i-123", true));
+      fail("the call should have been throttled");
+    }
+    catch (AmazonServiceException e) {
+      assertThat(e.getStatusCode(), equalTo(400));
+      assertThat(e.getErrorCode(), equalTo("Throttling"));
+      assertThat(CloudFormationRetrier.classify(e), equalTo(CloudFormationRetrier.ErrorKind.THROTTLING));
+    }
+  }
+
+  @Test
+  public void connectionFailuresAreTransient() {
+    cloudFormationServer.close();
+
+    try {
+      cloudFormation.signalResource(CfSignalResourceBundle.newSignalResourceRequest(config, "i-123", true));
+      fail("nothing is listening");
+    }
+    catch (AmazonClientException e) {
+      assertThat(CloudFormationRetrier.classify(e), equalTo(CloudFormationRetrier.ErrorKind.TRANSIENT));
+    }
+  }
+}
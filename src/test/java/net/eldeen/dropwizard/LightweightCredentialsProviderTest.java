@@ -0,0 +1,117 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSSessionCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LightweightCredentialsProviderTest {
+
+  private static final Instant NOW = Instant.parse("2016-02-03T04:00:00Z");
+
+  private HttpServer metadataService;
+  private Ec2MetadataResolver ec2MetadataResolver;
+  private final Map<String, String> environment = new HashMap<>();
+  private final AtomicInteger credentialRequests = new AtomicInteger();
+  private volatile String expiration = "2016-02-03T10:00:00Z";
+
+  @Before
+  public void startMetadataService() throws IOException {
+    metadataService = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    metadataService.createContext("/", this::handle);
+    metadataService.start();
+    ec2MetadataResolver = new Ec2MetadataResolver("http://127.0.0.1:" + metadataService.getAddress().getPort(),
+                                                  500, 1000);
+  }
+
+  @After
+  public void stopMetadataService() {
+    metadataService.stop(0);
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    final String path = exchange.getRequestURI().getPath();
+    if ("/latest/api/token".equals(path)) {
+      respond(exchange, 200, "token");
+    }
+    else if ("/latest/meta-data/iam/security-credentials/".equals(path)) {
+      respond(exchange, 200, "app-role");
+    }
+    else if ("/latest/meta-data/iam/security-credentials/app-role".equals(path)) {
+      credentialRequests.incrementAndGet();
+      respond(exchange, 200, "{\"Code\": \"Success\", \"Type\": \"AWS-HMAC\", \"AccessKeyId\": \"ASIAEXAMPLE\","
+                             + " \"SecretAccessKey\": \"secret\", \"Token\": \"session-token\","
+                             + " \"Expiration\": \"" + expiration + "\"}");
+    }
+    else {
+      respond(exchange, 404, "");
+    }
+  }
+
+  private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private LightweightCredentialsProvider provider() {
+    return new LightweightCredentialsProvider(environment::get, ec2MetadataResolver, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  public void prefersTheEnvironment() {
+    environment.put("AWS_ACCESS_KEY_ID", "AKIDEXAMPLE");
+    environment.put("AWS_SECRET_ACCESS_KEY", "secret");
+
+    AWSCredentials credentials = provider().getCredentials();
+
+    assertThat(credentials, instanceOf(BasicAWSCredentials.class));
+    assertThat(credentials.getAWSAccessKeyId(), equalTo("AKIDEXAMPLE"));
+    assertThat(credentialRequests.get(), equalTo(0));
+  }
+
+  @Test
+  public void fallsBackToTheInstanceProfileAndCachesIt() {
+    LightweightCredentialsProvider provider = provider();
+
+    AWSSessionCredentials credentials = (AWSSessionCredentials) provider.getCredentials();
+    provider.getCredentials();
+
+    assertThat(credentials.getAWSAccessKeyId(), equalTo("ASIAEXAMPLE"));
+    assertThat(credentials.getAWSSecretKey(), equalTo("secret"));
+    assertThat(credentials.getSessionToken(), equalTo("session-token"));
+    assertThat(credentialRequests.get(), equalTo(1));
+  }
+
+  @Test
+  public void refreshesInstanceProfileCredentialsBeforeTheyExpire() {
+    expiration = "2016-02-03T04:03:00Z";
+    LightweightCredentialsProvider provider = provider();
+
+    provider.getCredentials();
+    provider.getCredentials();
+
+    assertThat(credentialRequests.get(), equalTo(2));
+  }
+}
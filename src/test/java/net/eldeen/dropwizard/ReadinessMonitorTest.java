@@ -0,0 +1,95 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadinessMonitorTest {
+
+  private final MetricRegistry metrics = new MetricRegistry();
+  private final AtomicReference<Double> utilization = new AtomicReference<>(0.5);
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong gcMillis = new AtomicLong();
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final CfSignalResourceMonitorConfig config = new CfSignalResourceMonitorConfig();
+
+  @Before
+  public void registerJettyAndJvmMetrics() {
+    metrics.register(ReadinessMonitor.THREAD_POOL_UTILIZATION, (Gauge<Double>) utilization::get);
+    metrics.register(ReadinessMonitor.QUEUED_REQUESTS, (Gauge<Integer>) queued::get);
+    metrics.register("jvm.gc.G1-Young-Generation.time", (Gauge<Long>) gcMillis::get);
+    metrics.register("jvm.gc.G1-Young-Generation.count", (Gauge<Long>) () -> 1000L);
+  }
+
+  private ReadinessMonitor monitor() {
+    return new ReadinessMonitor(metrics, config, new CompletableFuture<>(), nanoTime::get);
+  }
+
+  @Test
+  public void changesReadinessOnlyOnceEnoughSamplesInARowAgree() {
+    config.setUnreadySamples(2);
+    config.setReadySamples(3);
+    final ReadinessMonitor monitor = monitor();
+
+    utilization.set(0.97);
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+    assertThat(monitor.sample(), equalTo(Readiness.notReady("97% of Jetty's threads are busy")));
+    assertThat(metrics.getGauges().get(SignalMetrics.PREFIX + ".ready").getValue(), equalTo(false));
+
+    utilization.set(0.5);
+    assertThat(monitor.sample().isReady(), equalTo(false));
+    assertThat(monitor.sample().isReady(), equalTo(false));
+    utilization.set(0.97);
+    assertThat(monitor.sample().isReady(), equalTo(false));
+    utilization.set(0.5);
+    assertThat(monitor.sample().isReady(), equalTo(false));
+    assertThat(monitor.sample().isReady(), equalTo(false));
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+    assertThat(metrics.getGauges().get(SignalMetrics.PREFIX + ".ready").getValue(), equalTo(true));
+  }
+
+  @Test
+  public void checksQueuedRequestsGcAndLatency() {
+    config.setUnreadySamples(1);
+    config.setReadySamples(1);
+    final ReadinessMonitor monitor = monitor();
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+
+    queued.set(150);
+    assertThat(monitor.sample(), equalTo(Readiness.notReady("150 requests are waiting for a Jetty thread")));
+    queued.set(0);
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    gcMillis.addAndGet(1000);
+    assertThat(monitor.sample(), equalTo(Readiness.notReady("50% of the time was spent collecting garbage")));
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    gcMillis.addAndGet(100);
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+
+    metrics.timer(ReadinessMonitor.REQUESTS).update(3, TimeUnit.SECONDS);
+    assertThat(monitor.sample(), equalTo(Readiness.notReady("the 99th percentile request took 3000ms")));
+    //the load balancer sends an unready app no requests, so the slow one mustn't keep it unready
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+  }
+
+  @Test
+  public void leavesOutMetricsThatArentRegistered() {
+    config.setUnreadySamples(1);
+    final ReadinessMonitor monitor =
+      new ReadinessMonitor(new MetricRegistry(), config, new CompletableFuture<>(), nanoTime::get);
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    assertThat(monitor.sample(), equalTo(Readiness.ready()));
+  }
+}
@@ -0,0 +1,99 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class ReadinessTaskGraphTest {
+
+  private final ReadinessTaskGraph graph = new ReadinessTaskGraph();
+
+  @Test
+  public void readyWithoutTasks() throws Exception {
+    assertTrue(graph.isEmpty());
+    assertTrue(graph.await().get(1, TimeUnit.SECONDS).isReady());
+  }
+
+  @Test
+  public void runsTasksAfterTheirDependencies() throws Exception {
+    List<String> ran = new CopyOnWriteArrayList<>();
+    graph.add("pool", () -> {
+      Thread.sleep(50);
+      ran.add("pool");
+    });
+    graph.add("cache", () -> ran.add("cache"), "pool");
+    graph.add("index", () -> ran.add("index"), "cache");
+
+    assertTrue(graph.await().get(5, TimeUnit.SECONDS).isReady());
+    assertThat(ran, contains("pool", "cache", "index"));
+    assertEquals(3, graph.getTimings().size());
+  }
+
+  @Test
+  public void runsIndependentTasksInParallel() throws Exception {
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    graph.add("a", () -> {
+      bothRunning.countDown();
+      assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+    });
+    graph.add("b", () -> {
+      bothRunning.countDown();
+      assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+    });
+
+    assertTrue(graph.await().get(10, TimeUnit.SECONDS).isReady());
+  }
+
+  @Test
+  public void notReadyAsSoonAsATaskFails() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicBoolean dependentRan = new AtomicBoolean();
+    graph.add("slow", release::await);
+    graph.add("broken", () -> {
+      throw new IllegalStateException("no database");
+    });
+    graph.add("dependent", () -> dependentRan.set(true), "broken");
+
+    Readiness readiness = graph.await().get(5, TimeUnit.SECONDS);
+    release.countDown();
+
+    assertFalse(readiness.isReady());
+    assertThat(readiness.getReason().get(), containsString("'broken'"));
+    assertThat(readiness.getReason().get(), containsString("no database"));
+    assertFalse(dependentRan.get());
+  }
+
+  @Test
+  public void notReadyWhenATaskThrowsAnError() throws Exception {
+    graph.add("linkage", () -> {
+      throw new NoClassDefFoundError("com/example/Missing");
+    });
+
+    Readiness readiness = graph.await().get(5, TimeUnit.SECONDS);
+
+    assertFalse(readiness.isReady());
+    assertThat(readiness.getReason().get(), containsString("com/example/Missing"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void dependenciesMustBeAddedFirst() {
+    graph.add("cache", () -> { }, "pool");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void namesAreUnique() {
+    graph.add("cache", () -> { });
+    graph.add("cache", () -> { });
+  }
+}
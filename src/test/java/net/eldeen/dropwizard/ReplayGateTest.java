@@ -0,0 +1,114 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import io.dropwizard.util.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReplayGateTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private HttpServer app;
+  private final List<String> received = new CopyOnWriteArrayList<>();
+  private Path path;
+
+  @Before
+  public void startApp() throws IOException {
+    app = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    app.createContext("/", exchange -> {
+      received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                   + " " + exchange.getRequestHeaders().getFirst("Content-Type")
+                   + " " + exchange.getRequestHeaders().getFirst(CaptureFilter.REPLAY_HEADER)
+                   + " " + new String(ByteStreams.toByteArray(exchange.getRequestBody()), StandardCharsets.UTF_8));
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    app.start();
+    path = temporaryFolder.getRoot().toPath().resolve("requests.recording");
+  }
+
+  @After
+  public void stopApp() {
+    app.stop(0);
+  }
+
+  private URI baseUri() {
+    return URI.create("http://127.0.0.1:" + app.getAddress().getPort());
+  }
+
+  private CfSignalResourceReplayConfig config() {
+    CfSignalResourceReplayConfig config = new CfSignalResourceReplayConfig();
+    config.setEnabled(true);
+    config.setPath(path.toString());
+    config.setConcurrency(2);
+    config.setRequestsPerSecond(50);
+    config.setDuration(Duration.milliseconds(500));
+    return config;
+  }
+
+  @Test
+  public void replaysTheRecordingForTheConfiguredDuration() throws Exception {
+    RequestRecording.openForAppend(RequestRecording.instancePath(path, "i-12345"), 4096).append(
+      new RequestRecording.Request("POST", "/things?page=2",
+                                   Collections.singletonMap("Content-Type", "application/json"),
+                                   "{}".getBytes(StandardCharsets.UTF_8)));
+
+    final CfSignalResourceReplayConfig config = config();
+    config.setMethods(Arrays.asList("GET", "POST"));
+
+    final long start = System.nanoTime();
+    final Readiness readiness = new ReplayGate(config).replay(baseUri()).get(5, TimeUnit.SECONDS);
+
+    assertTrue(readiness.isReady());
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThan(400L));
+    assertThat(received.get(0), equalTo("POST /things?page=2 application/json true {}"));
+    //50 a second for half a second
+    assertThat(received.size(), greaterThan(10));
+    assertThat(received.size(), lessThan(40));
+  }
+
+  @Test
+  public void readyStraightAwayWithNothingToReplay() throws Exception {
+    final Readiness readiness = new ReplayGate(config()).replay(baseUri()).get(100, TimeUnit.MILLISECONDS);
+
+    assertTrue(readiness.isReady());
+    assertThat(received.size(), equalTo(0));
+  }
+
+  @Test
+  public void leavesOutRecordedRequestsThatArentSafeToRepeat() throws Exception {
+    final RequestRecording recording = RequestRecording.openForAppend(path, 4096);
+    recording.append(new RequestRecording.Request("DELETE", "/things/1", Collections.emptyMap(), new byte[0]));
+    recording.append(new RequestRecording.Request("GET", "/admin/things?page=2", Collections.emptyMap(), new byte[0]));
+    final CfSignalResourceReplayConfig config = config();
+    config.setExcludedPaths(Collections.singletonList("/admin/.*"));
+
+    final Readiness readiness = new ReplayGate(config).replay(baseUri()).get(100, TimeUnit.MILLISECONDS);
+
+    assertTrue(readiness.isReady());
+    assertThat(received.size(), equalTo(0));
+  }
+}
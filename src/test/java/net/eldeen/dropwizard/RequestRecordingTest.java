@@ -0,0 +1,125 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RequestRecordingTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path path;
+
+  @Before
+  public void setUpPath() {
+    path = temporaryFolder.getRoot().toPath().resolve("recordings").resolve("requests.recording");
+  }
+
+  @Test
+  public void readsBackWhatWasRecorded() throws IOException {
+    final RequestRecording recording = RequestRecording.openForAppend(path, 4096);
+    recording.append(new RequestRecording.Request("GET", "/things?page=2",
+                                                  Collections.singletonMap("Accept", "application/json"),
+                                                  new byte[0]));
+    recording.append(new RequestRecording.Request("POST", "/things",
+                                                  Collections.singletonMap("Content-Type", "application/json"),
+                                                  "{\"name\":\"thing\"}".getBytes(StandardCharsets.UTF_8)));
+
+    final List<RequestRecording.Request> requests = RequestRecording.read(path);
+
+    assertThat(requests.stream().map(RequestRecording.Request::getUri).collect(Collectors.toList()),
+               contains("/things?page=2", "/things"));
+    assertThat(requests.get(0).getMethod(), equalTo("GET"));
+    assertThat(requests.get(0).getHeaders(), equalTo(Collections.singletonMap("Accept", "application/json")));
+    assertThat(new String(requests.get(1).getBody(), StandardCharsets.UTF_8), equalTo("{\"name\":\"thing\"}"));
+  }
+
+  @Test
+  public void appendsToAnExistingRecording() throws IOException {
+    RequestRecording.openForAppend(path, 4096)
+                    .append(new RequestRecording.Request("GET", "/first", Collections.emptyMap(), new byte[0]));
+    RequestRecording.openForAppend(path, 4096)
+                    .append(new RequestRecording.Request("GET", "/second", Collections.emptyMap(), new byte[0]));
+
+    assertThat(RequestRecording.read(path).stream().map(RequestRecording.Request::getUri).collect(Collectors.toList()),
+               contains("/first", "/second"));
+  }
+
+  @Test
+  public void stopsRecordingOnceFull() throws IOException {
+    final RequestRecording recording = RequestRecording.openForAppend(path, RequestRecording.HEADER_SIZE + 100);
+    final RequestRecording.Request request =
+      new RequestRecording.Request("POST", "/things", Collections.emptyMap(), new byte[40]);
+
+    assertTrue(recording.append(request));
+    assertFalse(recording.append(request));
+    assertTrue(recording.isFull());
+    assertThat(RequestRecording.read(path), hasSize(1));
+    assertThat(Files.size(path), equalTo((long) RequestRecording.HEADER_SIZE + 100));
+  }
+
+  @Test
+  public void readsNothingWithoutARecording() throws IOException {
+    assertThat(RequestRecording.read(path), empty());
+
+    Files.createDirectories(path.getParent());
+    Files.write(path, "not a recording".getBytes(StandardCharsets.UTF_8));
+    assertThat(RequestRecording.read(path), empty());
+  }
+
+  @Test
+  public void readsEveryInstancesRecordingNewestFirst() throws IOException {
+    final Path older = RequestRecording.instancePath(path, "i-older");
+    RequestRecording.openForAppend(older, 4096)
+                    .append(new RequestRecording.Request("GET", "/older", Collections.emptyMap(), new byte[0]));
+    Files.setLastModifiedTime(older, FileTime.from(Instant.now().minusSeconds(60)));
+    RequestRecording.openForAppend(RequestRecording.instancePath(path, "i-newer"), 4096)
+                    .append(new RequestRecording.Request("GET", "/newer", Collections.emptyMap(), new byte[0]));
+    Files.write(path.resolveSibling("other.recording"), "not this app's".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(RequestRecording.readAll(path, 4096).stream()
+                               .map(RequestRecording.Request::getUri)
+                               .collect(Collectors.toList()),
+               contains("/newer", "/older"));
+  }
+
+  @Test
+  public void stopsReadingInstancesRecordingsOnceMaxSizeIsRead() throws IOException {
+    final Path older = RequestRecording.instancePath(path, "i-older");
+    RequestRecording.openForAppend(older, 4096)
+                    .append(new RequestRecording.Request("GET", "/older", Collections.emptyMap(), new byte[0]));
+    Files.setLastModifiedTime(older, FileTime.from(Instant.now().minusSeconds(60)));
+    RequestRecording.openForAppend(RequestRecording.instancePath(path, "i-newer"), 4096)
+                    .append(new RequestRecording.Request("GET", "/newer", Collections.emptyMap(), new byte[0]));
+
+    assertThat(RequestRecording.readAll(path, 1).stream()
+                               .map(RequestRecording.Request::getUri)
+                               .collect(Collectors.toList()),
+               contains("/newer"));
+  }
+
+  @Test
+  public void readsNothingWithoutARecordingDirectory() throws IOException {
+    assertThat(RequestRecording.readAll(path, 4096), empty());
+  }
+}
@@ -0,0 +1,78 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.auth.AWS4Signer;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.auth.BasicSessionCredentials;
+import com.amazonaws.http.HttpMethodName;
+import org.junit.Test;
+
+public class SigV4SignerTest {
+
+  private static final Instant NOW = Instant.parse("2016-02-03T04:05:06Z");
+  private static final byte[] BODY = ("Action=SignalResource&Version=2010-05-15&StackName=stack"
+                                      + "&LogicalResourceId=autoScalingGroup&UniqueId=i-123&Status=SUCCESS")
+    .getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * @return the Authorization header the AWS SDK's own signer computes for the same request
+   */
+  private static String sdkAuthorization(final URI endpoint, final AWSCredentials credentials) {
+    DefaultRequest<Void> request = new DefaultRequest<>("AmazonCloudFormation");
+    request.setEndpoint(endpoint);
+    request.setHttpMethod(HttpMethodName.POST);
+    request.addHeader("Content-Type", "application/x-www-form-urlencoded; charset=utf-8");
+    request.setContent(new ByteArrayInputStream(BODY));
+
+    AWS4Signer signer = new AWS4Signer() {
+      {
+        overriddenDate = Date.from(NOW);
+      }
+    };
+    signer.setServiceName("cloudformation");
+    signer.setRegionName("us-west-2");
+    signer.sign(request, credentials);
+    return request.getHeaders().get("Authorization");
+  }
+
+  private static Map<String, String> sign(final URI endpoint, final AWSCredentials credentials) {
+    Map<String, String> headers = new LinkedHashMap<>();
+    headers.put("Content-Type", "application/x-www-form-urlencoded; charset=utf-8");
+    new SigV4Signer("us-west-2", "cloudformation").sign("POST", endpoint, headers, BODY, credentials, NOW);
+    return headers;
+  }
+
+  @Test
+  public void signsLikeTheSdk() {
+    URI endpoint = URI.create("https://cloudformation.us-west-2.amazonaws.com/");
+    AWSCredentials credentials = new BasicAWSCredentials("AKIDEXAMPLE", "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY");
+
+    Map<String, String> headers = sign(endpoint, credentials);
+
+    assertThat(headers.get("X-Amz-Date"), equalTo("20160203T040506Z"));
+    assertThat(headers.get("Authorization"), equalTo(sdkAuthorization(endpoint, credentials)));
+  }
+
+  @Test
+  public void signsTheSessionTokenAndPortLikeTheSdk() {
+    URI endpoint = URI.create("http://127.0.0.1:8123/");
+    AWSCredentials credentials = new BasicSessionCredentials("ASIAEXAMPLE", "secret", "session-token");
+
+    Map<String, String> headers = sign(endpoint, credentials);
+
+    assertThat(headers.get("X-Amz-Security-Token"), equalTo("session-token"));
+    assertThat(headers.get("Authorization"), equalTo(sdkAuthorization(endpoint, credentials)));
+  }
+}
@@ -0,0 +1,93 @@
+package net.eldeen.dropwizard;
+
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.CREATE_IN_PROGRESS;
+import static com.amazonaws.services.cloudformation.model.ResourceStatus.UPDATE_IN_PROGRESS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+
+import com.amazonaws.services.cloudformation.model.ResourceStatus;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import org.junit.Test;
+
+public class SignalDeadlineTest {
+
+  private static final String JSON_TEMPLATE =
+    "{\n"
+    + "\t\"Resources\": {\n"
+    + "\t\t\"autoScalingGroup\": {\n"
+    + "\t\t\t\"Type\": \"AWS::AutoScaling::AutoScalingGroup\",\n"
+    + "\t\t\t\"CreationPolicy\": {\"ResourceSignal\": {\"Count\": 2, \"Timeout\": \"PT15M\"}},\n"
+    + "\t\t\t\"UpdatePolicy\": {\"AutoScalingRollingUpdate\": {\"PauseTime\": \"PT10M\", \"WaitOnResourceSignals\": \"true\"}}\n"
+    + "\t\t}\n"
+    + "\t}\n"
+    + "}";
+
+  private static Optional<Duration> timeout(final String template, final ResourceStatus status) throws Exception {
+    return SignalDeadline.timeout(SignalDeadline.parse(template), "autoScalingGroup", status);
+  }
+
+  @Test
+  public void creationPolicyTimeoutWhileCreatingAndPauseTimeWhileUpdating() throws Exception {
+    assertThat(timeout(JSON_TEMPLATE, CREATE_IN_PROGRESS), equalTo(Optional.of(Duration.ofMinutes(15))));
+    assertThat(timeout(JSON_TEMPLATE, UPDATE_IN_PROGRESS), equalTo(Optional.of(Duration.ofMinutes(10))));
+  }
+
+  @Test
+  public void noDeadlineWhenNotWaitingOnSignals() throws Exception {
+    String template = "Resources:\n"
+                      + "  autoScalingGroup:\n"
+                      + "    Type: AWS::AutoScaling::AutoScalingGroup\n"
+                      + "    UpdatePolicy:\n"
+                      + "      AutoScalingRollingUpdate:\n"
+                      + "        PauseTime: PT10M\n";
+
+    assertThat(timeout(template, CREATE_IN_PROGRESS), equalTo(Optional.empty()));
+    assertThat(timeout(template, UPDATE_IN_PROGRESS), equalTo(Optional.empty()));
+    assertThat(timeout(template, ResourceStatus.UPDATE_COMPLETE), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void defaultsLikeCloudFormationAndReplacingUpdatesUseTheCreationPolicy() throws Exception {
+    String template = "Resources:\n"
+                      + "  autoScalingGroup:\n"
+                      + "    Type: AWS::AutoScaling::AutoScalingGroup\n"
+                      + "    CreationPolicy:\n"
+                      + "      ResourceSignal:\n"
+                      + "        Count: 1\n"
+                      + "    UpdatePolicy:\n"
+                      + "      AutoScalingReplacingUpdate:\n"
+                      + "        WillReplace: true\n";
+
+    assertThat(timeout(template, CREATE_IN_PROGRESS), equalTo(Optional.of(Duration.ofMinutes(5))));
+    assertThat(timeout(template, UPDATE_IN_PROGRESS), equalTo(Optional.of(Duration.ofMinutes(5))));
+  }
+
+  @Test
+  public void unknownWhenTheTimeoutIsAParameter() throws Exception {
+    String template = "Resources:\n"
+                      + "  autoScalingGroup:\n"
+                      + "    Type: AWS::AutoScaling::AutoScalingGroup\n"
+                      + "    CreationPolicy:\n"
+                      + "      ResourceSignal:\n"
+                      + "        Timeout: !Ref SignalTimeout\n";
+
+    assertThat(timeout(template, CREATE_IN_PROGRESS), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void countsFromTheLaterOfTheLastUpdateAndStartup() {
+    Instant lastUpdated = Instant.parse("2016-02-03T04:00:00Z");
+    StackResourceDetail detail = new StackResourceDetail().withResourceStatus(CREATE_IN_PROGRESS)
+                                                          .withLastUpdatedTimestamp(Date.from(lastUpdated));
+
+    assertThat(SignalDeadline.of(JSON_TEMPLATE, "autoScalingGroup", detail, lastUpdated.minusSeconds(60)),
+               equalTo(Optional.of(lastUpdated.plus(Duration.ofMinutes(15)))));
+    assertThat(SignalDeadline.of(JSON_TEMPLATE, "autoScalingGroup", detail, lastUpdated.plusSeconds(60)),
+               equalTo(Optional.of(lastUpdated.plusSeconds(60).plus(Duration.ofMinutes(15)))));
+  }
+}
@@ -0,0 +1,73 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import com.amazonaws.services.cloudformation.model.ResourceSignalStatus;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SignalJournalTest {
+
+  private static final CfSignalResourceTarget ASG = new CfSignalResourceTarget("stackName", "autoScalingGroup");
+  private static final CfSignalResourceTarget WAIT_CONDITION = new CfSignalResourceTarget("nestedStack", "ready");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path path;
+
+  @Before
+  public void setUpPath() {
+    path = temporaryFolder.getRoot().toPath().resolve("journal").resolve("signals.journal");
+  }
+
+  @Test
+  public void readsBackWhatWasSignalledBeforeRestarting() {
+    final SignalJournal journal = SignalJournal.open(path);
+    journal.intend(ASG, "i-123", ResourceSignalStatus.SUCCESS);
+    journal.acknowledge(ASG, "i-123", ResourceSignalStatus.SUCCESS);
+    journal.intend(WAIT_CONDITION, "i-123", ResourceSignalStatus.FAILURE);
+
+    final SignalJournal restarted = SignalJournal.open(path);
+
+    assertThat(restarted.acknowledged(ASG, "i-123"), equalTo(Optional.of(ResourceSignalStatus.SUCCESS)));
+    assertThat(restarted.pending(ASG, "i-123"), equalTo(Optional.empty()));
+    assertThat(restarted.acknowledged(WAIT_CONDITION, "i-123"), equalTo(Optional.empty()));
+    assertThat(restarted.pending(WAIT_CONDITION, "i-123"), equalTo(Optional.of(ResourceSignalStatus.FAILURE)));
+    assertThat(restarted.acknowledged(ASG, "i-456"), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void ignoresARecordTornByACrash() throws IOException {
+    SignalJournal.open(path).intend(ASG, "i-123", ResourceSignalStatus.SUCCESS);
+    Files.write(path,
+                "1450000000000\tACKNOWLEDGED\tSUCCESS\tstackName\tautoScalingGroup\ti-12".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+    final SignalJournal restarted = SignalJournal.open(path);
+
+    assertThat(restarted.acknowledged(ASG, "i-123"), equalTo(Optional.empty()));
+    assertThat(restarted.pending(ASG, "i-123"), equalTo(Optional.of(ResourceSignalStatus.SUCCESS)));
+  }
+
+  @Test
+  public void carriesOnWithoutAWritableJournal() throws IOException {
+    final Path directory = temporaryFolder.newFolder().toPath();
+
+    final SignalJournal journal = SignalJournal.open(directory);
+    journal.intend(ASG, "i-123", ResourceSignalStatus.SUCCESS);
+    journal.acknowledge(ASG, "i-123", ResourceSignalStatus.SUCCESS);
+
+    assertThat(journal.acknowledged(ASG, "i-123"), equalTo(Optional.of(ResourceSignalStatus.SUCCESS)));
+  }
+}
@@ -0,0 +1,125 @@
+package net.eldeen.dropwizard;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.amazonaws.services.cloudformation.model.ResourceStatus;
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.dropwizard.util.Duration;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StackResourceStatusCacheTest {
+
+  private final AtomicLong nanos = new AtomicLong();
+  private final Ticker ticker = new Ticker() {
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+  };
+
+  private Callable<StackResourceDetail> describe;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setupDescribe() {
+    describe = mock(Callable.class);
+  }
+
+  @Test
+  public void reusesFreshPrefetchedStatus() throws Exception {
+    StackResourceDetail detail = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS);
+    when(describe.call()).thenReturn(detail);
+
+    StackResourceStatusCache cache = new StackResourceStatusCache(describe, Duration.seconds(30), ticker);
+    cache.prefetch(MoreExecutors.directExecutor());
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(29));
+
+    assertSame(detail, cache.get());
+    verify(describe).call();
+  }
+
+  @Test
+  public void checksAgainWhenPrefetchedStatusIsStale() throws Exception {
+    StackResourceDetail detail = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS);
+    when(describe.call()).thenReturn(detail);
+
+    StackResourceStatusCache cache = new StackResourceStatusCache(describe, Duration.seconds(30), ticker);
+    cache.prefetch(MoreExecutors.directExecutor());
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+    cache.get();
+    verify(describe, times(2)).call();
+  }
+
+  @Test
+  public void checksAgainWhenPrefetchedStatusIsAmbiguous() throws Exception {
+    StackResourceDetail failed = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_FAILED);
+    StackResourceDetail inProgress = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS);
+    when(describe.call()).thenReturn(failed, inProgress);
+
+    StackResourceStatusCache cache = new StackResourceStatusCache(describe, Duration.seconds(30), ticker);
+    cache.prefetch(MoreExecutors.directExecutor());
+
+    assertSame(inProgress, cache.get());
+  }
+
+  @Test
+  public void fetchesWhenNothingWasPrefetched() throws Exception {
+    StackResourceDetail detail = new StackResourceDetail().withResourceStatus(ResourceStatus.CREATE_IN_PROGRESS);
+    when(describe.call()).thenReturn(detail);
+
+    assertSame(detail, new StackResourceStatusCache(describe, Duration.seconds(30), ticker).get());
+  }
+
+  @Test
+  public void takesTheStatusFromAFreshSnapshot() throws Exception {
+    StackResourceDetail snapshotted = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS);
+    AtomicReference<Optional<StackResourceDetail>> snapshot = new AtomicReference<>(Optional.of(snapshotted));
+    StackResourceDetail described = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE);
+    when(describe.call()).thenReturn(described);
+
+    StackResourceStatusCache cache =
+      new StackResourceStatusCache(describe, Duration.seconds(30), snapshot::get, ticker);
+    cache.prefetch(MoreExecutors.directExecutor());
+    //the snapshot's own max age applies, not the prefetched status's
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+    assertSame(snapshotted, cache.get());
+    verify(describe, never()).call();
+
+    //the snapshot has grown too old
+    snapshot.set(Optional.empty());
+    assertSame(described, cache.get());
+  }
+
+  @Test
+  public void fetchesOnceTheSnapshotIsDistrusted() throws Exception {
+    StackResourceDetail snapshotted = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_IN_PROGRESS);
+    StackResourceDetail described = new StackResourceDetail().withResourceStatus(ResourceStatus.UPDATE_COMPLETE);
+    when(describe.call()).thenReturn(described);
+
+    StackResourceStatusCache cache =
+      new StackResourceStatusCache(describe, Duration.seconds(30), () -> Optional.of(snapshotted), ticker);
+    cache.prefetch(MoreExecutors.directExecutor());
+
+    assertTrue(cache.distrustSnapshot());
+    assertSame(described, cache.get());
+    assertFalse(cache.distrustSnapshot());
+  }
+}
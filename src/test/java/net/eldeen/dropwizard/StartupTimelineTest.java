@@ -0,0 +1,49 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class StartupTimelineTest {
+
+  private final StartupTimeline timeline = new StartupTimeline();
+
+  @Test
+  public void recordsEventsInOrderFromJvmStart() throws InterruptedException {
+    timeline.mark("initialize");
+    Thread.sleep(10);
+    timeline.mark("run");
+
+    final List<StartupTimeline.Event> events = timeline.getEvents();
+    assertThat(events.stream().map(StartupTimeline.Event::getName).collect(Collectors.toList()),
+               contains("initialize", "run"));
+    assertThat(events.get(1).getMillis() - events.get(0).getMillis(), greaterThanOrEqualTo(10L));
+  }
+
+  @Test
+  public void summarizesEventsOnOneLine() {
+    timeline.mark("initialize");
+    timeline.mark("run");
+
+    assertTrue(timeline.summary(), timeline.summary().matches("initialize=\\d+ms run=\\d+ms"));
+  }
+
+  @Test
+  public void dropsEventsOnceFull() {
+    for (int i = 0; i < StartupTimeline.CAPACITY + 10; i++) {
+      timeline.mark("event" + i);
+    }
+
+    final List<StartupTimeline.Event> events = timeline.getEvents();
+    assertThat(events, hasSize(StartupTimeline.CAPACITY));
+    assertThat(events.get(StartupTimeline.CAPACITY - 1).getName(), equalTo("event" + (StartupTimeline.CAPACITY - 1)));
+  }
+}
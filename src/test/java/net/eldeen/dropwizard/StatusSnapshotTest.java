@@ -0,0 +1,73 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import com.amazonaws.services.cloudformation.model.StackResourceDetail;
+import io.dropwizard.util.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StatusSnapshotTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final CfSignalResourceTarget target = new CfSignalResourceTarget("yourStack", "yourASG");
+
+  private Path path;
+
+  @Before
+  public void setUpPath() {
+    path = temporaryFolder.getRoot().toPath().resolve("status.json");
+  }
+
+  private static Clock at(final String instant) {
+    return Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+  }
+
+  @Test
+  public void looksUpResourcesWhileTheSnapshotIsFresh() throws IOException {
+    write("{\"timestamp\": \"2016-01-02T04:04:05+01:00\", \"resources\": ["
+          + "{\"stackName\": \"yourStack\", \"logicalResourceId\": \"yourASG\","
+          + " \"resourceStatus\": \"UPDATE_IN_PROGRESS\", \"lastUpdatedTimestamp\": \"2016-01-02T03:00:00Z\"}]}");
+
+    final StackResourceDetail detail =
+      StatusSnapshot.read(path, Duration.minutes(30), at("2016-01-02T03:34:05Z")).lookUp(target).get();
+    assertThat(detail.getResourceStatus(), equalTo("UPDATE_IN_PROGRESS"));
+    assertThat(detail.getLastUpdatedTimestamp(), equalTo(Date.from(Instant.parse("2016-01-02T03:00:00Z"))));
+    assertFalse(StatusSnapshot.read(path, Duration.minutes(30), at("2016-01-02T03:34:05Z"))
+                              .lookUp(new CfSignalResourceTarget("yourStack", "anotherASG"))
+                              .isPresent());
+
+    assertFalse(StatusSnapshot.read(path, Duration.minutes(30), at("2016-01-02T03:34:06Z")).lookUp(target).isPresent());
+  }
+
+  @Test
+  public void isEmptyWhenTheSnapshotIsMissingOrUnreadable() throws IOException {
+    assertFalse(StatusSnapshot.read(path, Duration.minutes(30)).lookUp(target).isPresent());
+
+    write("");
+    assertFalse(StatusSnapshot.read(path, Duration.minutes(30)).lookUp(target).isPresent());
+    write("{\"timestamp\": \"yesterday\", \"resources\": []}");
+    assertFalse(StatusSnapshot.read(path, Duration.minutes(30)).lookUp(target).isPresent());
+    write("{\"timestamp\": \"2016-01-02T03:04:05Z\", \"resources\": [{\"stackName\": \"yourStack\"}]}");
+    assertFalse(StatusSnapshot.read(path, Duration.minutes(30)).lookUp(target).isPresent());
+  }
+
+  private void write(final String snapshot) throws IOException {
+    Files.write(path, snapshot.getBytes(StandardCharsets.UTF_8));
+  }
+}
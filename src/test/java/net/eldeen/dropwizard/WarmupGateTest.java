@@ -0,0 +1,104 @@
+package net.eldeen.dropwizard;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import io.dropwizard.util.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WarmupGateTest {
+
+  private HttpServer app;
+  private final AtomicInteger requests = new AtomicInteger();
+  private volatile long responseDelayMillis = 0;
+
+  @Before
+  public void startApp() throws IOException {
+    app = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    app.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      try {
+        Thread.sleep(responseDelayMillis);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      byte[] body = "pong".getBytes();
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    app.start();
+  }
+
+  @After
+  public void stopApp() {
+    app.stop(0);
+  }
+
+  private URI baseUri() {
+    return URI.create("http://127.0.0.1:" + app.getAddress().getPort());
+  }
+
+  private static CfSignalResourceWarmupConfig config() {
+    CfSignalResourceWarmupConfig config = new CfSignalResourceWarmupConfig();
+    config.setEnabled(true);
+    config.setRequests(Arrays.asList(new CfSignalResourceWarmupConfig.Request("GET", "/ping"),
+                                     new CfSignalResourceWarmupConfig.Request("GET", "/other")));
+    config.setConcurrency(2);
+    config.setWindow(Duration.milliseconds(100));
+    config.setMinRequestsPerWindow(5);
+    config.setRequiredWindows(2);
+    config.setP99Target(Duration.seconds(1));
+    config.setDeadline(Duration.seconds(10));
+    return config;
+  }
+
+  @Test
+  public void readyOnceLatencyTargetIsMet() throws Exception {
+    Readiness readiness = new WarmupGate(config()).warmUp(baseUri()).get(10, TimeUnit.SECONDS);
+
+    assertTrue(readiness.isReady());
+    assertThat(requests.get(), greaterThan(10));
+  }
+
+  @Test
+  public void notReadyWhenLatencyTargetIsMissedByTheDeadline() throws Exception {
+    responseDelayMillis = 20;
+    CfSignalResourceWarmupConfig config = config();
+    config.setP99Target(Duration.milliseconds(1));
+    config.setDeadline(Duration.milliseconds(500));
+
+    Readiness readiness = new WarmupGate(config).warmUp(baseUri()).get(10, TimeUnit.SECONDS);
+
+    assertFalse(readiness.isReady());
+    assertThat(readiness.getReason().get(), containsString("not warmed up within 500 milliseconds"));
+  }
+
+  @Test
+  public void percentiles() {
+    long[] values = new long[100];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = values.length - i;
+    }
+    assertThat(WarmupGate.percentile(values, 0.99), equalTo(99L));
+    assertThat(WarmupGate.percentile(values, 0.5), equalTo(50L));
+    assertThat(WarmupGate.percentile(new long[] {7}, 0.99), equalTo(7L));
+  }
+}